@@ -0,0 +1,441 @@
+import batch.BranchRunner;
+import batch.ReplicationPolicy;
+import batch.ReplicationWorker;
+import batch.ResultsColumn;
+import batch.ResultsExport;
+import batch.ResultsStore;
+import batch.SignalOptimizer;
+import batch.SweepPoint;
+import batch.SweepResults;
+import batch.SweepRunner;
+import batch.WorkerCoordinator;
+import com.eclipsesource.json.JsonObject;
+import gui.CrossroadView;
+import model.crossroad.Crossroad;
+import model.crossroad.SignalPlan;
+import model.utils.CrossroadCompiler;
+import model.utils.CrossroadLoader;
+import model.utils.NetworkGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.Checkpoint;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+import simulation.StatisticsTracker.SimulationStatistics;
+import simulation.TrajectoryReader;
+
+import javax.swing.*;
+import java.awt.*;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CrossroadSimulatorApplication {
+    private static int NUMBER_OF_SIMULATORS = 40;
+    private static final int REPLICATION_WAVE = 5;
+    private static final double RELATIVE_PRECISION = 0.05;
+    private static final double CONFIDENCE = 0.95;
+    private static final String RESULTS_FILE = "results.bin";
+
+    private static final Logger logger = LoggerFactory.getLogger(CrossroadSimulatorApplication.class);
+    private Crossroad crossroad;
+    private CrossroadView window;
+    private Simulator simulator;
+    private SimulationSettings settings;
+    private String workerSpec;
+    private String trajectoryDirectory;
+
+    public SimulationSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(SimulationSettings settings) {
+        this.settings = settings;
+    }
+
+    // batch replications run in that many worker JVMs, 0 runs them in this one
+    public void setWorkers(String workerSpec) {
+        this.workerSpec = workerSpec;
+    }
+
+    // batch replications are recorded into their own trajectory files in the directory
+    public void setTrajectoryDirectory(String trajectoryDirectory) {
+        this.trajectoryDirectory = trajectoryDirectory;
+    }
+
+    public CrossroadSimulatorApplication(SimulationSettings settings) {
+        this.settings = settings;
+        this.crossroad = CrossroadLoader.loadFromFile(settings.crossroadFile);
+        // batch runs build a simulator per replication
+        if (!settings.batchMode) {
+            this.simulator = new Simulator(this.crossroad, settings);
+            this.window = new CrossroadView(this.crossroad, this.simulator);
+            createUi();
+        }
+    }
+
+    public void run() {
+        logger.info("Seed: {}", settings.seed);
+        if (!settings.batchMode) {
+            simulator.run();
+        } else {
+            SweepPoint point = new SweepPoint(settings.crossroadFile, settings.simulationTime, settings.traffic, settings.craziness);
+            ReplicationPolicy policy = new ReplicationPolicy(REPLICATION_WAVE, NUMBER_OF_SIMULATORS, RELATIVE_PRECISION, CONFIDENCE);
+            try (ResultsStore store = new ResultsStore(Paths.get(RESULTS_FILE));
+                 WorkerCoordinator workers = createWorkers(workerSpec)) {
+                SweepRunner runner = new SweepRunner(policy, settings.seed, store::add);
+                if (trajectoryDirectory != null) {
+                    runner.setTrajectoryDirectory(Paths.get(trajectoryDirectory));
+                }
+                runner.setStreaming(settings.streamPort >= 0);
+                runner.setRegions(settings.regions);
+                runner.setWorkers(workers);
+                runner.run(Collections.singletonList(point));
+            }
+        }
+    }
+
+    private static void runSweep(String[] args) {
+        Arguments arguments = new Arguments(args, 1, Collections.singletonList("stream"),
+                "max-replications", "seed", "precision", "trajectories", "warm-up", "regions", "workers");
+        arguments.require(4, "sweep <files,...> <simulationTime> <traffic> <craziness> [options]");
+        List<SweepPoint> points = new ArrayList<>();
+        int simulationTime = Integer.parseInt(arguments.get(1));
+        for (String file : arguments.get(0).split(",")) {
+            for (float traffic : parseValues(arguments.get(2))) {
+                for (float craziness : parseValues(arguments.get(3))) {
+                    points.add(new SweepPoint(file, simulationTime, traffic, craziness));
+                }
+            }
+        }
+        int maxReplications = arguments.getInt("max-replications", NUMBER_OF_SIMULATORS);
+        long seed = arguments.getLong("seed", System.nanoTime());
+        double precision = arguments.getDouble("precision", RELATIVE_PRECISION);
+        ReplicationPolicy policy = new ReplicationPolicy(Math.min(REPLICATION_WAVE, maxReplications), maxReplications, precision, CONFIDENCE);
+        logger.info("Sweeping {} points, {}, seed: {}", points.size(), policy, seed);
+        try (ResultsStore store = new ResultsStore(Paths.get(RESULTS_FILE));
+             WorkerCoordinator workers = createWorkers(arguments.get("workers", null))) {
+            SweepRunner runner = new SweepRunner(policy, seed, store::add);
+            runner.setWorkers(workers);
+            if (arguments.has("trajectories")) {
+                runner.setTrajectoryDirectory(Paths.get(arguments.get("trajectories", null)));
+            }
+            runner.setWarmUpSteps(arguments.getInt("warm-up", 0));
+            runner.setStreaming(arguments.has("stream"));
+            runner.setRegions(arguments.getInt("regions", 1));
+            runner.run(points);
+        }
+    }
+
+    private static void replay(String[] args) {
+        Crossroad crossroad = CrossroadLoader.loadFromFile(args[1]);
+        TrajectoryReader reader = new TrajectoryReader(Paths.get(args[2]));
+        if (reader.getEdgeCount() != crossroad.getEdgeCount()) {
+            throw new RuntimeException("Trajectory " + args[2] + " was not recorded on " + args[1]);
+        }
+        EventQueue.invokeLater(() -> new CrossroadView(crossroad, reader).setVisible(true));
+    }
+
+    private static void attach(String[] args) {
+        Crossroad crossroad = CrossroadLoader.loadFromFile(args[1]);
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        EventQueue.invokeLater(() -> new CrossroadView(crossroad, port).setVisible(true));
+    }
+
+    private static void generate(String[] args) {
+        Arguments arguments = new Arguments(args, 1, Collections.emptyList(), "seed");
+        arguments.require(4, "generate <grid|arterial|ring|corridor> <width|rings|intersections> "
+                + "<height|spokes|block> <out.json> [--seed <seed>]");
+        String type = arguments.get(0);
+        int first = Integer.parseInt(arguments.get(1));
+        int second = Integer.parseInt(arguments.get(2));
+        Long seed = arguments.has("seed") ? arguments.getLong("seed", 0) : null;
+        JsonObject network;
+        switch (type) {
+            case "grid":
+                network = NetworkGenerator.grid(first, second, seed);
+                break;
+            case "arterial":
+                network = NetworkGenerator.arterial(first, second, seed);
+                break;
+            case "ring":
+                network = NetworkGenerator.ring(first, second, seed);
+                break;
+            case "corridor":
+                network = NetworkGenerator.corridor(first, second, seed);
+                break;
+            default:
+                throw new RuntimeException("Unknown network type " + type
+                        + ", expected grid, arterial, ring or corridor");
+        }
+        NetworkGenerator.write(network, Paths.get(arguments.get(3)));
+        logger.info("Generated {} network with {} nodes and {} edges", type, network.get("nodes").asArray().size(),
+                network.get("edges").asArray().size());
+    }
+
+    // warms the crossroad up once with the first traffic and craziness, then continues that state with every
+    // combination of them, all branches sharing the random streams of the warm-up
+    private static void branch(String[] args) {
+        Arguments arguments = new Arguments(args, 1, Collections.emptyList(), "seed");
+        arguments.require(5, "branch <crossroad.json> <warmUpSteps> <simulationTime> <traffic> <craziness> [--seed <seed>]");
+        String file = arguments.get(0);
+        int warmUpSteps = Integer.parseInt(arguments.get(1));
+        int simulationTime = Integer.parseInt(arguments.get(2));
+        List<Float> traffics = parseValues(arguments.get(3));
+        List<Float> crazinesses = parseValues(arguments.get(4));
+        long seed = arguments.getLong("seed", System.nanoTime());
+        logger.info("Seed: {}", seed);
+        Crossroad crossroad = CrossroadLoader.loadFromFile(file);
+        List<SweepPoint> points = new ArrayList<>();
+        List<SimulationSettings> branches = new ArrayList<>();
+        for (float traffic : traffics) {
+            for (float craziness : crazinesses) {
+                SweepPoint point = new SweepPoint(file, simulationTime, traffic, craziness);
+                SimulationSettings settings = point.toSettings();
+                settings.seed = seed;
+                points.add(point);
+                branches.add(settings);
+            }
+        }
+        Simulator simulator = new Simulator(crossroad, branches.get(0), seed);
+        simulator.warmUp(warmUpSteps);
+        Checkpoint checkpoint = simulator.checkpoint();
+        List<SimulationStatistics> results = BranchRunner.run(crossroad, checkpoint, branches);
+        for (int i = 0; i < points.size(); i++) {
+            SimulationStatistics statistics = results.get(i);
+            logger.info("{} from step {}: velocity {}, waiting {}, driving {}, agents {}, collisions {}", points.get(i),
+                    warmUpSteps, statistics.averageVelocity, statistics.averageWaitingTime,
+                    statistics.averageDrivingTime, statistics.numberOfAgents, statistics.numberOfCollisions);
+        }
+    }
+
+    // writes a copy of the crossroad, JSON or compiled, as JSON with the optimized plan as its signals
+    private static void optimizeSignals(String[] args) {
+        Arguments arguments = new Arguments(args, 1, Collections.emptyList(),
+                "generations", "population", "replications", "warm-up", "seed");
+        arguments.require(5, "optimize <crossroad.json> <out.json> <simulationTime> <traffic> <craziness> [options]");
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.crossroadFile = arguments.get(0);
+        settings.simulationTime = Integer.parseInt(arguments.get(2));
+        settings.traffic = Float.parseFloat(arguments.get(3));
+        settings.craziness = Float.parseFloat(arguments.get(4));
+        long seed = arguments.getLong("seed", System.nanoTime());
+        logger.info("Seed: {}", seed);
+        Crossroad crossroad = CrossroadLoader.loadFromFile(settings.crossroadFile);
+        SignalOptimizer optimizer = new SignalOptimizer(crossroad, settings, seed);
+        if (arguments.has("generations")) {
+            optimizer.setGenerations(arguments.getInt("generations", 0));
+        }
+        if (arguments.has("population")) {
+            optimizer.setPopulation(arguments.getInt("population", 0));
+        }
+        if (arguments.has("replications")) {
+            optimizer.setReplications(arguments.getInt("replications", 0));
+        }
+        if (arguments.has("warm-up")) {
+            optimizer.setWarmUpSteps(arguments.getInt("warm-up", 0));
+        }
+        SignalPlan plan = optimizer.optimize();
+        logger.info("Signal plan: {}", plan);
+        JsonObject network = NetworkGenerator.network(crossroad);
+        network.set("signals", NetworkGenerator.signals(plan));
+        NetworkGenerator.write(network, Paths.get(arguments.get(1)));
+    }
+
+    private static void exportResults(String[] args) {
+        long start = System.nanoTime();
+        SweepResults results = ResultsStore.read(Paths.get(args[1]));
+        logger.info("Read {} points and {} routes in {} ms", results.getPointCount(), results.getRouteCount(),
+                (System.nanoTime() - start) / 1000000);
+        ResultsExport.toCsv(results, ResultsColumn.Table.POINTS, Paths.get(args[2]));
+        if (args.length > 3) {
+            ResultsExport.toCsv(results, ResultsColumn.Table.ROUTES, Paths.get(args[3]));
+        }
+    }
+
+    // <count>[@host:port], local workers on loopback, with an address the coordinator also accepts remote ones
+    private static WorkerCoordinator createWorkers(String spec) {
+        if (spec == null) {
+            return null;
+        }
+        String[] parts = spec.split("@");
+        int localWorkers = Integer.parseInt(parts[0]);
+        if (parts.length == 1) {
+            return localWorkers > 0 ? new WorkerCoordinator(localWorkers) : null;
+        }
+        int colon = parts[1].lastIndexOf(':');
+        try {
+            InetAddress address = InetAddress.getByName(parts[1].substring(0, colon));
+            return new WorkerCoordinator(address, Integer.parseInt(parts[1].substring(colon + 1)), localWorkers,
+                    WorkerCoordinator.DEFAULT_HEAP);
+        } catch (UnknownHostException e) {
+            throw new RuntimeException("Unknown coordinator address: " + parts[1], e);
+        }
+    }
+
+    // comma separated values or from:to:step ranges, e.g. "0.5,1,2" or "0.1:1:0.1"
+    private static List<Float> parseValues(String values) {
+        List<Float> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            String[] range = value.split(":");
+            if (range.length == 3) {
+                BigDecimal to = new BigDecimal(range[1]);
+                BigDecimal step = new BigDecimal(range[2]);
+                for (BigDecimal v = new BigDecimal(range[0]); v.compareTo(to) <= 0; v = v.add(step)) {
+                    result.add(v.floatValue());
+                }
+            } else {
+                result.add(Float.parseFloat(value));
+            }
+        }
+        return result;
+    }
+
+    public static void main(String args[]) {
+        logger.info("Starting...");
+        if (args.length > 0 && args[0].equals("sweep")) {
+            runSweep(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("replay")) {
+            replay(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("attach")) {
+            attach(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("generate")) {
+            generate(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("branch")) {
+            branch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("optimize")) {
+            optimizeSignals(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("compile")) {
+            CrossroadCompiler.compile(args[1], Paths.get(args[2]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("worker")) {
+            ReplicationWorker.run(args[1], Integer.parseInt(args[2]), -1);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            exportResults(args);
+            return;
+        }
+        SimulationSettings settings = new SimulationSettings();
+        Arguments arguments = new Arguments(args, 0, Arrays.asList("parallel", "stream"),
+                "seed", "trajectory", "trajectories", "stream-port", "regions", "workers");
+        if (arguments.count() > 0) {
+            arguments.require(5, "<crossroad.json> <batchMode> <simulationTime> <traffic> <craziness> [options]");
+            settings.crossroadFile = arguments.get(0);
+            settings.batchMode = Integer.parseInt(arguments.get(1)) == 1;
+            settings.simulationTime = Integer.parseInt(arguments.get(2));
+            settings.traffic = Float.parseFloat(arguments.get(3));
+            settings.craziness = Float.parseFloat(arguments.get(4));
+        }
+        settings.parallelStep = arguments.has("parallel");
+        settings.seed = arguments.getLong("seed", settings.seed);
+        settings.regions = arguments.getInt("regions", settings.regions);
+        // a batch run streams every replication on a free port, an interactive one the given or a free port
+        settings.streamPort = arguments.getInt("stream-port", arguments.has("stream") ? 0 : settings.streamPort);
+        if (settings.batchMode && arguments.has("trajectory")) {
+            throw new RuntimeException("Batch runs record a trajectory per replication, use --trajectories <dir>");
+        }
+        if (!settings.batchMode && arguments.has("trajectories")) {
+            throw new RuntimeException("Interactive runs record a single trajectory, use --trajectory <file>");
+        }
+        settings.trajectoryFile = arguments.get("trajectory", null);
+        CrossroadSimulatorApplication simulator = new CrossroadSimulatorApplication(settings);
+        simulator.setTrajectoryDirectory(arguments.get("trajectories", null));
+        simulator.setWorkers(arguments.get("workers", null));
+        simulator.run();
+    }
+
+    private void createUi() {
+        EventQueue.invokeLater(() -> {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException ex) {
+                logger.error("Unable to set system look and feel");
+            }
+            window.setVisible(true);
+        });
+    }
+
+    // positional arguments mixed with --name value options and --name flags
+    private static class Arguments {
+        private final List<String> positional = new ArrayList<>();
+        private final Map<String, String> options = new HashMap<>();
+
+        Arguments(String[] args, int from, Collection<String> flags, String... names) {
+            List<String> known = Arrays.asList(names);
+            for (int i = from; i < args.length; i++) {
+                if (!args[i].startsWith("--")) {
+                    positional.add(args[i]);
+                    continue;
+                }
+                String name = args[i].substring(2);
+                if (flags.contains(name)) {
+                    options.put(name, "");
+                } else if (!known.contains(name)) {
+                    throw new RuntimeException("Unknown option " + args[i]);
+                } else if (i + 1 == args.length) {
+                    throw new RuntimeException("Missing value of option " + args[i]);
+                } else {
+                    options.put(name, args[++i]);
+                }
+            }
+        }
+
+        void require(int count, String usage) {
+            if (positional.size() < count) {
+                throw new RuntimeException("Usage: " + usage);
+            }
+        }
+
+        int count() {
+            return positional.size();
+        }
+
+        String get(int index) {
+            return positional.get(index);
+        }
+
+        boolean has(String name) {
+            return options.containsKey(name);
+        }
+
+        String get(String name, String defaultValue) {
+            String value = options.get(name);
+            return value == null ? defaultValue : value;
+        }
+
+        int getInt(String name, int defaultValue) {
+            return has(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+        }
+
+        long getLong(String name, long defaultValue) {
+            return has(name) ? Long.parseLong(options.get(name)) : defaultValue;
+        }
+
+        double getDouble(String name, double defaultValue) {
+            return has(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package batch;
+
+import model.crossroad.Crossroad;
+import simulation.Checkpoint;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// what-if branches: every settings variant continues the same checkpoint up to its own simulation time,
+// counting statistics from the checkpoint on
+public class BranchRunner {
+    public static List<SimulationStatistics> run(Crossroad crossroad, Checkpoint checkpoint, List<SimulationSettings> branches) {
+        List<Callable<SimulationStatistics>> jobs = new ArrayList<>();
+        for (SimulationSettings settings : branches) {
+            jobs.add(() -> {
+                Simulator simulator = Simulator.restore(crossroad, settings, checkpoint);
+                return simulator.runReplication(0, settings.simulationTime);
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(branches.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<SimulationStatistics> results = new ArrayList<>();
+            for (Future<SimulationStatistics> future : pool.invokeAll(jobs)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Branch failed", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
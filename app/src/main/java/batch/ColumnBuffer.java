@@ -0,0 +1,213 @@
+package batch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// growable typed column, strings are dictionary encoded when written
+class ColumnBuffer {
+    private final ResultsColumn.Type type;
+    private int size;
+    private int[] ints;
+    private long[] longs;
+    private float[] floats;
+    private String[] strings;
+
+    ColumnBuffer(ResultsColumn.Type type) {
+        this.type = type;
+        switch (type) {
+            case INT:
+                ints = new int[16];
+                break;
+            case LONG:
+                longs = new long[16];
+                break;
+            case FLOAT:
+                floats = new float[16];
+                break;
+            case STRING:
+                strings = new String[16];
+                break;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+        if (strings != null) {
+            Arrays.fill(strings, null);
+        }
+    }
+
+    void addInt(int value) {
+        ensure(size + 1);
+        ints[size++] = value;
+    }
+
+    void addLong(long value) {
+        ensure(size + 1);
+        longs[size++] = value;
+    }
+
+    void addFloat(float value) {
+        ensure(size + 1);
+        floats[size++] = value;
+    }
+
+    void addString(String value) {
+        ensure(size + 1);
+        strings[size++] = value;
+    }
+
+    int getInt(int row) {
+        return ints[row];
+    }
+
+    long getLong(int row) {
+        return longs[row];
+    }
+
+    float getFloat(int row) {
+        return floats[row];
+    }
+
+    String getString(int row) {
+        return strings[row];
+    }
+
+    void shiftInts(int from, int delta) {
+        for (int i = from; i < size; i++) {
+            ints[i] += delta;
+        }
+    }
+
+    String format(int row) {
+        switch (type) {
+            case INT:
+                return Integer.toString(ints[row]);
+            case LONG:
+                return Long.toString(longs[row]);
+            case FLOAT:
+                return Float.toString(floats[row]);
+            default:
+                return strings[row];
+        }
+    }
+
+    int encodedSize() {
+        switch (type) {
+            case INT:
+            case FLOAT:
+                return 4 * size;
+            case LONG:
+                return 8 * size;
+            default:
+                int bytes = 4 + 4 * size;
+                for (String value : dictionary().keySet()) {
+                    bytes += 4 + value.getBytes(StandardCharsets.UTF_8).length;
+                }
+                return bytes;
+        }
+    }
+
+    void encode(ByteBuffer buffer) {
+        switch (type) {
+            case INT:
+                buffer.asIntBuffer().put(ints, 0, size);
+                buffer.position(buffer.position() + 4 * size);
+                break;
+            case LONG:
+                buffer.asLongBuffer().put(longs, 0, size);
+                buffer.position(buffer.position() + 8 * size);
+                break;
+            case FLOAT:
+                buffer.asFloatBuffer().put(floats, 0, size);
+                buffer.position(buffer.position() + 4 * size);
+                break;
+            case STRING:
+                Map<String, Integer> dictionary = dictionary();
+                String[] entries = new String[dictionary.size()];
+                for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+                    entries[entry.getValue()] = entry.getKey();
+                }
+                buffer.putInt(entries.length);
+                for (String entry : entries) {
+                    byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                    buffer.putInt(bytes.length);
+                    buffer.put(bytes);
+                }
+                for (int i = 0; i < size; i++) {
+                    buffer.putInt(dictionary.get(strings[i]));
+                }
+                break;
+        }
+    }
+
+    void decode(ByteBuffer buffer, int rows) {
+        ensure(size + rows);
+        switch (type) {
+            case INT:
+                buffer.asIntBuffer().get(ints, size, rows);
+                buffer.position(buffer.position() + 4 * rows);
+                break;
+            case LONG:
+                buffer.asLongBuffer().get(longs, size, rows);
+                buffer.position(buffer.position() + 8 * rows);
+                break;
+            case FLOAT:
+                buffer.asFloatBuffer().get(floats, size, rows);
+                buffer.position(buffer.position() + 4 * rows);
+                break;
+            case STRING:
+                String[] entries = new String[buffer.getInt()];
+                for (int i = 0; i < entries.length; i++) {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    entries[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                for (int i = 0; i < rows; i++) {
+                    strings[size + i] = entries[buffer.getInt()];
+                }
+                break;
+        }
+        size += rows;
+    }
+
+    private Map<String, Integer> dictionary() {
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (!dictionary.containsKey(strings[i])) {
+                dictionary.put(strings[i], dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private void ensure(int capacity) {
+        int length = type == ResultsColumn.Type.INT ? ints.length : type == ResultsColumn.Type.LONG ? longs.length
+                : type == ResultsColumn.Type.FLOAT ? floats.length : strings.length;
+        if (capacity <= length) {
+            return;
+        }
+        int grown = Math.max(capacity, 2 * length);
+        switch (type) {
+            case INT:
+                ints = Arrays.copyOf(ints, grown);
+                break;
+            case LONG:
+                longs = Arrays.copyOf(longs, grown);
+                break;
+            case FLOAT:
+                floats = Arrays.copyOf(floats, grown);
+                break;
+            case STRING:
+                strings = Arrays.copyOf(strings, grown);
+                break;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package batch;
+
+import model.utils.QuantileSketch;
+import model.utils.RunningStatistics;
+import model.utils.StudentT;
+import simulation.StatisticsTracker.RouteStatistics;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PointAggregate {
+    public enum Output {
+        WAITING_TIME, VELOCITY, COLLISIONS, QUEUE_LENGTH
+    }
+
+    private final SweepPoint point;
+    private final ReplicationPolicy policy;
+    private final long seed;
+    private final RunningStatistics[] outputs = new RunningStatistics[Output.values().length];
+    private int scheduled;
+    private int replications;
+    private double drivingTime;
+    private double velocity;
+    private double collisions;
+    private double agents;
+    private float[] waitingAgents = new float[8];
+    private float[] waitingTimes = new float[8];
+    private Map<String, double[]> routes = new HashMap<>();
+    private QuantileSketch velocityDistribution = new QuantileSketch();
+    private QuantileSketch waitingTimeDistribution = new QuantileSketch();
+    private QuantileSketch travelTimeDistribution = new QuantileSketch();
+
+    public PointAggregate(SweepPoint point, ReplicationPolicy policy, long seed) {
+        this.point = point;
+        this.policy = policy;
+        this.seed = seed;
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = new RunningStatistics();
+        }
+    }
+
+    // returns true for the replication that completes the scheduled wave
+    public synchronized boolean add(SimulationStatistics statistics) {
+        if (replications == waitingAgents.length) {
+            waitingAgents = Arrays.copyOf(waitingAgents, 2 * replications);
+            waitingTimes = Arrays.copyOf(waitingTimes, 2 * replications);
+        }
+        waitingAgents[replications] = statistics.averageAgentsWaiting;
+        waitingTimes[replications] = statistics.averageWaitingTime;
+        replications++;
+        outputs[Output.WAITING_TIME.ordinal()].add(statistics.averageWaitingTime);
+        outputs[Output.VELOCITY.ordinal()].add(statistics.averageVelocity);
+        outputs[Output.COLLISIONS.ordinal()].add(statistics.numberOfCollisions);
+        outputs[Output.QUEUE_LENGTH.ordinal()].add(statistics.averageAgentsWaiting);
+        drivingTime += statistics.averageDrivingTime;
+        velocity += statistics.averageVelocity;
+        collisions += statistics.numberOfCollisions;
+        agents += statistics.numberOfAgents;
+        velocityDistribution.merge(statistics.velocityDistribution);
+        waitingTimeDistribution.merge(statistics.waitingTimeDistribution);
+        travelTimeDistribution.merge(statistics.travelTimeDistribution);
+        for (Map.Entry<String, RouteStatistics> entry : statistics.routeStats.entrySet()) {
+            double[] route = routes.get(entry.getKey());
+            if (route == null) {
+                route = new double[3];
+                routes.put(entry.getKey(), route);
+            }
+            route[0] += entry.getValue().averageSpeed;
+            route[1] += entry.getValue().numberOfAgents;
+            route[2] += entry.getValue().averageTravelTime;
+        }
+        return replications == scheduled;
+    }
+
+    public synchronized int getReplications() {
+        return replications;
+    }
+
+    public SweepPoint getPoint() {
+        return point;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // returns the size of the next wave, 0 once the outputs are precise enough or the maximum is reached
+    synchronized int scheduleWave() {
+        if (scheduled > 0 && (scheduled >= policy.maxReplications || isPrecise())) {
+            return 0;
+        }
+        int wave = Math.min(policy.waveSize, policy.maxReplications - scheduled);
+        scheduled += wave;
+        return wave;
+    }
+
+    public synchronized double getHalfWidth(Output output) {
+        RunningStatistics statistics = outputs[output.ordinal()];
+        if (statistics.getCount() < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double t = StudentT.criticalValue(policy.confidence, statistics.getCount() - 1);
+        return t * statistics.getStandardDeviation() / Math.sqrt(statistics.getCount());
+    }
+
+    public synchronized double getMean(Output output) {
+        return outputs[output.ordinal()].getMean();
+    }
+
+    public synchronized boolean isPrecise() {
+        for (Output output : Output.values()) {
+            if (!(getHalfWidth(output) <= policy.relativePrecision * Math.abs(getMean(output)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized SimulationStatistics getAverageStatistics() {
+        SimulationStatistics average = new SimulationStatistics();
+        average.averageAgentsWaiting = median(waitingAgents, replications);
+        average.averageWaitingTime = median(waitingTimes, replications);
+        average.averageDrivingTime = (float) (drivingTime / replications);
+        average.averageVelocity = (float) (velocity / replications);
+        average.numberOfCollisions = (int) (collisions / replications);
+        average.numberOfAgents = (int) (agents / replications);
+        average.velocityDistribution = new QuantileSketch(velocityDistribution);
+        average.waitingTimeDistribution = new QuantileSketch(waitingTimeDistribution);
+        average.travelTimeDistribution = new QuantileSketch(travelTimeDistribution);
+        for (Map.Entry<String, double[]> entry : routes.entrySet()) {
+            RouteStatistics route = new RouteStatistics();
+            route.averageSpeed = (float) (entry.getValue()[0] / replications);
+            route.numberOfAgents = (int) (entry.getValue()[1] / replications);
+            route.averageTravelTime = (float) (entry.getValue()[2] / replications);
+            average.routeStats.put(entry.getKey(), route);
+        }
+        return average;
+    }
+
+    private static float median(float[] values, int count) {
+        float[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted[count / 2];
+    }
+}
@@ -0,0 +1,114 @@
+package batch;
+
+import model.crossroad.Crossroad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.Checkpoint;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+import simulation.SimulatorStepObserver;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * One replication, run in this JVM or shipped to a worker: the settings, the seed and, for branches of a
+ * warm-up, the checkpoint to start from. Crossroad and trajectory files are opened by whoever runs the job,
+ * a worker on another machine needs them under the same paths.
+ */
+public class ReplicationJob {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationJob.class);
+
+    private final String name;
+    private final SimulationSettings settings;
+    private final long seed;
+    private final Checkpoint warmUp;
+
+    public ReplicationJob(String name, SimulationSettings settings, long seed, Checkpoint warmUp) {
+        this.name = name;
+        this.settings = settings;
+        this.seed = seed;
+        this.warmUp = warmUp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCrossroadFile() {
+        return settings.crossroadFile;
+    }
+
+    public SimulationStatistics run(Crossroad crossroad) {
+        return run(crossroad, null);
+    }
+
+    // progress, if given, observes every step of the replication
+    public SimulationStatistics run(Crossroad crossroad, SimulatorStepObserver progress) {
+        Simulator simulator = warmUp == null ? new Simulator(crossroad, settings, seed)
+                : Simulator.restore(crossroad, settings, warmUp, seed);
+        if (progress != null) {
+            simulator.registerObserver(progress);
+        }
+        if (simulator.getFrameServer() != null) {
+            logger.info("{} streaming on port {}", name, simulator.getFrameServer().getPort());
+        }
+        // a restored simulator is warmed up already and only forgets the statistics of its warm-up
+        return simulator.runReplication(0, settings.simulationTime);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeLong(seed);
+        out.writeBoolean(settings.batchMode);
+        out.writeInt(settings.simulationTime);
+        out.writeFloat(settings.traffic);
+        out.writeFloat(settings.craziness);
+        out.writeBoolean(settings.parallelStep);
+        out.writeInt(settings.regions);
+        out.writeLong(settings.seed);
+        out.writeUTF(settings.crossroadFile);
+        writeOptional(out, settings.trajectoryFile);
+        out.writeInt(settings.streamPort);
+        out.writeBoolean(warmUp != null);
+        if (warmUp != null) {
+            warmUp.writeTo(out);
+        }
+    }
+
+    static ReplicationJob readFrom(DataInput in) throws IOException {
+        String name = in.readUTF();
+        long seed = in.readLong();
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = in.readBoolean();
+        settings.simulationTime = in.readInt();
+        settings.traffic = in.readFloat();
+        settings.craziness = in.readFloat();
+        settings.parallelStep = in.readBoolean();
+        settings.regions = in.readInt();
+        settings.seed = in.readLong();
+        settings.crossroadFile = in.readUTF();
+        settings.trajectoryFile = readOptional(in);
+        settings.streamPort = in.readInt();
+        Checkpoint warmUp = in.readBoolean() ? Checkpoint.readFrom(in) : null;
+        return new ReplicationJob(name, settings, seed, warmUp);
+    }
+
+    private static void writeOptional(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptional(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
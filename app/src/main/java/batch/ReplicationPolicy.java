@@ -0,0 +1,28 @@
+package batch;
+
+// replications of a point run in waves until every output's confidence interval is within the relative precision
+public class ReplicationPolicy {
+    public final int waveSize;
+    public final int maxReplications;
+    public final double relativePrecision;
+    public final double confidence;
+
+    public ReplicationPolicy(int waveSize, int maxReplications, double relativePrecision, double confidence) {
+        if (waveSize < 2 || maxReplications < waveSize) {
+            throw new IllegalArgumentException("Invalid replication policy: wave " + waveSize + ", max " + maxReplications);
+        }
+        this.waveSize = waveSize;
+        this.maxReplications = maxReplications;
+        this.relativePrecision = relativePrecision;
+        this.confidence = confidence;
+    }
+
+    public static ReplicationPolicy fixed(int replications) {
+        return new ReplicationPolicy(replications, replications, 0, 0.95);
+    }
+
+    @Override
+    public String toString() {
+        return "wave=" + waveSize + " max=" + maxReplications + " precision=" + relativePrecision + " confidence=" + confidence;
+    }
+}
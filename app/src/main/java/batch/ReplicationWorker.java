@@ -0,0 +1,118 @@
+package batch;
+
+import model.crossroad.Crossroad;
+import model.utils.CrossroadLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Worker JVM running the replications a WorkerCoordinator sends it, one at a time. Heartbeats go out from
+ * their own thread, also while a replication runs, and carry the steps simulated so far, so the coordinator
+ * can tell a busy worker from a hung one.
+ */
+public class ReplicationWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationWorker.class);
+
+    private final Map<String, Crossroad> crossroads = new HashMap<>();
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    // written by the replication thread only
+    private volatile long steps;
+
+    private ReplicationWorker(Socket socket) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    // started by the coordinator as java batch.ReplicationWorker <host> <port> <token>
+    public static void main(String[] args) {
+        run(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    }
+
+    // token identifies the workers the coordinator started itself, -1 for the ones started by hand
+    public static void run(String host, int port, int token) {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            new ReplicationWorker(socket).serve(token);
+        } catch (IOException e) {
+            throw new RuntimeException("Worker connection error: " + host + ":" + port, e);
+        }
+    }
+
+    private void serve(int token) throws IOException {
+        synchronized (out) {
+            out.writeInt(WorkerCoordinator.MAGIC);
+            out.writeInt(WorkerCoordinator.VERSION);
+            out.writeInt(token);
+            out.flush();
+        }
+        Thread heartbeat = new Thread(this::beat, "worker-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+        try {
+            while (true) {
+                byte message = in.readByte();
+                if (message == WorkerCoordinator.SHUTDOWN) {
+                    logger.info("Worker shut down by the coordinator");
+                    return;
+                }
+                if (message != WorkerCoordinator.JOB) {
+                    throw new IOException("Unexpected message " + message);
+                }
+                long id = in.readLong();
+                ReplicationJob job = ReplicationJob.readFrom(in);
+                SimulationStatistics statistics;
+                try {
+                    statistics = job.run(crossroad(job.getCrossroadFile()), () -> steps++);
+                } catch (RuntimeException e) {
+                    logger.error("{} failed", job, e);
+                    synchronized (out) {
+                        out.writeByte(WorkerCoordinator.FAILED);
+                        out.writeLong(id);
+                        out.writeUTF(String.valueOf(e));
+                        out.flush();
+                    }
+                    continue;
+                }
+                synchronized (out) {
+                    out.writeByte(WorkerCoordinator.RESULT);
+                    out.writeLong(id);
+                    statistics.writeTo(out);
+                    out.flush();
+                }
+            }
+        } finally {
+            heartbeat.interrupt();
+        }
+    }
+
+    private void beat() {
+        try {
+            while (true) {
+                Thread.sleep(WorkerCoordinator.HEARTBEAT_MILLIS);
+                synchronized (out) {
+                    out.writeByte(WorkerCoordinator.HEARTBEAT);
+                    out.writeLong(steps);
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException | IOException e) {
+            // the connection is gone or the worker is shutting down
+        }
+    }
+
+    private Crossroad crossroad(String file) {
+        Crossroad crossroad = crossroads.get(file);
+        if (crossroad == null) {
+            crossroad = CrossroadLoader.loadFromFile(file);
+            crossroads.put(file, crossroad);
+        }
+        return crossroad;
+    }
+}
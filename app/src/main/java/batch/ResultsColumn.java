@@ -0,0 +1,60 @@
+package batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public enum ResultsColumn {
+    CROSSROAD_FILE(Table.POINTS, Type.STRING),
+    SIMULATION_TIME(Table.POINTS, Type.INT),
+    TRAFFIC(Table.POINTS, Type.FLOAT),
+    CRAZINESS(Table.POINTS, Type.FLOAT),
+    SEED(Table.POINTS, Type.LONG),
+    REPLICATIONS(Table.POINTS, Type.INT),
+    AVERAGE_VELOCITY(Table.POINTS, Type.FLOAT),
+    AVERAGE_WAITING_TIME(Table.POINTS, Type.FLOAT),
+    AVERAGE_DRIVING_TIME(Table.POINTS, Type.FLOAT),
+    AVERAGE_AGENTS_WAITING(Table.POINTS, Type.FLOAT),
+    NUMBER_OF_COLLISIONS(Table.POINTS, Type.INT),
+    NUMBER_OF_AGENTS(Table.POINTS, Type.INT),
+    WAITING_TIME_HALF_WIDTH(Table.POINTS, Type.FLOAT),
+    VELOCITY_HALF_WIDTH(Table.POINTS, Type.FLOAT),
+    COLLISIONS_HALF_WIDTH(Table.POINTS, Type.FLOAT),
+    QUEUE_LENGTH_HALF_WIDTH(Table.POINTS, Type.FLOAT),
+    VELOCITY_P50(Table.POINTS, Type.FLOAT),
+    VELOCITY_P95(Table.POINTS, Type.FLOAT),
+    TRAVEL_TIME_P50(Table.POINTS, Type.FLOAT),
+    TRAVEL_TIME_P95(Table.POINTS, Type.FLOAT),
+
+    ROUTE_POINT(Table.ROUTES, Type.INT),
+    ROUTE_BEGIN(Table.ROUTES, Type.INT),
+    ROUTE_END(Table.ROUTES, Type.INT),
+    ROUTE_AVERAGE_SPEED(Table.ROUTES, Type.FLOAT),
+    ROUTE_AVERAGE_TRAVEL_TIME(Table.ROUTES, Type.FLOAT),
+    ROUTE_NUMBER_OF_AGENTS(Table.ROUTES, Type.INT);
+
+    public enum Table {
+        POINTS, ROUTES
+    }
+
+    public enum Type {
+        INT, LONG, FLOAT, STRING
+    }
+
+    public final Table table;
+    public final Type type;
+
+    ResultsColumn(Table table, Type type) {
+        this.table = table;
+        this.type = type;
+    }
+
+    public static List<ResultsColumn> columns(Table table) {
+        List<ResultsColumn> columns = new ArrayList<>();
+        for (ResultsColumn column : values()) {
+            if (column.table == table) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,37 @@
+package batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ResultsExport {
+    public static void toCsv(SweepResults results, ResultsColumn.Table table, Path file) {
+        List<ResultsColumn> columns = ResultsColumn.columns(table);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < columns.size(); i++) {
+                writer.write(i == 0 ? "" : ",");
+                writer.write(columns.get(i).name().toLowerCase());
+            }
+            writer.write("\n");
+            for (int row = 0; row < results.getRowCount(table); row++) {
+                for (int i = 0; i < columns.size(); i++) {
+                    writer.write(i == 0 ? "" : ",");
+                    writer.write(escape(results.format(columns.get(i), row)));
+                }
+                writer.write("\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("CSV export error: " + file, e);
+        }
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
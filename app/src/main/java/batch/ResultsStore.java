@@ -0,0 +1,245 @@
+package batch;
+
+import model.utils.QuantileSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.StatisticsTracker.RouteStatistics;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Sweep results as a sequence of columnar row groups followed by a footer indexing them:
+ *   block:   BLOCK_MAGIC, body length, point rows, route rows, point columns..., route columns...
+ *   footer:  FOOTER_MAGIC, block count, (offset, length, point rows, route rows) per block,
+ *            footer length, END_MAGIC
+ * Each flush takes an exclusive lock, writes its row group over the old footer and appends a new one. Every
+ * finished point is flushed right away, a killed sweep loses only the points still running.
+ * If the footer is damaged the blocks are found by scanning their headers from the start.
+ */
+public class ResultsStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ResultsStore.class);
+    private static final int BLOCK_MAGIC = 0x535a5247;
+    private static final int FOOTER_MAGIC = 0x535a4658;
+    private static final int END_MAGIC = 0x535a454e;
+    private static final int BLOCK_HEADER = 16;
+    private static final int FOOTER_ENTRY = 20;
+    private static final int TRAILER = 8;
+    // FileLock is held per JVM, writers and readers in one process serialise here
+    private static final Object LOCK = new Object();
+
+    private final Path path;
+    private final Map<ResultsColumn, ColumnBuffer> pending = new EnumMap<>(ResultsColumn.class);
+
+    public ResultsStore(Path path) {
+        this.path = path;
+        for (ResultsColumn column : ResultsColumn.values()) {
+            pending.put(column, new ColumnBuffer(column.type));
+        }
+    }
+
+    public synchronized void add(PointAggregate aggregate) {
+        SweepPoint point = aggregate.getPoint();
+        SimulationStatistics statistics = aggregate.getAverageStatistics();
+        int row = pending.get(ResultsColumn.CROSSROAD_FILE).size();
+        pending.get(ResultsColumn.CROSSROAD_FILE).addString(point.crossroadFile);
+        pending.get(ResultsColumn.SIMULATION_TIME).addInt(point.simulationTime);
+        pending.get(ResultsColumn.TRAFFIC).addFloat(point.traffic);
+        pending.get(ResultsColumn.CRAZINESS).addFloat(point.craziness);
+        pending.get(ResultsColumn.SEED).addLong(aggregate.getSeed());
+        pending.get(ResultsColumn.REPLICATIONS).addInt(aggregate.getReplications());
+        pending.get(ResultsColumn.AVERAGE_VELOCITY).addFloat(statistics.averageVelocity);
+        pending.get(ResultsColumn.AVERAGE_WAITING_TIME).addFloat(statistics.averageWaitingTime);
+        pending.get(ResultsColumn.AVERAGE_DRIVING_TIME).addFloat(statistics.averageDrivingTime);
+        pending.get(ResultsColumn.AVERAGE_AGENTS_WAITING).addFloat(statistics.averageAgentsWaiting);
+        pending.get(ResultsColumn.NUMBER_OF_COLLISIONS).addInt(statistics.numberOfCollisions);
+        pending.get(ResultsColumn.NUMBER_OF_AGENTS).addInt(statistics.numberOfAgents);
+        pending.get(ResultsColumn.WAITING_TIME_HALF_WIDTH).addFloat((float) aggregate.getHalfWidth(PointAggregate.Output.WAITING_TIME));
+        pending.get(ResultsColumn.VELOCITY_HALF_WIDTH).addFloat((float) aggregate.getHalfWidth(PointAggregate.Output.VELOCITY));
+        pending.get(ResultsColumn.COLLISIONS_HALF_WIDTH).addFloat((float) aggregate.getHalfWidth(PointAggregate.Output.COLLISIONS));
+        pending.get(ResultsColumn.QUEUE_LENGTH_HALF_WIDTH).addFloat((float) aggregate.getHalfWidth(PointAggregate.Output.QUEUE_LENGTH));
+        QuantileSketch velocity = statistics.velocityDistribution;
+        QuantileSketch travelTime = statistics.travelTimeDistribution;
+        pending.get(ResultsColumn.VELOCITY_P50).addFloat((float) velocity.quantile(0.5));
+        pending.get(ResultsColumn.VELOCITY_P95).addFloat((float) velocity.quantile(0.95));
+        pending.get(ResultsColumn.TRAVEL_TIME_P50).addFloat((float) travelTime.quantile(0.5));
+        pending.get(ResultsColumn.TRAVEL_TIME_P95).addFloat((float) travelTime.quantile(0.95));
+        for (Map.Entry<String, RouteStatistics> entry : statistics.routeStats.entrySet()) {
+            String[] split = entry.getKey().split(":");
+            pending.get(ResultsColumn.ROUTE_POINT).addInt(row);
+            pending.get(ResultsColumn.ROUTE_BEGIN).addInt(Integer.parseInt(split[0]));
+            pending.get(ResultsColumn.ROUTE_END).addInt(Integer.parseInt(split[1]));
+            pending.get(ResultsColumn.ROUTE_AVERAGE_SPEED).addFloat(entry.getValue().averageSpeed);
+            pending.get(ResultsColumn.ROUTE_AVERAGE_TRAVEL_TIME).addFloat(entry.getValue().averageTravelTime);
+            pending.get(ResultsColumn.ROUTE_NUMBER_OF_AGENTS).addInt(entry.getValue().numberOfAgents);
+        }
+        flush();
+    }
+
+    public synchronized void flush() {
+        int pointRows = pending.get(ResultsColumn.CROSSROAD_FILE).size();
+        if (pointRows == 0) {
+            return;
+        }
+        int routeRows = pending.get(ResultsColumn.ROUTE_POINT).size();
+        int bodyLength = 0;
+        for (ColumnBuffer column : pending.values()) {
+            bodyLength += column.encodedSize();
+        }
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER + bodyLength);
+        block.putInt(BLOCK_MAGIC).putInt(bodyLength).putInt(pointRows).putInt(routeRows);
+        for (ColumnBuffer column : pending.values()) {
+            column.encode(block);
+        }
+        block.flip();
+
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    List<BlockEntry> blocks = readIndex(channel);
+                    long offset = blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).end();
+                    blocks.add(new BlockEntry(offset, block.remaining(), pointRows, routeRows));
+                    long position = offset;
+                    while (block.hasRemaining()) {
+                        position += channel.write(block, position);
+                    }
+                    ByteBuffer footer = footer(blocks);
+                    while (footer.hasRemaining()) {
+                        position += channel.write(footer, position);
+                    }
+                    channel.truncate(position);
+                    channel.force(false);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Results store writing error: " + path, e);
+            }
+        }
+        for (ColumnBuffer column : pending.values()) {
+            column.clear();
+        }
+        logger.debug("Stored {} points in {}", pointRows, path);
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    public static SweepResults read(Path path) {
+        SweepResults results = new SweepResults();
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+                try {
+                    List<BlockEntry> blocks = readIndex(channel);
+                    for (BlockEntry entry : blocks) {
+                        MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+                        block.position(BLOCK_HEADER);
+                        results.decode(block, entry.pointRows, entry.routeRows);
+                    }
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Results store reading error: " + path, e);
+            }
+        }
+        return results;
+    }
+
+    private static ByteBuffer footer(List<BlockEntry> blocks) {
+        int length = 8 + FOOTER_ENTRY * blocks.size() + TRAILER;
+        ByteBuffer footer = ByteBuffer.allocate(length);
+        footer.putInt(FOOTER_MAGIC).putInt(blocks.size());
+        for (BlockEntry block : blocks) {
+            footer.putLong(block.offset).putInt(block.length).putInt(block.pointRows).putInt(block.routeRows);
+        }
+        footer.putInt(length).putInt(END_MAGIC);
+        footer.flip();
+        return footer;
+    }
+
+    private static List<BlockEntry> readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size >= TRAILER) {
+            ByteBuffer trailer = read(channel, size - TRAILER, TRAILER);
+            int length = trailer.getInt();
+            if (trailer.getInt() == END_MAGIC && length >= 8 + TRAILER && length <= size) {
+                ByteBuffer footer = read(channel, size - length, length - TRAILER);
+                int count = footer.getInt() == FOOTER_MAGIC ? footer.getInt() : -1;
+                if (count >= 0 && length == 8 + FOOTER_ENTRY * count + TRAILER) {
+                    List<BlockEntry> blocks = new ArrayList<>();
+                    for (int i = 0; i < count; i++) {
+                        blocks.add(new BlockEntry(footer.getLong(), footer.getInt(), footer.getInt(), footer.getInt()));
+                    }
+                    return blocks;
+                }
+            }
+        }
+        return scan(channel, size);
+    }
+
+    private static List<BlockEntry> scan(FileChannel channel, long size) throws IOException {
+        List<BlockEntry> blocks = new ArrayList<>();
+        long position = 0;
+        while (position + BLOCK_HEADER <= size) {
+            ByteBuffer header = read(channel, position, BLOCK_HEADER);
+            if (header.getInt() != BLOCK_MAGIC) {
+                break;
+            }
+            int length = BLOCK_HEADER + header.getInt();
+            if (position + length > size) {
+                break;
+            }
+            blocks.add(new BlockEntry(position, length, header.getInt(), header.getInt()));
+            position += length;
+        }
+        if (position < size) {
+            logger.warn("Results store footer missing, recovered {} blocks", blocks.size());
+        }
+        return blocks;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of results store");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class BlockEntry {
+        final long offset;
+        final int length;
+        final int pointRows;
+        final int routeRows;
+
+        BlockEntry(long offset, int length, int pointRows, int routeRows) {
+            this.offset = offset;
+            this.length = length;
+            this.pointRows = pointRows;
+            this.routeRows = routeRows;
+        }
+
+        long end() {
+            return offset + length;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package batch;
+
+import model.crossroad.Crossroad;
+import model.crossroad.SignalPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/*
+ * Tunes the signal plan of a crossroad with an elitist evolution strategy over one cycle shared by all
+ * signals, the green split of every signal and its offset within the cycle. A plan scores the mean steps
+ * agents spend queued and driving, unfinished ones included, so gridlock scores badly. Every generation runs
+ * all candidates and the starting plan as short simulations on the same seeds and new seeds per generation.
+ * Candidates are ranked by their score relative to the starting plan on those seeds, which cancels out how
+ * busy the traffic of a generation happened to be, averaged over all generations they survived. The best
+ * quarter survives, the rest are mutations of it with step sizes shrinking over the generations. The winner
+ * is checked against the starting plan on fresh seeds and only returned if it beats it there.
+ */
+public class SignalOptimizer {
+    private static final Logger logger = LoggerFactory.getLogger(SignalOptimizer.class);
+    // 5 s and 3 min at 20 steps per second
+    private static final int MIN_GREEN = 5 * Simulator.STEPS_PER_SECOND;
+    private static final int MAX_CYCLE = 180 * Simulator.STEPS_PER_SECOND;
+    private static final double ELITE_SHARE = 0.25;
+    private static final double INITIAL_STEP = 0.4;
+    private static final double FINAL_STEP = 0.05;
+
+    private static class Candidate {
+        final double cycle;
+        // weights of the greens beyond MIN_GREEN, per signal and phase
+        final double[][] splits;
+        // offsets as fractions of the cycle
+        final double[] offsets;
+        SignalPlan plan;
+        double score;
+        // sum and count of the scores relative to the starting plan
+        double relative;
+        int generations;
+
+        double getRelativeScore() {
+            return relative / generations;
+        }
+
+        Candidate(double cycle, double[][] splits, double[] offsets) {
+            this.cycle = cycle;
+            this.splits = splits;
+            this.offsets = offsets;
+        }
+    }
+
+    private final Crossroad crossroad;
+    private final SimulationSettings settings;
+    private final SignalPlan initial;
+    private final Random random;
+    private final int minCycle;
+    private int generations = 20;
+    private int population = 24;
+    private int replications = 4;
+    private int warmUpSteps;
+
+    // the search starts from the plan of the crossroad, settings give the length and traffic of every run
+    public SignalOptimizer(Crossroad crossroad, SimulationSettings settings, long seed) {
+        this.crossroad = crossroad;
+        this.settings = settings;
+        this.initial = crossroad.getSignalController().getPlan();
+        this.random = new Random(seed);
+        if (initial.isEmpty()) {
+            throw new RuntimeException("Crossroad has no signals to optimize");
+        }
+        int minCycle = 0;
+        for (SignalPlan.Signal signal : initial.signals) {
+            minCycle = Math.max(minCycle, signal.phases.size() * (MIN_GREEN + signal.getIntergreen()));
+        }
+        this.minCycle = minCycle;
+    }
+
+    public void setGenerations(int generations) {
+        this.generations = generations;
+    }
+
+    public void setPopulation(int population) {
+        this.population = Math.max(2, population);
+    }
+
+    public void setReplications(int replications) {
+        this.replications = replications;
+    }
+
+    // every run is warmed up from an empty crossroad and measured from then on until the simulation time
+    public void setWarmUpSteps(int warmUpSteps) {
+        this.warmUpSteps = warmUpSteps;
+    }
+
+    public SignalPlan optimize() {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Candidate reference = encode(initial);
+            reference.plan = initial;
+            List<Candidate> candidates = new ArrayList<>();
+            while (candidates.size() < population) {
+                candidates.add(mutate(reference, INITIAL_STEP));
+            }
+            int elites = Math.max(1, (int) Math.ceil(population * ELITE_SHARE));
+            for (int generation = 0; generation < generations; generation++) {
+                List<Candidate> evaluated = new ArrayList<>(candidates);
+                evaluated.add(reference);
+                evaluate(pool, evaluated, seeds(replications));
+                for (Candidate candidate : candidates) {
+                    candidate.relative += candidate.score / reference.score;
+                    candidate.generations++;
+                }
+                candidates.sort((c1, c2) -> Double.compare(c1.getRelativeScore(), c2.getRelativeScore()));
+                Candidate best = candidates.get(0);
+                logger.info("Generation {}: best {}% of the starting plan over {} generations, cycle {}", generation,
+                        Math.round(100 * best.getRelativeScore()), best.generations, best.plan.signals.get(0).getCycle());
+                if (generation + 1 == generations) {
+                    break;
+                }
+                double step = INITIAL_STEP + (FINAL_STEP - INITIAL_STEP) * (generation + 1) / (generations - 1);
+                List<Candidate> next = new ArrayList<>(candidates.subList(0, elites));
+                while (next.size() < population) {
+                    next.add(mutate(candidates.get(random.nextInt(elites)), step));
+                }
+                candidates = next;
+            }
+
+            // a fresh check, the winning score is biased by the selection
+            Candidate best = candidates.get(0);
+            List<Candidate> finalists = new ArrayList<>();
+            finalists.add(reference);
+            finalists.add(best);
+            evaluate(pool, finalists, seeds(2 * replications));
+            logger.info("Optimized {} signals in {} s: {} steps against {} for the starting plan",
+                    initial.signals.size(), (System.nanoTime() - start) / 1000000000, Math.round(best.score),
+                    Math.round(reference.score));
+            return best.score < reference.score ? best.plan : initial;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long[] seeds(int count) {
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            seeds[i] = random.nextLong();
+        }
+        return seeds;
+    }
+
+    private void evaluate(ForkJoinPool pool, List<Candidate> candidates, long[] seeds) {
+        List<Callable<Double>> runs = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            for (long seed : seeds) {
+                runs.add(() -> simulate(candidate.plan, seed));
+            }
+        }
+        List<Future<Double>> scores = pool.invokeAll(runs);
+        try {
+            for (int c = 0; c < candidates.size(); c++) {
+                double score = 0;
+                for (int r = 0; r < seeds.length; r++) {
+                    score += scores.get(c * seeds.length + r).get();
+                }
+                candidates.get(c).score = score / seeds.length;
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Signal plan simulation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Signal optimization interrupted", e);
+        }
+    }
+
+    private double simulate(SignalPlan plan, long seed) {
+        Simulator simulator = new Simulator(crossroad, settings, seed);
+        simulator.setSignalPlan(plan);
+        SimulationStatistics statistics = simulator.runReplication(warmUpSteps, settings.simulationTime);
+        return statistics.averageWaitingTime + statistics.averageDrivingTime;
+    }
+
+    private Candidate encode(SignalPlan plan) {
+        double cycle = 0;
+        double[][] splits = new double[plan.signals.size()][];
+        double[] offsets = new double[plan.signals.size()];
+        for (int s = 0; s < plan.signals.size(); s++) {
+            SignalPlan.Signal signal = plan.signals.get(s);
+            cycle += signal.getCycle();
+            splits[s] = new double[signal.phases.size()];
+            for (int p = 0; p < splits[s].length; p++) {
+                splits[s][p] = Math.max(1, signal.phases.get(p).green - MIN_GREEN);
+            }
+            offsets[s] = (double) signal.offset / signal.getCycle();
+        }
+        return new Candidate(cycle / plan.signals.size(), splits, offsets);
+    }
+
+    private Candidate mutate(Candidate parent, double step) {
+        double cycle = parent.cycle * Math.exp(step * random.nextGaussian());
+        cycle = Math.max(minCycle, Math.min(MAX_CYCLE, cycle));
+        double[][] splits = new double[parent.splits.length][];
+        double[] offsets = new double[parent.offsets.length];
+        for (int s = 0; s < splits.length; s++) {
+            splits[s] = new double[parent.splits[s].length];
+            for (int p = 0; p < splits[s].length; p++) {
+                splits[s][p] = parent.splits[s][p] * Math.exp(step * random.nextGaussian());
+            }
+            double offset = parent.offsets[s] + step / 2 * random.nextGaussian();
+            offsets[s] = offset - Math.floor(offset);
+        }
+        Candidate child = new Candidate(cycle, splits, offsets);
+        child.plan = decode(child);
+        return child;
+    }
+
+    // every signal runs the common cycle, what is left after the intergreens and minimum greens is split by weight
+    private SignalPlan decode(Candidate candidate) {
+        SignalPlan plan = initial.copy();
+        int cycle = (int) Math.round(candidate.cycle);
+        for (int s = 0; s < plan.signals.size(); s++) {
+            SignalPlan.Signal signal = plan.signals.get(s);
+            double[] splits = candidate.splits[s];
+            double total = 0;
+            int largest = 0;
+            for (int p = 0; p < splits.length; p++) {
+                total += splits[p];
+                if (splits[p] > splits[largest]) {
+                    largest = p;
+                }
+            }
+            int spare = cycle - splits.length * (MIN_GREEN + signal.getIntergreen());
+            int left = spare;
+            for (int p = 0; p < splits.length; p++) {
+                int extra = (int) (spare * splits[p] / total);
+                signal.phases.get(p).green = MIN_GREEN + extra;
+                left -= extra;
+            }
+            signal.phases.get(largest).green += left;
+            signal.offset = (int) Math.round(candidate.offsets[s] * cycle) % cycle;
+        }
+        return plan;
+    }
+}
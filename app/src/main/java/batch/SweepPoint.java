@@ -0,0 +1,32 @@
+package batch;
+
+import simulation.SimulationSettings;
+
+public class SweepPoint {
+    public final String crossroadFile;
+    public final int simulationTime;
+    public final float traffic;
+    public final float craziness;
+
+    public SweepPoint(String crossroadFile, int simulationTime, float traffic, float craziness) {
+        this.crossroadFile = crossroadFile;
+        this.simulationTime = simulationTime;
+        this.traffic = traffic;
+        this.craziness = craziness;
+    }
+
+    public SimulationSettings toSettings() {
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.crossroadFile = crossroadFile;
+        settings.simulationTime = simulationTime;
+        settings.traffic = traffic;
+        settings.craziness = craziness;
+        return settings;
+    }
+
+    @Override
+    public String toString() {
+        return crossroadFile + " time=" + simulationTime + " traffic=" + traffic + " craziness=" + craziness;
+    }
+}
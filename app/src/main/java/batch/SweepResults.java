@@ -0,0 +1,57 @@
+package batch;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class SweepResults {
+    private final Map<ResultsColumn, ColumnBuffer> columns = new EnumMap<>(ResultsColumn.class);
+
+    SweepResults() {
+        for (ResultsColumn column : ResultsColumn.values()) {
+            columns.put(column, new ColumnBuffer(column.type));
+        }
+    }
+
+    public int getPointCount() {
+        return columns.get(ResultsColumn.CROSSROAD_FILE).size();
+    }
+
+    public int getRouteCount() {
+        return columns.get(ResultsColumn.ROUTE_POINT).size();
+    }
+
+    public int getRowCount(ResultsColumn.Table table) {
+        return table == ResultsColumn.Table.POINTS ? getPointCount() : getRouteCount();
+    }
+
+    public int getInt(ResultsColumn column, int row) {
+        return columns.get(column).getInt(row);
+    }
+
+    public long getLong(ResultsColumn column, int row) {
+        return columns.get(column).getLong(row);
+    }
+
+    public float getFloat(ResultsColumn column, int row) {
+        return columns.get(column).getFloat(row);
+    }
+
+    public String getString(ResultsColumn column, int row) {
+        return columns.get(column).getString(row);
+    }
+
+    public String format(ResultsColumn column, int row) {
+        return columns.get(column).format(row);
+    }
+
+    // route rows refer to points of their own block, rebased here onto the rows read so far
+    void decode(ByteBuffer block, int pointRows, int routeRows) {
+        int pointOffset = getPointCount();
+        int routeOffset = getRouteCount();
+        for (Map.Entry<ResultsColumn, ColumnBuffer> entry : columns.entrySet()) {
+            entry.getValue().decode(block, entry.getKey().table == ResultsColumn.Table.POINTS ? pointRows : routeRows);
+        }
+        columns.get(ResultsColumn.ROUTE_POINT).shiftInts(routeOffset, pointOffset);
+    }
+}
@@ -0,0 +1,237 @@
+package batch;
+
+import model.crossroad.Crossroad;
+import model.utils.CrossroadLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.Checkpoint;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SweepRunner {
+    private static final Logger logger = LoggerFactory.getLogger(SweepRunner.class);
+
+    public interface PointListener {
+        void pointFinished(PointAggregate aggregate);
+    }
+
+    private final ReplicationPolicy policy;
+    private final long seed;
+    private final PointListener listener;
+    private final Map<String, Crossroad> crossroads = new HashMap<>();
+    private ForkJoinPool pool;
+    // jobs scheduled and not finished yet, jobs schedule their follow-ups before they finish
+    private AtomicInteger unfinished;
+    private CompletableFuture<Void> finished;
+    private Path trajectoryDirectory;
+    private int warmUpSteps;
+    private boolean streaming;
+    private int regions = 1;
+    private WorkerCoordinator workers;
+
+    public SweepRunner(ReplicationPolicy policy, long seed, PointListener listener) {
+        this.policy = policy;
+        this.seed = seed;
+        this.listener = listener;
+    }
+
+    // records every replication into its own trajectory file in the directory
+    public void setTrajectoryDirectory(Path trajectoryDirectory) {
+        this.trajectoryDirectory = trajectoryDirectory;
+    }
+
+    // every point is warmed up once, its replications branch from that state with their own seeds
+    public void setWarmUpSteps(int warmUpSteps) {
+        this.warmUpSteps = warmUpSteps;
+    }
+
+    // every replication serves its steps on a free loopback port, logged when it starts
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    // every replication partitions its crossroad into that many regions stepped in parallel
+    public void setRegions(int regions) {
+        this.regions = regions;
+    }
+
+    // replications run in the worker JVMs of the coordinator, warm-ups keep running in this one
+    public void setWorkers(WorkerCoordinator workers) {
+        this.workers = workers;
+    }
+
+    public void run(List<SweepPoint> points) {
+        List<Job> jobs = new ArrayList<>();
+        for (SweepPoint point : points) {
+            Crossroad crossroad = crossroad(point.crossroadFile);
+            PointAggregate aggregate = new PointAggregate(point, policy, seed);
+            if (warmUpSteps > 0) {
+                jobs.add(new WarmUp(crossroad, aggregate));
+            } else {
+                addWave(jobs, crossroad, aggregate, null);
+            }
+        }
+        jobs.sort((j1, j2) -> Double.compare(j2.estimatedCost(), j1.estimatedCost()));
+
+        // replications on workers only occupy a pool thread while they are handed over
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        unfinished = new AtomicInteger();
+        finished = new CompletableFuture<>();
+        if (jobs.isEmpty()) {
+            finished.complete(null);
+        }
+        try {
+            execute(jobs);
+            // completes once the last job is done, or with the first failure while the others still run
+            finished.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Replication failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Crossroad crossroad(String file) {
+        Crossroad crossroad = crossroads.get(file);
+        if (crossroad == null) {
+            crossroad = CrossroadLoader.loadFromFile(file);
+            crossroads.put(file, crossroad);
+        }
+        return crossroad;
+    }
+
+    // returns false once the point needs no more replications
+    private boolean addWave(List<Job> jobs, Crossroad crossroad, PointAggregate aggregate, Checkpoint warmUp) {
+        int first = aggregate.getReplications();
+        int wave = aggregate.scheduleWave();
+        for (int i = 0; i < wave; i++) {
+            jobs.add(new Replication(crossroad, aggregate, warmUp, first + i));
+        }
+        return wave > 0;
+    }
+
+    private void execute(List<Job> jobs) {
+        unfinished.addAndGet(jobs.size());
+        for (Job job : jobs) {
+            pool.execute(job);
+        }
+    }
+
+    private abstract class Job implements Runnable {
+        final Crossroad crossroad;
+        final PointAggregate aggregate;
+
+        Job(Crossroad crossroad, PointAggregate aggregate) {
+            this.crossroad = crossroad;
+            this.aggregate = aggregate;
+        }
+
+        // agents and steps grow with traffic and simulated time, work per step with the network size
+        double estimatedCost() {
+            SweepPoint point = aggregate.getPoint();
+            return (double) point.simulationTime * (1 + point.traffic) * crossroad.getEdgeCount();
+        }
+
+        SimulationSettings settings(int index) {
+            SweepPoint point = aggregate.getPoint();
+            SimulationSettings settings = point.toSettings();
+            if (trajectoryDirectory != null && index >= 0) {
+                String name = Paths.get(point.crossroadFile).getFileName() + "_" + point.simulationTime + "_"
+                        + point.traffic + "_" + point.craziness + "_" + index + ".traj";
+                settings.trajectoryFile = trajectoryDirectory.resolve(name).toString();
+            }
+            if (streaming && index >= 0) {
+                settings.streamPort = 0;
+            }
+            settings.regions = regions;
+            return settings;
+        }
+
+        // completes when the job is done, which for a replication on a worker is after this returned
+        abstract CompletableFuture<Void> execute();
+
+        @Override
+        public void run() {
+            CompletableFuture<Void> done;
+            try {
+                done = execute();
+            } catch (Throwable e) {
+                done = new CompletableFuture<>();
+                done.completeExceptionally(e);
+            }
+            done.whenComplete((result, e) -> {
+                if (e != null) {
+                    finished.completeExceptionally(e);
+                }
+                if (unfinished.decrementAndGet() == 0) {
+                    finished.complete(null);
+                }
+            });
+        }
+    }
+
+    private class WarmUp extends Job {
+        WarmUp(Crossroad crossroad, PointAggregate aggregate) {
+            super(crossroad, aggregate);
+        }
+
+        @Override
+        double estimatedCost() {
+            return super.estimatedCost() * policy.waveSize;
+        }
+
+        @Override
+        CompletableFuture<Void> execute() {
+            Simulator simulator = new Simulator(crossroad, settings(-1), seed);
+            simulator.warmUp(warmUpSteps);
+            List<Job> jobs = new ArrayList<>();
+            addWave(jobs, crossroad, aggregate, simulator.checkpoint());
+            SweepRunner.this.execute(jobs);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private class Replication extends Job {
+        private final Checkpoint warmUp;
+        private final int index;
+
+        Replication(Crossroad crossroad, PointAggregate aggregate, Checkpoint warmUp, int index) {
+            super(crossroad, aggregate);
+            this.warmUp = warmUp;
+            this.index = index;
+        }
+
+        @Override
+        CompletableFuture<Void> execute() {
+            ReplicationJob job = new ReplicationJob(aggregate.getPoint() + " replication " + index, settings(index),
+                    seed + index, warmUp);
+            if (workers != null) {
+                // the result is added on the thread receiving it, the pool thread goes on with the next job
+                return workers.submit(job).thenAccept(this::add);
+            }
+            add(job.run(crossroad));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        private void add(SimulationStatistics statistics) {
+            if (aggregate.add(statistics)) {
+                List<Job> jobs = new ArrayList<>();
+                if (!addWave(jobs, crossroad, aggregate, warmUp)) {
+                    logger.info("Finished {} after {} replications", aggregate.getPoint(), aggregate.getReplications());
+                    listener.pointFinished(aggregate);
+                }
+                SweepRunner.this.execute(jobs);
+            }
+        }
+    }
+}
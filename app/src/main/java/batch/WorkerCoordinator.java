@@ -0,0 +1,465 @@
+package batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Hands replication jobs out to worker JVMs connected over TCP, one job per worker at a time, and completes
+ * the returned futures with the statistics they send back. Local workers are started as child processes with
+ * a small heap and a serial collector, so every replication gets its own short GC pauses. On a reachable
+ * address more workers can join from other machines with the worker command.
+ *   worker:       MAGIC, VERSION, token, then HEARTBEAT steps | RESULT id statistics | FAILED id message
+ *   coordinator:  JOB id job | SHUTDOWN
+ * Heartbeats carry the number of simulation steps the worker has run so far. A worker whose connection breaks,
+ * who misses heartbeats for HEARTBEAT_TIMEOUT_MILLIS or whose job makes no step for PROGRESS_TIMEOUT_MILLIS is
+ * dropped and its job dispatched again, up to MAX_ATTEMPTS times. Local workers that die are started again.
+ * The token names the local worker a connection belongs to, it is only believed on loopback connections from a
+ * running local worker that is not connected yet, every other connection is a remote worker with token -1.
+ */
+public class WorkerCoordinator implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerCoordinator.class);
+    static final int MAGIC = 0x535a574b;
+    static final int VERSION = 2;
+    static final byte JOB = 1;
+    static final byte SHUTDOWN = 2;
+    static final byte HEARTBEAT = 3;
+    static final byte RESULT = 4;
+    static final byte FAILED = 5;
+    static final int HEARTBEAT_MILLIS = 1000;
+    private static final int HEARTBEAT_TIMEOUT_MILLIS = 15000;
+    // also covers loading the crossroad and restoring the warm-up before the first step
+    private static final int PROGRESS_TIMEOUT_MILLIS = 60000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_ATTEMPTS = 3;
+    public static final String DEFAULT_HEAP = "512m";
+    private static final String[] WORKER_JVM_OPTIONS = {"-XX:+UseSerialGC", "-XX:+ExitOnOutOfMemoryError"};
+
+    private static class Task {
+        final long id;
+        final ReplicationJob job;
+        final CompletableFuture<SimulationStatistics> result = new CompletableFuture<>();
+        int attempts;
+
+        Task(long id, ReplicationJob job) {
+            this.id = id;
+            this.job = job;
+        }
+    }
+
+    // a task handed to a worker under the lock, sent after releasing it so a stalled worker blocks nobody else
+    private static class Assignment {
+        final Connection connection;
+        final Task task;
+
+        Assignment(Connection connection, Task task) {
+            this.connection = connection;
+            this.task = task;
+        }
+    }
+
+    private final ServerSocket server;
+    private final String heap;
+    private final Process[] localWorkers;
+    private final List<Connection> connections = new ArrayList<>();
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private int restarts;
+    private long nextTaskId;
+    private volatile boolean closed;
+
+    public WorkerCoordinator(int localWorkers) {
+        this(InetAddress.getLoopbackAddress(), 0, localWorkers, DEFAULT_HEAP);
+    }
+
+    // heap is the -Xmx value of the local workers, e.g. "512m"
+    public WorkerCoordinator(InetAddress address, int port, int localWorkers, String heap) {
+        this.heap = heap;
+        this.localWorkers = new Process[localWorkers];
+        try {
+            server = new ServerSocket(port, 50, address);
+        } catch (IOException e) {
+            throw new RuntimeException("Coordinator opening error: " + address + ":" + port, e);
+        }
+        try {
+            for (int i = 0; i < localWorkers; i++) {
+                this.localWorkers[i] = launch(i);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        // connections wait in the backlog until every local worker has its process
+        Thread acceptor = new Thread(this::accept, "coordinator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        Thread monitor = new Thread(this::monitor, "coordinator-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+        logger.info("Coordinating replications on {}:{} with {} local workers", address.getHostAddress(), getPort(),
+                localWorkers);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public CompletableFuture<SimulationStatistics> submit(ReplicationJob job) {
+        Task task;
+        List<Assignment> assignments;
+        synchronized (this) {
+            task = new Task(nextTaskId++, job);
+            if (closed) {
+                task.result.completeExceptionally(new CancellationException("Coordinator closed"));
+                return task.result;
+            }
+            pending.add(task);
+            assignments = assign();
+        }
+        send(assignments);
+        return task.result;
+    }
+
+    @Override
+    public void close() {
+        List<Connection> open;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            open = new ArrayList<>(connections);
+            for (Connection connection : connections) {
+                if (connection.current != null) {
+                    connection.current.result.completeExceptionally(new CancellationException("Coordinator closed"));
+                }
+            }
+            for (Task task : pending) {
+                task.result.completeExceptionally(new CancellationException("Coordinator closed"));
+            }
+            pending.clear();
+        }
+        for (Connection connection : open) {
+            connection.send(SHUTDOWN, null);
+        }
+        try {
+            server.close();
+            for (Process process : localWorkers) {
+                if (process != null && !process.waitFor(HANDSHAKE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Coordinator closing error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private Process launch(int token) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + heap);
+        command.addAll(Arrays.asList(WORKER_JVM_OPTIONS));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ReplicationWorker.class.getName());
+        // local workers reach a coordinator listening on all interfaces over loopback
+        InetAddress address = server.getInetAddress();
+        command.add((address.isAnyLocalAddress() ? InetAddress.getLoopbackAddress() : address).getHostAddress());
+        command.add(Integer.toString(getPort()));
+        command.add(Integer.toString(token));
+        try {
+            return new ProcessBuilder(command).inheritIO().start();
+        } catch (IOException e) {
+            throw new RuntimeException("Worker starting error", e);
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                try {
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+                    Connection connection = new Connection(socket);
+                    socket.setSoTimeout(0);
+                    register(connection);
+                } catch (IOException e) {
+                    logger.warn("Worker rejected: {}", e.toString());
+                    socket.close();
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("Coordinator accepting error", e);
+                }
+            }
+        }
+    }
+
+    private void register(Connection connection) {
+        List<Assignment> assignments;
+        synchronized (this) {
+            if (closed) {
+                assignments = null;
+            } else {
+                connection.token = localToken(connection);
+                connections.add(connection);
+                Thread reader = new Thread(connection::read, "coordinator-" + connection);
+                reader.setDaemon(true);
+                reader.start();
+                logger.debug("Worker {} connected", connection);
+                assignments = assign();
+            }
+        }
+        if (assignments == null) {
+            connection.send(SHUTDOWN, null);
+            connection.close();
+            return;
+        }
+        send(assignments);
+    }
+
+    // the caller holds the lock
+    private int localToken(Connection connection) {
+        int token = connection.claimedToken;
+        if (token < 0 || token >= localWorkers.length || !connection.socket.getInetAddress().isLoopbackAddress()
+                || localWorkers[token] == null || !localWorkers[token].isAlive()) {
+            return -1;
+        }
+        for (Connection other : connections) {
+            if (other.token == token) {
+                return -1;
+            }
+        }
+        return token;
+    }
+
+    // hands pending tasks to idle workers, the caller holds the lock and sends them once it released it
+    private List<Assignment> assign() {
+        List<Assignment> assignments = new ArrayList<>();
+        for (Connection connection : connections) {
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (connection.current == null) {
+                Task task = pending.poll();
+                task.attempts++;
+                connection.current = task;
+                connection.lastProgress = System.currentTimeMillis();
+                assignments.add(new Assignment(connection, task));
+            }
+        }
+        return assignments;
+    }
+
+    // a failed send breaks the connection, whose reader then hands the task back
+    private void send(List<Assignment> assignments) {
+        for (Assignment assignment : assignments) {
+            assignment.connection.send(JOB, assignment.task);
+        }
+    }
+
+    private void finished(Connection connection, long id, SimulationStatistics statistics, String failure) {
+        Task task;
+        List<Assignment> assignments;
+        synchronized (this) {
+            task = connection.current;
+            if (task == null || task.id != id) {
+                logger.warn("Worker {} answered job {} it was not running", connection, id);
+                return;
+            }
+            connection.current = null;
+            assignments = assign();
+        }
+        send(assignments);
+        if (failure == null) {
+            task.result.complete(statistics);
+        } else {
+            task.result.completeExceptionally(new RuntimeException(task.job + " failed on worker " + connection + ": " + failure));
+        }
+    }
+
+    private void lost(Connection connection, String reason) {
+        Task failed = null;
+        List<Assignment> assignments;
+        synchronized (this) {
+            if (!connections.remove(connection)) {
+                return;
+            }
+            connection.close();
+            Task task = connection.current;
+            connection.current = null;
+            if (closed) {
+                return;
+            }
+            if (task == null) {
+                logger.warn("Worker {} lost: {}", connection, reason);
+            } else if (task.attempts < MAX_ATTEMPTS) {
+                logger.warn("Worker {} lost: {}, dispatching {} again", connection, reason, task.job);
+                pending.addFirst(task);
+            } else {
+                failed = task;
+            }
+            assignments = assign();
+        }
+        send(assignments);
+        if (failed != null) {
+            failed.result.completeExceptionally(new RuntimeException(failed.job + " lost " + MAX_ATTEMPTS
+                    + " workers, last one " + connection + ": " + reason));
+        }
+    }
+
+    private void monitor() {
+        while (!closed) {
+            try {
+                Thread.sleep(HEARTBEAT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            Map<Connection, String> hung = new LinkedHashMap<>();
+            synchronized (this) {
+                for (Connection connection : connections) {
+                    if (now - connection.lastSeen > HEARTBEAT_TIMEOUT_MILLIS) {
+                        hung.put(connection, "no heartbeat for " + (now - connection.lastSeen) + " ms");
+                    } else if (connection.current != null && now - connection.lastProgress > PROGRESS_TIMEOUT_MILLIS) {
+                        hung.put(connection, "no step for " + (now - connection.lastProgress) + " ms");
+                    }
+                }
+            }
+            for (Map.Entry<Connection, String> entry : hung.entrySet()) {
+                Connection connection = entry.getKey();
+                lost(connection, entry.getValue());
+                if (connection.token >= 0 && connection.token < localWorkers.length) {
+                    localWorkers[connection.token].destroyForcibly();
+                }
+            }
+            restartLocalWorkers();
+        }
+    }
+
+    // restarts are limited, so a worker dying on start does not loop forever, without any workers left the
+    // pending jobs fail
+    private synchronized void restartLocalWorkers() {
+        boolean alive = false;
+        for (int i = 0; i < localWorkers.length; i++) {
+            if (localWorkers[i].isAlive()) {
+                alive = true;
+            } else if (!closed && restarts < 2 * localWorkers.length) {
+                logger.warn("Local worker {} exited with {}, starting it again", i, localWorkers[i].exitValue());
+                restarts++;
+                try {
+                    localWorkers[i] = launch(i);
+                    alive = true;
+                } catch (RuntimeException e) {
+                    logger.error("Local worker {} could not be started again", i, e);
+                }
+            }
+        }
+        if (localWorkers.length > 0 && !alive && connections.isEmpty() && !pending.isEmpty()) {
+            for (Task task : pending) {
+                task.result.completeExceptionally(new RuntimeException("No workers left for " + task.job));
+            }
+            pending.clear();
+        }
+    }
+
+    private class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final int claimedToken;
+        // set by register, -1 unless the connection is a local worker
+        int token = -1;
+        volatile long lastSeen = System.currentTimeMillis();
+        // when the step count of the worker last changed while it had a job
+        volatile long lastProgress;
+        long steps;
+        Task current;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Unsupported worker protocol");
+                }
+                claimedToken = in.readInt();
+            } catch (SocketTimeoutException e) {
+                throw new IOException("Worker handshake timed out", e);
+            }
+        }
+
+        void read() {
+            try {
+                while (true) {
+                    byte message = in.readByte();
+                    lastSeen = System.currentTimeMillis();
+                    if (message == RESULT) {
+                        long id = in.readLong();
+                        finished(this, id, SimulationStatistics.readFrom(in), null);
+                    } else if (message == FAILED) {
+                        long id = in.readLong();
+                        finished(this, id, null, in.readUTF());
+                    } else if (message == HEARTBEAT) {
+                        long steps = in.readLong();
+                        if (steps != this.steps) {
+                            this.steps = steps;
+                            lastProgress = lastSeen;
+                        }
+                    } else {
+                        throw new IOException("Unexpected message " + message);
+                    }
+                }
+            } catch (IOException e) {
+                lost(this, e.toString());
+            }
+        }
+
+        void send(byte message, Task task) {
+            try {
+                synchronized (out) {
+                    out.writeByte(message);
+                    if (task != null) {
+                        out.writeLong(task.id);
+                        task.job.writeTo(out);
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already broken
+            }
+        }
+
+        @Override
+        public String toString() {
+            return socket.getRemoteSocketAddress() + (token >= 0 ? " (local " + token + ")" : "");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package gui;
+
+import model.crossroad.Crossroad;
+import simulation.FrameClient;
+import simulation.StepFrame;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class AttachControls extends JPanel {
+    private static final int STATUS_MILLIS = 250;
+
+    private final Crossroad crossroad;
+    private final CrossroadPainting painting;
+    private final JTextField portField = new JTextField(6);
+    private final JButton attachButton = new JButton("Attach");
+    private final JLabel statusLabel = new JLabel("Detached");
+    private final Timer statusTimer;
+    private FrameClient client;
+    private Listener listener;
+    private volatile int time;
+
+    public AttachControls(Crossroad crossroad, CrossroadPainting painting, int port) {
+        super(new FlowLayout(FlowLayout.LEFT));
+        this.crossroad = crossroad;
+        this.painting = painting;
+        statusTimer = new Timer(STATUS_MILLIS, e -> statusLabel.setText("Attached to " + portField.getText() + ", step " + time));
+        attachButton.addActionListener(e -> {
+            if (client == null) {
+                attach();
+            } else {
+                detach("Detached");
+            }
+        });
+        portField.addActionListener(e -> {
+            detach("Detached");
+            attach();
+        });
+        add(new JLabel("Port"));
+        add(portField);
+        add(attachButton);
+        add(statusLabel);
+        if (port > 0) {
+            portField.setText(Integer.toString(port));
+            attach();
+        }
+    }
+
+    private void attach() {
+        try {
+            listener = new Listener();
+            client = new FrameClient(Integer.parseInt(portField.getText().trim()), crossroad.getEdgeCount(), listener);
+            attachButton.setText("Detach");
+            statusTimer.start();
+        } catch (RuntimeException e) {
+            client = null;
+            listener = null;
+            statusLabel.setText(e.getMessage());
+        }
+    }
+
+    private void detach(String status) {
+        if (client != null) {
+            client.close();
+            client = null;
+            listener = null;
+        }
+        statusTimer.stop();
+        attachButton.setText("Attach");
+        statusLabel.setText(status);
+    }
+
+    private class Listener implements FrameClient.FrameListener {
+        @Override
+        public void frameReceived(StepFrame frame) {
+            time = frame.time;
+            painting.showFrame(frame);
+        }
+
+        @Override
+        public void streamClosed() {
+            EventQueue.invokeLater(() -> {
+                if (listener == this) {
+                    detach("Simulation finished or detached");
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package gui;
+
+import model.crossroad.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.FrameBuffer;
+import simulation.Simulator;
+import simulation.StepFrame;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * The simulation publishes a snapshot after every step; a render thread draws the latest one into an off-screen
+ * image at a fixed frame rate and the event dispatch thread only copies the finished image to the screen.
+ * The wheel zooms around the cursor, dragging pans and a double click fits the whole crossroad again. Only
+ * edges in the grid cells under the viewport are painted, and once cars would shrink to overlapping dots
+ * edges are coloured by how many cars they hold instead. Lights are dots before the end of signalised edges,
+ * coloured from the time of the frame and the plan the simulation currently runs. The render thread lives
+ * while the panel is displayable.
+ */
+public class CrossroadPainting extends JPanel {
+    private static final Logger logger = LoggerFactory.getLogger(CrossroadPainting.class);
+    private static final int FRAMES_PER_SECOND = 30;
+    private static final Color carHeadColor = new Color(75, 157, 255);
+    private static final Color carTailColor = new Color(55, 108, 179);
+    private static final int NODE_RADIUS = 5;
+    private static final int EDGE_THICKNESS = 3;
+    private static final float CROSSROAD_MARGIN = 0.1f;
+    private static final float ZOOM_STEP = 1.25f;
+    private static final float MIN_ZOOM = 0.5f;
+    // below this many pixels per length unit cars are drawn as edge densities
+    private static final float MIN_CAR_SCALE = 4;
+    // cars per length unit at which an edge is drawn in the last density colour
+    private static final float FULL_DENSITY = 1;
+    private static final Color[] DENSITY_COLORS = densityColors(8);
+
+    private static class Viewport {
+        final float zoom;
+        final float centerX;
+        final float centerY;
+
+        Viewport(float zoom, float centerX, float centerY) {
+            this.zoom = zoom;
+            this.centerX = centerX;
+            this.centerY = centerY;
+        }
+    }
+
+    private final CrossroadDimensions dimensions;
+    private final CrossroadTopology topology;
+    private final Supplier<SignalController> signals;
+    private final EdgeGrid grid;
+    private final Color background;
+    private final FrameBuffer frames = new FrameBuffer();
+    private volatile Dimension size = new Dimension();
+    private volatile Viewport viewport;
+    private volatile Canvas front;
+    private Canvas back;
+    private Thread renderer;
+
+    // render thread state
+    private Dimension canvasDimensions;
+    private Viewport renderedViewport;
+    private float scalingFactor;
+    private boolean drawCars;
+    private int[] staticPixels;
+    private int layerVersion;
+    private int[] visibleEdges;
+    private int visibleEdgeCount;
+    private final float[] edgeX;
+    private final float[] edgeY;
+    private final float[] edgeStepX;
+    private final float[] edgeStepY;
+    private final int[] edgeCars;
+    private final Path2D.Float heads = new Path2D.Float();
+    private final Path2D.Float tails = new Path2D.Float();
+    private final Path2D.Float[] densityPaths = new Path2D.Float[DENSITY_COLORS.length];
+    private final Path2D.Float[] lightPaths = new Path2D.Float[TrafficLight.Color.values().length];
+    private final Ellipse2D.Float dot = new Ellipse2D.Float();
+
+    public CrossroadPainting(Crossroad crossroad, Simulator simulator) {
+        this(crossroad, simulator::getSignalController);
+        simulator.registerObserver(() -> frames.publish(simulator));
+    }
+
+    // replays and streams show the plan of the crossroad
+    public CrossroadPainting(Crossroad crossroad) {
+        this(crossroad, crossroad::getSignalController);
+    }
+
+    private CrossroadPainting(Crossroad crossroad, Supplier<SignalController> signals) {
+        this.dimensions = crossroad.getDimensions();
+        this.topology = crossroad.getTopology();
+        this.signals = signals;
+        this.grid = new EdgeGrid(topology);
+        this.background = getBackground();
+        int edgeCount = topology.getEdgeCount();
+        visibleEdges = new int[edgeCount];
+        edgeX = new float[edgeCount];
+        edgeY = new float[edgeCount];
+        edgeStepX = new float[edgeCount];
+        edgeStepY = new float[edgeCount];
+        edgeCars = new int[edgeCount];
+        for (int i = 0; i < densityPaths.length; i++) {
+            densityPaths[i] = new Path2D.Float();
+        }
+        for (int i = 0; i < lightPaths.length; i++) {
+            lightPaths[i] = new Path2D.Float();
+        }
+        viewport = fittingViewport();
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                size = getSize();
+            }
+        });
+        ViewportControl control = new ViewportControl();
+        addMouseListener(control);
+        addMouseMotionListener(control);
+        addMouseWheelListener(control);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        renderer = new Thread(this::render, "crossroad-renderer");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+
+    // waits for the renderer, so one added again never shares its state with the old one
+    @Override
+    public void removeNotify() {
+        renderer.interrupt();
+        try {
+            renderer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        renderer = null;
+        super.removeNotify();
+    }
+
+    public void showFrame(StepFrame frame) {
+        if (frame != null) {
+            // a detached stream may still be delivering its last frame while the next one starts
+            synchronized (frames) {
+                frames.publish(frame);
+            }
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Canvas current = front;
+        if (current != null) {
+            // the renderer only reuses an image after it has been swapped out, but a slow blit may still overlap
+            synchronized (current) {
+                g.drawImage(current.image, 0, 0, null);
+            }
+        }
+    }
+
+    private void render() {
+        long frameNanos = 1000000000L / FRAMES_PER_SECOND;
+        long renderedSequence = -1;
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            StepFrame frame = frames.acquire();
+            Dimension current = size;
+            Viewport view = viewport;
+            if (current.width > 0 && current.height > 0 && (frame.getSequence() != renderedSequence
+                    || !current.equals(canvasDimensions) || view != renderedViewport)) {
+                renderedSequence = frame.getSequence();
+                renderImage(frame, current, view);
+                repaint();
+            }
+            long remaining = frameNanos - (System.nanoTime() - start);
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        logger.debug("Renderer stopped");
+    }
+
+    void renderImage(StepFrame frame, Dimension size, Viewport view) {
+        if (!size.equals(canvasDimensions) || view != renderedViewport) {
+            canvasDimensions = size;
+            renderedViewport = view;
+            scalingFactor = fitScale(size) * view.zoom;
+            drawCars = scalingFactor >= MIN_CAR_SCALE;
+            updateVisibleEdges();
+            staticPixels = pixels(drawStaticLayer(size));
+            layerVersion++;
+        }
+        Canvas canvas = back;
+        if (canvas == null || canvas.width != size.width || canvas.height != size.height) {
+            canvas = new Canvas(size);
+        }
+        synchronized (canvas) {
+            canvas.restore(staticPixels, layerVersion);
+            Graphics2D g = canvas.image.createGraphics();
+            try {
+                if (drawCars) {
+                    drawCars(frame, g, canvas);
+                    drawLights(frame, g, canvas);
+                } else {
+                    drawDensities(frame, g, canvas);
+                }
+            } finally {
+                g.dispose();
+            }
+        }
+        back = front;
+        front = canvas;
+    }
+
+    void renderImage(StepFrame frame, Dimension size) {
+        renderImage(frame, size, viewport);
+    }
+
+    void zoom(float zoom) {
+        Viewport view = viewport;
+        viewport = new Viewport(zoom, view.centerX, view.centerY);
+    }
+
+    // queries the grid with the viewport and computes screen geometry of the edges it returns
+    private void updateVisibleEdges() {
+        float halfWidth = canvasDimensions.width / 2f / scalingFactor;
+        float halfHeight = canvasDimensions.height / 2f / scalingFactor;
+        float margin = NODE_RADIUS / scalingFactor;
+        visibleEdgeCount = grid.query(renderedViewport.centerX - halfWidth - margin, renderedViewport.centerY - halfHeight - margin,
+                renderedViewport.centerX + halfWidth + margin, renderedViewport.centerY + halfHeight + margin, visibleEdges);
+        for (int i = 0; i < visibleEdgeCount; i++) {
+            int e = visibleEdges[i];
+            int begin = topology.getEdgeBegin(e);
+            edgeX[e] = scaledX(topology.getNodeX(begin));
+            edgeY[e] = scaledY(topology.getNodeY(begin));
+            edgeStepX[e] = topology.getEdgeDirectionX(e) * scalingFactor;
+            edgeStepY[e] = topology.getEdgeDirectionY(e) * scalingFactor;
+        }
+    }
+
+    // visible edges and nodes only change with the view, they are drawn once into an image cars are painted over
+    private BufferedImage drawStaticLayer(Dimension size) {
+        BufferedImage layer = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = layer.createGraphics();
+        try {
+            g.setColor(background);
+            g.fillRect(0, 0, size.width, size.height);
+            g.setStroke(new BasicStroke(drawCars ? EDGE_THICKNESS : 1));
+            Path2D.Float edges = new Path2D.Float();
+            Map<Color, Path2D.Float> nodes = new HashMap<>();
+            boolean[] nodeDrawn = new boolean[topology.getNodeCount()];
+            for (int i = 0; i < visibleEdgeCount; i++) {
+                int e = visibleEdges[i];
+                int end = topology.getEdgeEnd(e);
+                edges.moveTo(edgeX[e], edgeY[e]);
+                edges.lineTo(scaledX(topology.getNodeX(end)), scaledY(topology.getNodeY(end)));
+                addNode(nodes, nodeDrawn, topology.getEdgeBegin(e));
+                addNode(nodes, nodeDrawn, end);
+            }
+            g.setColor(Color.GRAY);
+            g.draw(edges);
+            for (Map.Entry<Color, Path2D.Float> entry : nodes.entrySet()) {
+                g.setColor(entry.getKey());
+                g.fill(entry.getValue());
+            }
+        } finally {
+            g.dispose();
+        }
+        return layer;
+    }
+
+    // zoomed out, plain nodes would only cover the edges, signs and lights stay visible
+    private void addNode(Map<Color, Path2D.Float> nodes, boolean[] nodeDrawn, int node) {
+        Color color = topology.getNode(node).getNodeColor();
+        if (nodeDrawn[node] || (!drawCars && Color.BLACK.equals(color))) {
+            return;
+        }
+        nodeDrawn[node] = true;
+        appendDot(nodes.computeIfAbsent(color, c -> new Path2D.Float()), scaledX(topology.getNodeX(node)), scaledY(topology.getNodeY(node)));
+    }
+
+    // visible heads and tails go out as one shape each instead of an oval per car
+    private void drawCars(StepFrame frame, Graphics2D g, Canvas canvas) {
+        heads.reset();
+        tails.reset();
+        for (int i = 0; i < frame.agentCount; i++) {
+            int head = frame.headEdges[i];
+            int tail = frame.tailEdges[i];
+            if (grid.isSelected(head)) {
+                canvas.addDot(appendDot(heads, edgeX[head] + frame.headPositions[i] * edgeStepX[head], edgeY[head] + frame.headPositions[i] * edgeStepY[head]));
+            }
+            if (grid.isSelected(tail)) {
+                canvas.addDot(appendDot(tails, edgeX[tail] + frame.tailPositions[i] * edgeStepX[tail], edgeY[tail] + frame.tailPositions[i] * edgeStepY[tail]));
+            }
+        }
+        g.setColor(carHeadColor);
+        g.fill(heads);
+        g.setColor(carTailColor);
+        g.fill(tails);
+    }
+
+    // a dot's width before the node, so it does not hide under the node itself, and over the cars waiting there
+    private void drawLights(StepFrame frame, Graphics2D g, Canvas canvas) {
+        SignalController signals = this.signals.get();
+        if (!signals.hasSignals()) {
+            return;
+        }
+        for (Path2D.Float path : lightPaths) {
+            path.reset();
+        }
+        float gap = (2 * NODE_RADIUS + 1) / scalingFactor;
+        for (int i = 0; i < visibleEdgeCount; i++) {
+            int e = visibleEdges[i];
+            TrafficLight.Color light = signals.getLight(e, frame.time);
+            if (light != null) {
+                float position = Math.max(topology.getEdgeLength(e) / 2, topology.getEdgeLength(e) - gap);
+                canvas.addDot(appendDot(lightPaths[light.ordinal()], edgeX[e] + position * edgeStepX[e],
+                        edgeY[e] + position * edgeStepY[e]));
+            }
+        }
+        for (TrafficLight.Color light : TrafficLight.Color.values()) {
+            g.setColor(light.getColor());
+            g.fill(lightPaths[light.ordinal()]);
+        }
+    }
+
+    // edges coloured by cars per length unit, one path per colour
+    private void drawDensities(StepFrame frame, Graphics2D g, Canvas canvas) {
+        for (int i = 0; i < frame.agentCount; i++) {
+            int head = frame.headEdges[i];
+            if (grid.isSelected(head)) {
+                edgeCars[head]++;
+            }
+        }
+        for (Path2D.Float path : densityPaths) {
+            path.reset();
+        }
+        for (int i = 0; i < visibleEdgeCount; i++) {
+            int e = visibleEdges[i];
+            if (edgeCars[e] == 0) {
+                continue;
+            }
+            float density = edgeCars[e] / Math.max(1, topology.getEdgeLength(e));
+            int bucket = Math.min(DENSITY_COLORS.length - 1, (int) (density / FULL_DENSITY * DENSITY_COLORS.length));
+            int end = topology.getEdgeEnd(e);
+            densityPaths[bucket].moveTo(edgeX[e], edgeY[e]);
+            densityPaths[bucket].lineTo(scaledX(topology.getNodeX(end)), scaledY(topology.getNodeY(end)));
+            edgeCars[e] = 0;
+        }
+        g.setStroke(new BasicStroke(EDGE_THICKNESS));
+        for (int i = 0; i < densityPaths.length; i++) {
+            g.setColor(DENSITY_COLORS[i]);
+            g.draw(densityPaths[i]);
+        }
+        canvas.invalidate();
+    }
+
+    // returns the dot's pixel position packed into a long
+    private long appendDot(Path2D.Float path, float x, float y) {
+        int px = (int) x;
+        int py = (int) y;
+        dot.setFrame(px - NODE_RADIUS, py - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+        path.append(dot, false);
+        return ((long) px << 32) | (py & 0xffffffffL);
+    }
+
+    private float fitScale(Dimension size) {
+        float xFactor = (1 - 2 * CROSSROAD_MARGIN) * size.width / Math.max(1, dimensions.maxX - dimensions.minX);
+        float yFactor = (1 - 2 * CROSSROAD_MARGIN) * size.height / Math.max(1, dimensions.maxY - dimensions.minY);
+        return Math.min(xFactor, yFactor);
+    }
+
+    private Viewport fittingViewport() {
+        return new Viewport(1, (dimensions.minX + dimensions.maxX) / 2f, (dimensions.minY + dimensions.maxY) / 2f);
+    }
+
+    private float scaledX(float x) {
+        return (x - renderedViewport.centerX) * scalingFactor + canvasDimensions.width / 2f;
+    }
+
+    private float scaledY(float y) {
+        return (y - renderedViewport.centerY) * scalingFactor + canvasDimensions.height / 2f;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    // green to red
+    private static Color[] densityColors(int count) {
+        Color[] colors = new Color[count];
+        for (int i = 0; i < count; i++) {
+            colors[i] = Color.getHSBColor(0.33f * (1 - i / (float) (count - 1)), 0.9f, 0.85f);
+        }
+        return colors;
+    }
+
+    public void redraw() {
+        repaint();
+    }
+
+    // mouse handling on the event dispatch thread, it only ever replaces the viewport
+    private class ViewportControl extends MouseAdapter {
+        private Point dragStart;
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            dragStart = e.getPoint();
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (dragStart == null) {
+                return;
+            }
+            Viewport view = viewport;
+            float scale = fitScale(getSize()) * view.zoom;
+            viewport = new Viewport(view.zoom, view.centerX - (e.getX() - dragStart.x) / scale,
+                    view.centerY - (e.getY() - dragStart.y) / scale);
+            dragStart = e.getPoint();
+        }
+
+        @Override
+        public void mouseClicked(MouseEvent e) {
+            if (e.getClickCount() == 2) {
+                viewport = fittingViewport();
+            }
+        }
+
+        // keeps the point under the cursor in place
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            Viewport view = viewport;
+            Dimension size = getSize();
+            float zoom = Math.max(MIN_ZOOM, view.zoom * (float) Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+            float scale = fitScale(size) * view.zoom;
+            float newScale = fitScale(size) * zoom;
+            float dx = e.getX() - size.width / 2f;
+            float dy = e.getY() - size.height / 2f;
+            viewport = new Viewport(zoom, view.centerX + dx / scale - dx / newScale, view.centerY + dy / scale - dy / newScale);
+        }
+    }
+
+    /*
+     * One of the two images the renderer alternates between. It remembers where it drew cars, so the next
+     * frame only copies the static layer back under those dots, unless they cover a large part of the image.
+     */
+    private static class Canvas {
+        private static final int DOT_SIZE = 2 * NODE_RADIUS + 3;
+
+        final BufferedImage image;
+        final int width;
+        final int height;
+        private final int[] pixels;
+        private long[] dots = new long[64];
+        private int dotCount;
+        private int layerVersion = -1;
+
+        Canvas(Dimension size) {
+            width = size.width;
+            height = size.height;
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = pixels(image);
+        }
+
+        void addDot(long dot) {
+            if (dotCount == dots.length) {
+                dots = Arrays.copyOf(dots, 2 * dotCount);
+            }
+            dots[dotCount++] = dot;
+        }
+
+        // the next restore copies the whole static layer
+        void invalidate() {
+            layerVersion = -1;
+        }
+
+        void restore(int[] layer, int version) {
+            if (version != layerVersion || (long) dotCount * DOT_SIZE * DOT_SIZE > pixels.length / 4) {
+                System.arraycopy(layer, 0, pixels, 0, pixels.length);
+                layerVersion = version;
+            } else {
+                for (int i = 0; i < dotCount; i++) {
+                    int x = (int) (dots[i] >> 32);
+                    int y = (int) dots[i];
+                    int x0 = Math.max(0, x - NODE_RADIUS - 1);
+                    int x1 = Math.min(width, x + NODE_RADIUS + 2);
+                    if (x0 >= x1) {
+                        continue;
+                    }
+                    for (int row = Math.max(0, y - NODE_RADIUS - 1); row < Math.min(height, y + NODE_RADIUS + 2); row++) {
+                        System.arraycopy(layer, row * width + x0, pixels, row * width + x0, x1 - x0);
+                    }
+                }
+            }
+            dotCount = 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package gui;
+
+import model.crossroad.CrossroadTopology;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * Uniform grid over the world bounding boxes of the edges, cells listing their edges in one array as the
+ * topology does for adjacency. Cells are sized so that an edge spans about one cell.
+ */
+class EdgeGrid {
+    private final CrossroadTopology topology;
+    private final float minX;
+    private final float minY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellOffsets;
+    private final int[] cellEdges;
+    private final int[] stamps;
+    private int stamp;
+
+    EdgeGrid(CrossroadTopology topology) {
+        this.topology = topology;
+        int edgeCount = topology.getEdgeCount();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        double lengths = 0;
+        for (int n = 0; n < topology.getNodeCount(); n++) {
+            minX = Math.min(minX, topology.getNodeX(n));
+            minY = Math.min(minY, topology.getNodeY(n));
+            maxX = Math.max(maxX, topology.getNodeX(n));
+            maxY = Math.max(maxY, topology.getNodeY(n));
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            lengths += topology.getEdgeLength(e);
+        }
+        if (topology.getNodeCount() == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        float extent = Math.max(maxX - minX, maxY - minY);
+        float size = edgeCount == 0 ? 1 : (float) (lengths / edgeCount);
+        // no more cells than edges, so sparse networks do not pay for empty ones
+        size = Math.max(size, extent / (float) Math.ceil(Math.sqrt(Math.max(1, edgeCount))));
+        this.cellSize = Math.max(size, 1);
+        this.columns = (int) ((maxX - minX) / cellSize) + 1;
+        this.rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        cellOffsets = new int[columns * rows + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            forEachCell(e, (cell) -> cellOffsets[cell + 1]++);
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellOffsets[c + 1] += cellOffsets[c];
+        }
+        cellEdges = new int[cellOffsets[columns * rows]];
+        int[] fill = Arrays.copyOf(cellOffsets, columns * rows);
+        for (int e = 0; e < edgeCount; e++) {
+            int edge = e;
+            forEachCell(e, (cell) -> cellEdges[fill[cell]++] = edge);
+        }
+        stamps = new int[edgeCount];
+    }
+
+    // collects the edges whose cells overlap the world rectangle into result, returns their count
+    int query(float x0, float y0, float x1, float y1, int[] result) {
+        stamp++;
+        int count = 0;
+        if (x1 < minX || y1 < minY || x0 > minX + columns * cellSize || y0 > minY + rows * cellSize) {
+            return 0;
+        }
+        int c0 = clamp((int) Math.floor((x0 - minX) / cellSize), columns);
+        int c1 = clamp((int) Math.floor((x1 - minX) / cellSize), columns);
+        int r0 = clamp((int) Math.floor((y0 - minY) / cellSize), rows);
+        int r1 = clamp((int) Math.floor((y1 - minY) / cellSize), rows);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int k = cellOffsets[cell]; k < cellOffsets[cell + 1]; k++) {
+                    int e = cellEdges[k];
+                    if (stamps[e] != stamp) {
+                        stamps[e] = stamp;
+                        result[count++] = e;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // whether the edge was returned by the last query
+    boolean isSelected(int edge) {
+        return stamps[edge] == stamp;
+    }
+
+    private void forEachCell(int edge, IntConsumer consumer) {
+        int begin = topology.getEdgeBegin(edge);
+        int end = topology.getEdgeEnd(edge);
+        int c0 = (int) ((Math.min(topology.getNodeX(begin), topology.getNodeX(end)) - minX) / cellSize);
+        int c1 = (int) ((Math.max(topology.getNodeX(begin), topology.getNodeX(end)) - minX) / cellSize);
+        int r0 = (int) ((Math.min(topology.getNodeY(begin), topology.getNodeY(end)) - minY) / cellSize);
+        int r1 = (int) ((Math.max(topology.getNodeY(begin), topology.getNodeY(end)) - minY) / cellSize);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                consumer.accept(r * columns + c);
+            }
+        }
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(limit - 1, value));
+    }
+}
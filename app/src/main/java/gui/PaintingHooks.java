@@ -0,0 +1,22 @@
+package gui;
+
+import simulation.StepFrame;
+
+import java.awt.*;
+
+/*
+ * Renders a crossroad painting off screen from outside of the package, for the benchmarks. The views
+ * themselves do not go through here.
+ */
+public final class PaintingHooks {
+    private PaintingHooks() {
+    }
+
+    public static void zoom(CrossroadPainting painting, float zoom) {
+        painting.zoom(zoom);
+    }
+
+    public static void renderImage(CrossroadPainting painting, StepFrame frame, Dimension size) {
+        painting.renderImage(frame, size);
+    }
+}
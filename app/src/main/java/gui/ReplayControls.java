@@ -0,0 +1,78 @@
+package gui;
+
+import simulation.Simulator;
+import simulation.StepFrame;
+import simulation.TrajectoryReader;
+
+import javax.swing.*;
+import java.awt.*;
+
+public class ReplayControls extends JPanel {
+    private static final int TICK_MILLIS = 40;
+    private static final Float[] SPEEDS = {0.25f, 0.5f, 1f, 2f, 4f, 8f, 16f, 64f, 256f};
+
+    private final TrajectoryReader replay;
+    private final CrossroadPainting painting;
+    private final JButton playButton = new JButton("Play");
+    private final JSlider timeSlider;
+    private final JComboBox<Float> speedBox = new JComboBox<>(SPEEDS);
+    private final JLabel timeLabel = new JLabel();
+    private final Timer timer;
+    private double time;
+
+    public ReplayControls(TrajectoryReader replay, CrossroadPainting painting) {
+        super(new BorderLayout());
+        this.replay = replay;
+        this.painting = painting;
+        this.time = replay.getFirstTime();
+        timeSlider = new JSlider(replay.getFirstTime(), Math.max(replay.getFirstTime(), replay.getLastTime()), replay.getFirstTime());
+        speedBox.setSelectedItem(1f);
+        timer = new Timer(TICK_MILLIS, e -> tick());
+
+        playButton.addActionListener(e -> togglePlaying());
+        timeSlider.addChangeListener(e -> {
+            if (timeSlider.getValueIsAdjusting() || (int) time != timeSlider.getValue()) {
+                time = timeSlider.getValue();
+            }
+            showTime(timeSlider.getValue());
+        });
+
+        JPanel buttons = new JPanel();
+        buttons.add(playButton);
+        buttons.add(new JLabel("Speed"));
+        buttons.add(speedBox);
+        buttons.add(timeLabel);
+        add(buttons, BorderLayout.WEST);
+        add(timeSlider, BorderLayout.CENTER);
+        showTime(replay.getFirstTime());
+    }
+
+    private void togglePlaying() {
+        if (timer.isRunning()) {
+            timer.stop();
+            playButton.setText("Play");
+        } else {
+            if (time >= replay.getLastTime()) {
+                time = replay.getFirstTime();
+            }
+            timer.start();
+            playButton.setText("Pause");
+        }
+    }
+
+    private void tick() {
+        float speed = (Float) speedBox.getSelectedItem();
+        time += speed * Simulator.STEPS_PER_SECOND * TICK_MILLIS / 1000.0;
+        if (time >= replay.getLastTime()) {
+            time = replay.getLastTime();
+            togglePlaying();
+        }
+        timeSlider.setValue((int) time);
+    }
+
+    private void showTime(int step) {
+        StepFrame frame = replay.seek(step);
+        timeLabel.setText("Step " + step + " / " + replay.getLastTime() + (frame == null ? "" : ", agents: " + frame.agentCount));
+        painting.showFrame(frame);
+    }
+}
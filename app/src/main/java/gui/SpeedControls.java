@@ -0,0 +1,45 @@
+package gui;
+
+import simulation.Simulator;
+
+import javax.swing.*;
+
+public class SpeedControls extends JPanel {
+    private static final String[] SPEEDS = {"0.25x", "0.5x", "1x", "2x", "4x", "8x", "16x", "64x", "Unthrottled"};
+
+    private final Simulator simulator;
+    private final JButton pauseButton = new JButton("Pause");
+    private final JComboBox<String> speedBox = new JComboBox<>(SPEEDS);
+
+    public SpeedControls(Simulator simulator) {
+        this.simulator = simulator;
+        speedBox.setSelectedItem("1x");
+        speedBox.addActionListener(e -> {
+            if (simulator.getSpeed() != 0) {
+                simulator.setSpeed(selectedSpeed());
+            }
+        });
+        pauseButton.addActionListener(e -> togglePaused());
+        add(pauseButton);
+        add(new JLabel("Speed"));
+        add(speedBox);
+    }
+
+    private void togglePaused() {
+        if (simulator.getSpeed() == 0) {
+            simulator.setSpeed(selectedSpeed());
+            pauseButton.setText("Pause");
+        } else {
+            simulator.setSpeed(0);
+            pauseButton.setText("Resume");
+        }
+    }
+
+    private double selectedSpeed() {
+        String speed = (String) speedBox.getSelectedItem();
+        if (!speed.endsWith("x")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.parseDouble(speed.substring(0, speed.length() - 1));
+    }
+}
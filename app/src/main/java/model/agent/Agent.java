@@ -0,0 +1,258 @@
+package model.agent;
+
+import model.crossroad.CrossroadTopology;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+import model.crossroad.RouteTable;
+import model.crossroad.TrafficLight;
+import simulation.AgentState;
+import simulation.CrossroadState;
+
+public class Agent {
+    private static final float SLOW_SPEED = 0.1f;
+    // how far ahead along its route a driver looks for lights
+    private static final float SIGNAL_LOOKAHEAD = 8;
+
+    private final int id;
+    private Car car;
+    private Driver driver;
+    private RouteTable routes;
+    private int routeId;
+    private int routeCursor;
+    private final Decision decision = new Decision();
+    private final RouteCrossing routeCrossing = new RouteCrossing();
+
+    public Agent(int id, Driver driver, Car car, RouteTable routes, int routeId) {
+        this(id, driver, car, routes, routeId, 0);
+    }
+
+    public Agent(int id, Driver driver, Car car, RouteTable routes, int routeId, int routeCursor) {
+        this.id = id;
+        this.driver = driver;
+        this.car = car;
+        this.routes = routes;
+        this.routeId = routeId;
+        this.routeCursor = routeCursor;
+    }
+
+    // the returned decision is reused by this agent and only valid until its next decision
+    public Decision decision(CrossroadState state) {
+        if (ifEdgeChanged(state)) {
+            routeCursor++;
+        }
+        decision.acceleration = getAccelerationDecision(state);
+        decision.nextEdge = nextEdge();
+        return decision;
+    }
+
+    private boolean ifEdgeChanged(CrossroadState state) {
+        Edge currentEdge = state.getMyState().getHeadPosition().edge;
+        return currentEdge.equals(nextEdge());
+    }
+
+    private Decision.Acceleration getAccelerationDecision(CrossroadState state) {
+        Decision.Acceleration decision = Decision.Acceleration.ACCELERATE;
+        AgentState myState = state.getMyState();
+        if (willDriveIntoSomeonesAss(state) || willDriveIntoSomeonesSide(state)) {
+            decision = Decision.Acceleration.BRAKE;
+            myState.setLastBrakeTime(state.getTime());
+        } else if (mustStopAtSignal(state)) {
+            // waiting for a light is not giving way, the timeout at crossings keeps running
+            decision = Decision.Acceleration.BRAKE;
+        } else if (willCrossSomeonesRoute(state) || willBlockCrossing(state)) {
+            int waitingTime = state.getTime() - myState.getLastBrakeTime();
+            if (waitingTime < myState.getTimeout()) {
+                decision = Decision.Acceleration.BRAKE;
+            } else {
+                decision = Decision.Acceleration.ACCELERATE;
+            }
+        }
+
+        return decision;
+    }
+
+    private boolean willBlockCrossing(CrossroadState state) {
+        RouteCrossing routeCrossing = nearestRouteCrossing(state);
+        if (routeCrossing == null) {
+            return false;
+        }
+        if (routeCrossing.distance > 1) {
+            return false;
+        }
+        AgentState.AgentPosition headPosition = state.getMyState().getHeadPosition();
+        if (!routeCrossing.node.equals(headPosition.edge.getEnd())) {
+            return false;
+        }
+        AgentState nearestCar = getNearestCar(state);
+        if (nearestCar == null) {
+            return false;
+        }
+        float distance = headPosition.edge.length() - headPosition.edgePosition;
+        if (distance > state.getMyState().getSafeDistanceWhileStaying()) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean willCrossSomeonesRoute(CrossroadState state) {
+        RouteCrossing nearestCrossing = nearestRouteCrossing(state);
+        if (nearestCrossing == null) {
+            return false;
+        }
+        float madnessFactor = state.getMyState().getMadnessFactor();
+        if (nearestCrossing.distance / state.getMyState().getVelocity() > 3 - (madnessFactor - 0.5) * 4 && nearestCrossing.distance > 0.5f) {
+            return false;
+        }
+        CrossroadTopology topology = state.getTopology();
+        int incomingEdge = nearestCrossing.incomingEdge.getId();
+        int rightHandEdges = topology.getRightHandIncomingEdgeCount(incomingEdge);
+        for (int i = 0; i < rightHandEdges; i++) {
+            Edge e = topology.getEdge(topology.getRightHandIncomingEdge(incomingEdge, i));
+            // cars held by a red light do not have priority
+            if (state.getLight(e) == TrafficLight.Color.RED) {
+                continue;
+            }
+            AgentState nearestOnRightEdge = state.getFirstOnEdge(e);
+            if (nearestOnRightEdge != null) {
+                AgentState.AgentPosition nearestOnRightEdgeHeadPosition = nearestOnRightEdge.getHeadPosition();
+                float distance = nearestOnRightEdgeHeadPosition.edge.length() - nearestOnRightEdgeHeadPosition.edgePosition;
+                if (distance / nearestOnRightEdge.getVelocity() < 10 - (madnessFactor - 0.5) * 10) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static class RouteCrossing {
+        public Node node;
+        public Edge incomingEdge;
+        public float distance;
+    }
+
+    private RouteCrossing nearestRouteCrossing(CrossroadState state) {
+        AgentState.AgentPosition headPosition = state.getMyState().getHeadPosition();
+        float distance = headPosition.edge.length() - headPosition.edgePosition;
+        Edge prevEdge = headPosition.edge;
+        for (int i = routeCursor; i < routes.getRouteLength(routeId); i++) {
+            Edge e = routes.getRouteEdge(routeId, i);
+            Node n = e.getBegin();
+            if (n.isCrossing()) {
+                routeCrossing.node = n;
+                routeCrossing.distance = distance;
+                routeCrossing.incomingEdge = prevEdge;
+                return routeCrossing;
+            }
+            distance += e.length();
+            prevEdge = e;
+        }
+        return null;
+    }
+
+    // red and amber lights are stop lines at the end of their edges, amber only for drivers who can still stop
+    private boolean mustStopAtSignal(CrossroadState state) {
+        if (!state.hasSignals()) {
+            return false;
+        }
+        AgentState myState = state.getMyState();
+        AgentState.AgentPosition headPosition = myState.getHeadPosition();
+        float velocity = myState.getVelocity();
+        Edge edge = headPosition.edge;
+        float distance = edge.length() - headPosition.edgePosition;
+        int cursor = routeCursor;
+        while (true) {
+            TrafficLight.Color light = state.getLight(edge);
+            if (light == TrafficLight.Color.RED
+                    || light == TrafficLight.Color.YELLOW_BEFORE_RED && canStop(myState, distance, velocity)) {
+                return shouldIBreak(myState, distance, velocity, 0);
+            }
+            if (distance >= SIGNAL_LOOKAHEAD || cursor >= routes.getRouteLength(routeId)) {
+                return false;
+            }
+            edge = routes.getRouteEdge(routeId, cursor++);
+            distance += edge.length();
+        }
+    }
+
+    private boolean canStop(AgentState myState, float distance, float velocity) {
+        return distance > velocity * velocity / (2 * myState.getDeceleration()) + velocity;
+    }
+
+    private boolean willDriveIntoSomeonesSide(CrossroadState state) {
+        AgentState myState = state.getMyState();
+        AgentState.AgentPosition headPosition = myState.getHeadPosition();
+        Edge edge = headPosition.edge;
+        Node nextNode = edge.getEnd();
+        if (state.isOccupiedBySomeoneElse(nextNode)) {
+            float distance = edge.length() - headPosition.edgePosition;
+            if (shouldIBreak(myState, distance, myState.getVelocity(), 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean willDriveIntoSomeonesAss(CrossroadState state) {
+        AgentState.AgentPosition myHeadPosition = state.getMyState().getHeadPosition();
+        AgentState closestAgentsState = state.getLeader(myHeadPosition.edge, myHeadPosition.edgePosition);
+        if (closestAgentsState != null) {
+            float distance = closestAgentsState.getTailPosition().edgePosition - myHeadPosition.edgePosition;
+            if (shouldIBreak(state.getMyState(), distance, state.getMyState().getVelocity(), closestAgentsState.getVelocity())) {
+                return true;
+            }
+        } else {
+            closestAgentsState = getNearestCar(state);
+            if (closestAgentsState != null) {
+                float distance = closestAgentsState.getTailPosition().edgePosition + state.getMyState().getHeadPosition().edge.length() - myHeadPosition.edgePosition;
+                if (shouldIBreak(state.getMyState(), distance, state.getMyState().getVelocity(), closestAgentsState.getVelocity())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private AgentState getNearestCar(CrossroadState state) {
+        return state.getLastOnEdge(nextEdge());
+    }
+
+    public Edge nextEdge() {
+        return routeCursor < routes.getRouteLength(routeId) ? routes.getRouteEdge(routeId, routeCursor) : null;
+    }
+
+    private boolean shouldIBreak(AgentState myState, float distance, float mySpeed, float hisSpeed) {
+        float speedDifference = mySpeed - hisSpeed;
+        boolean toCloseWhileDriving = distance < myState.getSafeDistance() && mySpeed >= SLOW_SPEED;
+        boolean toCloseWhileMovingSlowly = distance < myState.getSafeDistanceWhileStaying() && mySpeed < SLOW_SPEED;
+        return toCloseWhileDriving || toCloseWhileMovingSlowly || speedDifference > 0 && distance / speedDifference < 30;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Car getCar() {
+        return car;
+    }
+
+    public Driver getDriver() {
+        return driver;
+    }
+
+    public Node getRouteEnd() {
+        return routes.getRouteEnd(routeId);
+    }
+
+    public Node getRouteBegin() {
+        return routes.getRouteBegin(routeId);
+    }
+
+    public int getRouteId() {
+        return routeId;
+    }
+
+    public int getRouteCursor() {
+        return routeCursor;
+    }
+}
@@ -1,10 +1,11 @@
 package model.agent;
 
+// parameters of a car as it enters the crossroad, the agent store keeps its live length
 public class Car {
-    private float accelerationSpeed;
-    private float decelerationSpeed;
-    private float length;
-    private float maxVelocity;
+    private final float accelerationSpeed;
+    private final float decelerationSpeed;
+    private final float length;
+    private final float maxVelocity;
 
     public Car(float accelerationSpeed, float decelerationSpeed, float maxVelocity, float length) {
         this.accelerationSpeed = accelerationSpeed;
@@ -28,12 +29,4 @@ public class Car {
     public float getMaxVelocity() {
         return maxVelocity;
     }
-
-    public void shorten(float deficit) {
-        if (this.length >= deficit) {
-            this.length -= deficit;
-        } else {
-            this.length = 0;
-        }
-    }
 }
@@ -1,13 +1,12 @@
 package model.agent;
 
-import java.util.Date;
-
+// parameters of a driver as the agent enters the crossroad, the agent store keeps the last brake time from then on
 public class Driver {
     private float safeDistanceToNextCar = 0.1f;
     private float safeDistanceToNextStayingCar = 0.01f;
     private float madnessFactor = 0;
     private int timeout;
-    private Date date = new Date();
+    private int lastBrakeTime;
 
     public Driver(float safeDistanceToNextCar, float safeDistanceToNextStayingCar, float madnessFactor, int timeout) {
         this.safeDistanceToNextCar = safeDistanceToNextCar;
@@ -32,11 +31,11 @@ public class Driver {
         return timeout;
     }
 
-    public Date getDate() {
-        return date;
+    public int getLastBrakeTime() {
+        return lastBrakeTime;
     }
 
-    public void setDate(Date date) {
-        this.date = date;
+    public void setLastBrakeTime(int lastBrakeTime) {
+        this.lastBrakeTime = lastBrakeTime;
     }
 }
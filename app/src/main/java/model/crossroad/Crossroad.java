@@ -0,0 +1,173 @@
+package model.crossroad;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+public class Crossroad {
+    private Set<Node> inputNodes = new HashSet<>();
+    private Set<Node> outgoingNodes;
+    private CrossroadTopology topology;
+    private RouteTable routes;
+    private SignalController signals;
+
+    // the crossroad works on copies of the reachable nodes, the given ones can be used to build others
+    public Crossroad(Set<Node> inputNodes) {
+        this(topology(inputNodes));
+    }
+
+    private Crossroad(CrossroadTopology topology) {
+        this(topology, new RouteTable(topology));
+    }
+
+    private Crossroad(CrossroadTopology topology, RouteTable routes) {
+        Set<Node> inputNodes = new HashSet<>();
+        Set<Node> outgoingNodes = new HashSet<>();
+        for (int node = 0; node < topology.getNodeCount(); node++) {
+            if (topology.isInput(node)) {
+                inputNodes.add(topology.getNode(node));
+            }
+            if (topology.isOutput(node)) {
+                outgoingNodes.add(topology.getNode(node));
+            }
+        }
+        this.inputNodes = Collections.unmodifiableSet(inputNodes);
+        this.outgoingNodes = outgoingNodes;
+        this.topology = topology;
+        this.routes = routes;
+        this.signals = new SignalController(topology, new SignalPlan());
+    }
+
+    // the reachable nodes, their edges, the signal plan and every route, see readFrom
+    public void writeTo(DataOutput out) throws IOException {
+        topology.writeTo(out);
+        ByteArrayOutputStream plan = new ByteArrayOutputStream();
+        signals.getPlan().writeTo(new DataOutputStream(plan));
+        out.writeInt(plan.size());
+        out.write(plan.toByteArray());
+        routes.writeTo(out);
+    }
+
+    // the routes are read from the buffer as they are needed, it has to stay valid as long as the crossroad is used
+    public static Crossroad readFrom(ByteBuffer buffer) {
+        CrossroadTopology topology = CrossroadTopology.readFrom(buffer);
+        byte[] plan = new byte[buffer.getInt()];
+        buffer.get(plan);
+        SignalPlan signalPlan;
+        try {
+            signalPlan = SignalPlan.readFrom(new DataInputStream(new ByteArrayInputStream(plan)));
+        } catch (IOException e) {
+            throw new RuntimeException("Signal plan reading error", e);
+        }
+        Crossroad crossroad = new Crossroad(topology, RouteTable.readFrom(topology, buffer));
+        crossroad.setSignalPlan(signalPlan);
+        return crossroad;
+    }
+
+    public CrossroadTopology getTopology() {
+        return topology;
+    }
+
+    public Edge getEdge(int id) {
+        return topology.getEdge(id);
+    }
+
+    public int getEdgeCount() {
+        return topology.getEdgeCount();
+    }
+
+    public boolean isInputNode(Node node) {
+        return topology.isInput(node.getIndex());
+    }
+
+    public CrossroadDimensions getDimensions() {
+        CrossroadDimensions dimensions = new CrossroadDimensions();
+        dimensions.minX = Integer.MAX_VALUE;
+        dimensions.minY = Integer.MAX_VALUE;
+        dimensions.maxX = 0;
+        dimensions.maxY = 0;
+        for (int node = 0; node < topology.getNodeCount(); node++) {
+            int x = topology.getNodeX(node);
+            int y = topology.getNodeY(node);
+            if (x > dimensions.maxX) {
+                dimensions.maxX = x;
+            }
+            if (x < dimensions.minX) {
+                dimensions.minX = x;
+            }
+            if (y > dimensions.maxY) {
+                dimensions.maxY = y;
+            }
+            if (y < dimensions.minY) {
+                dimensions.minY = y;
+            }
+        }
+        return dimensions;
+    }
+
+    // nodes reachable from the input nodes
+    public Set<Node> getNodes() {
+        return reachableNodes(inputNodes);
+    }
+
+    private static CrossroadTopology topology(Set<Node> inputNodes) {
+        Set<Node> nodes = reachableNodes(inputNodes);
+        return CrossroadTopology.of(nodes, inputNodes, computeOutgoingNodes(nodes));
+    }
+
+    private static Set<Node> reachableNodes(Set<Node> inputNodes) {
+        Set<Node> nodes = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node node : inputNodes) {
+            if (nodes.add(node)) {
+                stack.push(node);
+            }
+        }
+        while (!stack.isEmpty()) {
+            for (Edge edge : stack.pop().getOutgoingEdges()) {
+                Node end = edge.getEnd();
+                if (nodes.add(end)) {
+                    stack.push(end);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    public Set<Node> getInputNodes() {
+        return inputNodes;
+    }
+
+    public int getRandomRoute(Random random) {
+        return routes.sample(random);
+    }
+
+    public RouteTable getRoutes() {
+        return routes;
+    }
+
+    // the plan simulations of this crossroad start with, they may run other plans on it
+    public void setSignalPlan(SignalPlan plan) {
+        signals = new SignalController(topology, plan);
+    }
+
+    public SignalController getSignalController() {
+        return signals;
+    }
+
+    // reachable nodes without outgoing edges, one traversal shared by all inputs
+    private static Set<Node> computeOutgoingNodes(Set<Node> nodes) {
+        Set<Node> outgoingNodes = new HashSet<>();
+        for (Node node : nodes) {
+            if (node.getOutgoingEdges().isEmpty()) {
+                outgoingNodes.add(node);
+            }
+        }
+        return outgoingNodes;
+    }
+}
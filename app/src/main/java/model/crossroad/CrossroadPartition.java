@@ -0,0 +1,118 @@
+package model.crossroad;
+
+import java.util.Arrays;
+
+/*
+ * Split of the crossroad into regions of about equal node count by recursive bisection along the longer side
+ * of the bounding box. Near the balanced position the cut moves to where the fewest edges cross it, so regions
+ * meet where the network is sparse. Edges belong to the region of their begin node.
+ */
+public final class CrossroadPartition {
+    // the cut is searched within a 1 / CUT_WINDOW share of the nodes on both sides of the balanced position
+    private static final int CUT_WINDOW = 8;
+
+    private final int regionCount;
+    private final int[] nodeRegions;
+    private final int[] edgeRegions;
+    private int cutEdgeCount;
+
+    public CrossroadPartition(CrossroadTopology topology, int regionCount) {
+        this.regionCount = Math.max(1, regionCount);
+        int nodeCount = topology.getNodeCount();
+        nodeRegions = new int[nodeCount];
+        int[] nodes = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = i;
+        }
+        bisect(topology, nodes, 0, nodeCount, 0, this.regionCount, new int[nodeCount]);
+        edgeRegions = new int[topology.getEdgeCount()];
+        for (int e = 0; e < edgeRegions.length; e++) {
+            edgeRegions[e] = nodeRegions[topology.getEdgeBegin(e)];
+            if (edgeRegions[e] != nodeRegions[topology.getEdgeEnd(e)]) {
+                cutEdgeCount++;
+            }
+        }
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    public int getNodeRegion(int node) {
+        return nodeRegions[node];
+    }
+
+    public int getEdgeRegion(int edge) {
+        return edgeRegions[edge];
+    }
+
+    // edges leading from one region into another, agents driving along them are handed over
+    public int getCutEdgeCount() {
+        return cutEdgeCount;
+    }
+
+    private void bisect(CrossroadTopology topology, int[] nodes, int from, int to, int firstRegion, int regions, int[] rank) {
+        int count = to - from;
+        if (regions == 1 || count < 2) {
+            for (int i = from; i < to; i++) {
+                nodeRegions[nodes[i]] = firstRegion;
+            }
+            return;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, topology.getNodeX(nodes[i]));
+            maxX = Math.max(maxX, topology.getNodeX(nodes[i]));
+            minY = Math.min(minY, topology.getNodeY(nodes[i]));
+            maxY = Math.max(maxY, topology.getNodeY(nodes[i]));
+        }
+        boolean alongX = (long) maxX - minX >= (long) maxY - minY;
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int node = nodes[from + i];
+            long coordinate = alongX ? topology.getNodeX(node) : topology.getNodeY(node);
+            keys[i] = coordinate << 32 | node;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            nodes[from + i] = (int) keys[i];
+            rank[nodes[from + i]] = i;
+        }
+
+        // an edge between ranks lo < hi crosses every cut leaving between
+        // lo + 1 and hi nodes on the lower side
+        int[] crossing = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            int node = nodes[from + i];
+            for (int k = 0; k < topology.getOutgoingEdgeCount(node); k++) {
+                int end = topology.getEdgeEnd(topology.getOutgoingEdge(node, k));
+                int r = rank[end];
+                if (r < count && nodes[from + r] == end) {
+                    crossing[Math.min(i, r) + 1]++;
+                    crossing[Math.max(i, r) + 1]--;
+                }
+            }
+        }
+        int lowerRegions = regions / 2;
+        int balanced = (int) ((long) count * lowerRegions / regions);
+        int window = count / CUT_WINDOW;
+        int first = Math.max(1, balanced - window);
+        int last = Math.min(count - 1, balanced + window);
+        int cut = Math.max(1, Math.min(count - 1, balanced));
+        int bestCrossing = Integer.MAX_VALUE;
+        int crossingEdges = 0;
+        for (int split = 1; split <= last; split++) {
+            crossingEdges += crossing[split];
+            if (split < first) {
+                continue;
+            }
+            if (crossingEdges < bestCrossing
+                    || crossingEdges == bestCrossing && Math.abs(split - balanced) < Math.abs(cut - balanced)) {
+                bestCrossing = crossingEdges;
+                cut = split;
+            }
+        }
+        bisect(topology, nodes, from, from + cut, firstRegion, lowerRegions, rank);
+        bisect(topology, nodes, from + cut, to, firstRegion + lowerRegions, regions - lowerRegions, rank);
+    }
+}
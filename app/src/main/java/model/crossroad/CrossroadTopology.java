@@ -0,0 +1,296 @@
+package model.crossroad;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+public final class CrossroadTopology {
+    private static final int INPUT = 1;
+    private static final int OUTPUT = 2;
+
+    private final Node[] nodes;
+    private final Edge[] edges;
+    private final int[] nodeX;
+    private final int[] nodeY;
+    private final boolean[] inputNode;
+    private final boolean[] outputNode;
+
+    private final int[] edgeBegin;
+    private final int[] edgeEnd;
+    private final float[] edgeLength;
+    private final float[] edgeDirectionX;
+    private final float[] edgeDirectionY;
+
+    private final int[] outgoingOffsets;
+    private final int[] outgoingEdges;
+    private final int[] incomingOffsets;
+    private final int[] incomingEdges;
+
+    private final int[] rightHandOffsets;
+    private final int[] rightHandEdges;
+
+    // numbers copies of the nodes and edges, the given ones may be shared with other crossroads
+    static CrossroadTopology of(Collection<Node> allNodes, Set<Node> inputNodes, Set<Node> outputNodes) {
+        List<Node> sortedNodes = new ArrayList<>(allNodes);
+        sortedNodes.sort(Comparator.comparingInt(Node::getId));
+        Node[] nodes = new Node[sortedNodes.size()];
+        Map<Node, Integer> indexes = new IdentityHashMap<>();
+        boolean[] inputNode = new boolean[nodes.length];
+        boolean[] outputNode = new boolean[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Node node = sortedNodes.get(i);
+            nodes[i] = new Node(node.getId(), node.getPosition(), node.getProbability());
+            indexes.put(node, i);
+            inputNode[i] = inputNodes.contains(node);
+            outputNode[i] = outputNodes.contains(node);
+        }
+        List<Edge> edgeList = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            List<Edge> outgoing = new ArrayList<>(sortedNodes.get(i).getOutgoingEdges());
+            outgoing.sort(Comparator.comparingInt(e -> e.getEnd().getId()));
+            for (Edge edge : outgoing) {
+                edgeList.add(nodes[i].addConnection(nodes[indexes.get(edge.getEnd())]));
+            }
+        }
+        return new CrossroadTopology(nodes, edgeList.toArray(new Edge[edgeList.size()]), inputNode, outputNode);
+    }
+
+    // nodes in index order and edges in id order, grouped by their begin node, owned by this topology only
+    private CrossroadTopology(Node[] nodes, Edge[] edges, boolean[] inputNode, boolean[] outputNode) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.inputNode = inputNode;
+        this.outputNode = outputNode;
+        nodeX = new int[nodes.length];
+        nodeY = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Node node = nodes[i];
+            node.setIndex(i);
+            nodeX[i] = node.getPosition().getX();
+            nodeY[i] = node.getPosition().getY();
+        }
+
+        edgeBegin = new int[edges.length];
+        edgeEnd = new int[edges.length];
+        edgeLength = new float[edges.length];
+        edgeDirectionX = new float[edges.length];
+        edgeDirectionY = new float[edges.length];
+        outgoingOffsets = new int[nodes.length + 1];
+        incomingOffsets = new int[nodes.length + 1];
+        for (int i = 0; i < edges.length; i++) {
+            Edge edge = edges[i];
+            edge.setId(i);
+            edgeBegin[i] = edge.getBegin().getIndex();
+            edgeEnd[i] = edge.getEnd().getIndex();
+            edgeLength[i] = edge.length();
+            edgeDirectionX[i] = edgeLength[i] > 0 ? (nodeX[edgeEnd[i]] - nodeX[edgeBegin[i]]) / edgeLength[i] : 0;
+            edgeDirectionY[i] = edgeLength[i] > 0 ? (nodeY[edgeEnd[i]] - nodeY[edgeBegin[i]]) / edgeLength[i] : 0;
+            outgoingOffsets[edgeBegin[i] + 1]++;
+            incomingOffsets[edgeEnd[i] + 1]++;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            outgoingOffsets[i + 1] += outgoingOffsets[i];
+            incomingOffsets[i + 1] += incomingOffsets[i];
+        }
+        outgoingEdges = new int[edges.length];
+        incomingEdges = new int[edges.length];
+        int[] outgoingFill = Arrays.copyOf(outgoingOffsets, nodes.length);
+        int[] incomingFill = Arrays.copyOf(incomingOffsets, nodes.length);
+        for (int i = 0; i < edges.length; i++) {
+            outgoingEdges[outgoingFill[edgeBegin[i]]++] = i;
+            incomingEdges[incomingFill[edgeEnd[i]]++] = i;
+        }
+
+        rightHandOffsets = new int[edges.length + 1];
+        for (int i = 0; i < edges.length; i++) {
+            rightHandOffsets[i + 1] = rightHandOffsets[i] + countRightHandIncomingEdges(i, null, 0);
+        }
+        rightHandEdges = new int[rightHandOffsets[edges.length]];
+        for (int i = 0; i < edges.length; i++) {
+            countRightHandIncomingEdges(i, rightHandEdges, rightHandOffsets[i]);
+        }
+    }
+
+    // the other edges into the end node coming from the right, stored from the offset on if there is an array
+    private int countRightHandIncomingEdges(int incomingEdge, int[] result, int offset) {
+        int node = edgeEnd[incomingEdge];
+        float dx1 = nodeX[edgeEnd[incomingEdge]] - nodeX[edgeBegin[incomingEdge]];
+        float dy1 = nodeY[edgeEnd[incomingEdge]] - nodeY[edgeBegin[incomingEdge]];
+        int count = 0;
+        for (int k = incomingOffsets[node]; k < incomingOffsets[node + 1]; k++) {
+            int e = incomingEdges[k];
+            if (e == incomingEdge) {
+                continue;
+            }
+            float dx2 = nodeX[edgeEnd[e]] - nodeX[edgeBegin[e]];
+            float dy2 = nodeY[edgeEnd[e]] - nodeY[edgeBegin[e]];
+            if (dx1 * dy2 - dx2 * dy1 < 0) {
+                if (result != null) {
+                    result[offset + count] = e;
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getEdgeCount() {
+        return edges.length;
+    }
+
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    public Edge getEdge(int id) {
+        return edges[id];
+    }
+
+    public int getNodeX(int node) {
+        return nodeX[node];
+    }
+
+    public int getNodeY(int node) {
+        return nodeY[node];
+    }
+
+    public boolean isInput(int node) {
+        return inputNode[node];
+    }
+
+    public boolean isOutput(int node) {
+        return outputNode[node];
+    }
+
+    public int getEdgeBegin(int edge) {
+        return edgeBegin[edge];
+    }
+
+    public int getEdgeEnd(int edge) {
+        return edgeEnd[edge];
+    }
+
+    public float getEdgeLength(int edge) {
+        return edgeLength[edge];
+    }
+
+    public float getEdgeDirectionX(int edge) {
+        return edgeDirectionX[edge];
+    }
+
+    public float getEdgeDirectionY(int edge) {
+        return edgeDirectionY[edge];
+    }
+
+    public int getOutgoingEdgeCount(int node) {
+        return outgoingOffsets[node + 1] - outgoingOffsets[node];
+    }
+
+    public int getOutgoingEdge(int node, int i) {
+        return outgoingEdges[outgoingOffsets[node] + i];
+    }
+
+    public int getIncomingEdgeCount(int node) {
+        return incomingOffsets[node + 1] - incomingOffsets[node];
+    }
+
+    public int getIncomingEdge(int node, int i) {
+        return incomingEdges[incomingOffsets[node] + i];
+    }
+
+    // nodes are sorted by id, -1 for ids of unreachable or unknown nodes
+    public int getNodeIndex(int id) {
+        int low = 0;
+        int high = nodes.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = nodes[middle].getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // nodes, their flags and the outgoing edges in CSR form, enough to restore the same node and edge order
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(nodes.length);
+        out.writeInt(edges.length);
+        for (Node node : nodes) {
+            out.writeInt(node.getId());
+        }
+        for (int x : nodeX) {
+            out.writeInt(x);
+        }
+        for (int y : nodeY) {
+            out.writeInt(y);
+        }
+        for (Node node : nodes) {
+            out.writeFloat(node.getProbability());
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            out.writeInt((inputNode[i] ? INPUT : 0) | (outputNode[i] ? OUTPUT : 0));
+        }
+        for (int offset : outgoingOffsets) {
+            out.writeInt(offset);
+        }
+        for (int end : edgeEnd) {
+            out.writeInt(end);
+        }
+    }
+
+    // reads from the buffer position on and leaves it after the topology
+    static CrossroadTopology readFrom(ByteBuffer buffer) {
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        int[] ids = readInts(buffer, nodeCount);
+        int[] x = readInts(buffer, nodeCount);
+        int[] y = readInts(buffer, nodeCount);
+        float[] probabilities = new float[nodeCount];
+        buffer.asFloatBuffer().get(probabilities);
+        buffer.position(buffer.position() + 4 * nodeCount);
+        int[] flags = readInts(buffer, nodeCount);
+        int[] offsets = readInts(buffer, nodeCount + 1);
+        int[] ends = readInts(buffer, edgeCount);
+
+        Node[] nodes = new Node[nodeCount];
+        boolean[] inputNode = new boolean[nodeCount];
+        boolean[] outputNode = new boolean[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new Node(ids[i], new Position(x[i], y[i]), probabilities[i]);
+            inputNode[i] = (flags[i] & INPUT) != 0;
+            outputNode[i] = (flags[i] & OUTPUT) != 0;
+        }
+        Edge[] edges = new Edge[edgeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                edges[e] = nodes[i].addConnection(nodes[ends[e]]);
+            }
+        }
+        return new CrossroadTopology(nodes, edges, inputNode, outputNode);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    public int getRightHandIncomingEdgeCount(int edge) {
+        return rightHandOffsets[edge + 1] - rightHandOffsets[edge];
+    }
+
+    public int getRightHandIncomingEdge(int edge, int i) {
+        return rightHandEdges[rightHandOffsets[edge] + i];
+    }
+}
@@ -3,10 +3,25 @@ package model.crossroad;
 public class Edge {
     private Node begin;
     private Node end;
+    private int id = -1;
+    private float length;
+    private int hashCode;
 
     public Edge(Node begin, Node end) {
         this.begin = begin;
         this.end = end;
+        int dx = end.getPosition().getX() - begin.getPosition().getX();
+        int dy = end.getPosition().getY() - begin.getPosition().getY();
+        this.length = (float) Math.sqrt(dx * dx + dy * dy);
+        this.hashCode = computeHashCode();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
     }
 
     public Node getBegin() {
@@ -18,13 +33,15 @@ public class Edge {
     }
 
     public float length() {
-        int dx = end.getPosition().getX() - begin.getPosition().getX();
-        int dy = end.getPosition().getY() - begin.getPosition().getY();
-        return (float) Math.sqrt(dx * dx + dy * dy);
+        return length;
     }
 
     @Override
     public int hashCode() {
+        return hashCode;
+    }
+
+    private int computeHashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((begin == null) ? 0 : begin.hashCode());
@@ -1,11 +1,13 @@
 package model.crossroad;
 
 import java.awt.*;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 public class Node {
     private int id;
+    private int index = -1;
     private Position position;
     private Set<Edge> outgoingEdges = new HashSet<>();
     private Set<Edge> incomingEdges = new HashSet<>();
@@ -29,10 +31,11 @@ public class Node {
         this(id, position, null, null, probability);
     }
 
-    public void addConnection(Node node) {
+    public Edge addConnection(Node node) {
         Edge edge = new Edge(this, node);
         outgoingEdges.add(edge);
         node.addIncomingEdge(edge);
+        return edge;
     }
 
     public Position getPosition() {
@@ -44,7 +47,7 @@ public class Node {
     }
 
     public Set<Edge> getIncomingEdges() {
-        return new HashSet<>(incomingEdges);
+        return Collections.unmodifiableSet(incomingEdges);
     }
 
     public Color getNodeColor() {
@@ -80,22 +83,6 @@ public class Node {
         return incomingEdges.size() >= 2;
     }
 
-    public Set<Edge> rightHandIncomingEdges(Edge incomingEdge) {
-        Set<Edge> edges = getIncomingEdges();
-        edges.remove(incomingEdge);
-        Set<Edge> result = new HashSet<>();
-        float dx1 = incomingEdge.getEnd().getPosition().getX() - incomingEdge.getBegin().getPosition().getX();
-        float dy1 = incomingEdge.getEnd().getPosition().getY() - incomingEdge.getBegin().getPosition().getY();
-        for (Edge e : edges) {
-            float dx2 = e.getEnd().getPosition().getX() - e.getBegin().getPosition().getX();
-            float dy2 = e.getEnd().getPosition().getY() - e.getBegin().getPosition().getY();
-            if (dx1 * dy2 - dx2 * dy1 < 0) {
-                result.add(e);
-            }
-        }
-        return result;
-    }
-
     public float getProbability() {
         return probability;
     }
@@ -103,4 +90,12 @@ public class Node {
     public int getId() {
         return id;
     }
+
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
 }
@@ -0,0 +1,209 @@
+package model.crossroad;
+
+import model.utils.AliasSampler;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Shortest routes from every input to every output. The breadth first tree of an input is only searched
+ * when a route from it is first needed and a route array only built from the tree on its first use, so
+ * large networks load without inputs x nodes work up front. A compiled crossroad brings all routes along,
+ * they stay in the mapped file and are copied out on first use. Simulators sharing a crossroad may fill the
+ * tables concurrently; racing threads compute identical values.
+ */
+public final class RouteTable {
+    private static final int[] NO_ROUTE = new int[0];
+
+    private final CrossroadTopology topology;
+    private final int[] inputs;
+    private final int[] outputs;
+    private final AliasSampler inputSampler;
+    private final AliasSampler outputSampler;
+    private final AtomicReferenceArray<int[]> trees;
+    private final AtomicReferenceArray<int[]> routes;
+    // route starts, lengths (-1 without a route) and the edges of all routes, null when they are searched for
+    private final IntBuffer stored;
+
+    RouteTable(CrossroadTopology topology) {
+        this(topology, null);
+    }
+
+    private RouteTable(CrossroadTopology topology, IntBuffer stored) {
+        this.topology = topology;
+        this.stored = stored;
+        int inputCount = 0;
+        int outputCount = 0;
+        for (int node = 0; node < topology.getNodeCount(); node++) {
+            if (topology.isInput(node)) {
+                inputCount++;
+            }
+            if (topology.isOutput(node)) {
+                outputCount++;
+            }
+        }
+        inputs = new int[inputCount];
+        outputs = new int[outputCount];
+        double[] inputWeights = new double[inputCount];
+        double[] outputWeights = new double[outputCount];
+        inputCount = 0;
+        outputCount = 0;
+        for (int node = 0; node < topology.getNodeCount(); node++) {
+            if (topology.isInput(node)) {
+                inputWeights[inputCount] = 1;
+                inputs[inputCount++] = node;
+            }
+            if (topology.isOutput(node)) {
+                outputWeights[outputCount] = topology.getNode(node).getProbability();
+                outputs[outputCount++] = node;
+            }
+        }
+        inputSampler = new AliasSampler(inputWeights);
+        outputSampler = new AliasSampler(outputWeights);
+
+        trees = new AtomicReferenceArray<>(inputs.length);
+        routes = new AtomicReferenceArray<>(inputs.length * outputs.length);
+    }
+
+    private int[] route(int routeId) {
+        int[] route = routes.get(routeId);
+        if (route == null) {
+            if (stored != null) {
+                route = storedRoute(routeId);
+            } else {
+                int input = routeId / outputs.length;
+                route = recreateRoute(inputs[input], outputs[routeId % outputs.length], tree(input));
+            }
+            routes.compareAndSet(routeId, null, route == null ? NO_ROUTE : route);
+            route = routes.get(routeId);
+        }
+        return route;
+    }
+
+    private int[] storedRoute(int routeId) {
+        int count = routes.length();
+        int length = stored.get(count + routeId);
+        if (length < 0) {
+            return null;
+        }
+        int start = 2 * count + stored.get(routeId);
+        int[] route = new int[length];
+        for (int i = 0; i < length; i++) {
+            route[i] = stored.get(start + i);
+        }
+        return route;
+    }
+
+    // edge through which the breadth first search from the input reached each node, -1 if it did not
+    private int[] tree(int input) {
+        int[] clew = trees.get(input);
+        if (clew == null) {
+            trees.compareAndSet(input, null, searchForRoutes(inputs[input]));
+            clew = trees.get(input);
+        }
+        return clew;
+    }
+
+    private int[] searchForRoutes(int inputNode) {
+        int[] clew = new int[topology.getNodeCount()];
+        int[] queue = new int[topology.getNodeCount()];
+        Arrays.fill(clew, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = inputNode;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int k = 0; k < topology.getOutgoingEdgeCount(node); k++) {
+                int edge = topology.getOutgoingEdge(node, k);
+                int end = topology.getEdgeEnd(edge);
+                if (end != inputNode && clew[end] == -1) {
+                    clew[end] = edge;
+                    queue[tail++] = end;
+                }
+            }
+        }
+        return clew;
+    }
+
+    private int[] recreateRoute(int inputNode, int outputNode, int[] clew) {
+        int length = 0;
+        for (int node = outputNode; node != inputNode; node = topology.getEdgeBegin(clew[node])) {
+            if (clew[node] == -1) {
+                return null;
+            }
+            length++;
+        }
+        int[] route = new int[length];
+        for (int node = outputNode; node != inputNode; node = topology.getEdgeBegin(clew[node])) {
+            route[--length] = clew[node];
+        }
+        return route;
+    }
+
+    public int sample(Random random) {
+        int input = inputSampler.sample(random);
+        int output = outputSampler.sample(random);
+        int routeId = input * outputs.length + output;
+        if (route(routeId) == NO_ROUTE) {
+            throw new RuntimeException("No route from node " + topology.getNode(inputs[input]).getId()
+                    + " to node " + topology.getNode(outputs[output]).getId());
+        }
+        return routeId;
+    }
+
+    public int getRouteCount() {
+        return routes.length();
+    }
+
+    public boolean hasRoute(int routeId) {
+        return route(routeId) != NO_ROUTE;
+    }
+
+    public int getRouteLength(int routeId) {
+        return route(routeId).length;
+    }
+
+    public int getRouteEdgeId(int routeId, int i) {
+        return route(routeId)[i];
+    }
+
+    public Edge getRouteEdge(int routeId, int i) {
+        return topology.getEdge(route(routeId)[i]);
+    }
+
+    public Node getRouteBegin(int routeId) {
+        return topology.getNode(inputs[routeId / outputs.length]);
+    }
+
+    public Node getRouteEnd(int routeId) {
+        return topology.getNode(outputs[routeId % outputs.length]);
+    }
+
+    // searches every route that was not needed yet
+    void writeTo(DataOutput out) throws IOException {
+        int count = routes.length();
+        int start = 0;
+        for (int routeId = 0; routeId < count; routeId++) {
+            out.writeInt(start);
+            start += route(routeId).length;
+        }
+        for (int routeId = 0; routeId < count; routeId++) {
+            out.writeInt(hasRoute(routeId) ? route(routeId).length : -1);
+        }
+        for (int routeId = 0; routeId < count; routeId++) {
+            for (int edge : route(routeId)) {
+                out.writeInt(edge);
+            }
+        }
+    }
+
+    // keeps a view of the buffer from its position on instead of copying the routes
+    static RouteTable readFrom(CrossroadTopology topology, ByteBuffer buffer) {
+        return new RouteTable(topology, buffer.slice().asIntBuffer());
+    }
+}
@@ -0,0 +1,130 @@
+package model.crossroad;
+
+import java.util.Arrays;
+
+/*
+ * Lights of a signal plan as a function of the simulation time. The plan is compiled into flat arrays once,
+ * a light is then looked up from the time alone: no state advances from step to step, so stepping costs
+ * nothing, and checkpoints, regions and parallel decisions all see the same lights without synchronisation.
+ * A lookup takes a few comparisons, one per stage of the signal it belongs to.
+ */
+public final class SignalController {
+    private static final int STAGES = 3;
+    private static final int GREEN = 0;
+    private static final int AMBER = 1;
+
+    private final SignalPlan plan;
+    // signal of the node every edge leads into, -1 for unsignalised ones
+    private final int[] edgeSignal;
+    // bit i is set when phase i gives the edge green
+    private final long[] edgePhases;
+    private final int[] cycle;
+    private final int[] offset;
+    // end of every stage within the cycle, STAGES per phase, the stages of signal s start at stageStart[s]
+    private final int[] stageStart;
+    private final int[] stageEnd;
+
+    public SignalController(CrossroadTopology topology, SignalPlan plan) {
+        this.plan = plan;
+        edgeSignal = new int[topology.getEdgeCount()];
+        Arrays.fill(edgeSignal, -1);
+        edgePhases = new long[topology.getEdgeCount()];
+        int signals = plan.signals.size();
+        cycle = new int[signals];
+        offset = new int[signals];
+        stageStart = new int[signals + 1];
+        for (int s = 0; s < signals; s++) {
+            stageStart[s + 1] = stageStart[s] + STAGES * plan.signals.get(s).phases.size();
+        }
+        stageEnd = new int[stageStart[signals]];
+
+        for (int s = 0; s < signals; s++) {
+            SignalPlan.Signal signal = plan.signals.get(s);
+            int node = topology.getNodeIndex(signal.node);
+            if (node < 0) {
+                throw new RuntimeException("Signal at unknown or unreachable node " + signal.node);
+            }
+            if (signal.phases.isEmpty() || signal.phases.size() > Long.SIZE) {
+                throw new RuntimeException("Signal at node " + signal.node + " needs 1 to " + Long.SIZE + " phases");
+            }
+            if (signal.amber < 0 || signal.allRed < 0) {
+                throw new RuntimeException("Signal at node " + signal.node + " has a negative intergreen");
+            }
+            int end = 0;
+            for (int p = 0; p < signal.phases.size(); p++) {
+                SignalPlan.Phase phase = signal.phases.get(p);
+                if (phase.green < 1) {
+                    throw new RuntimeException("Phase " + p + " of the signal at node " + signal.node + " has no green");
+                }
+                for (int from : phase.from) {
+                    int edge = incomingEdge(topology, node, from);
+                    if (edge < 0) {
+                        throw new RuntimeException("Signal at node " + signal.node + " has no approach from node " + from);
+                    }
+                    if (edgeSignal[edge] >= 0 && edgeSignal[edge] != s) {
+                        throw new RuntimeException("Node " + signal.node + " has more than one signal");
+                    }
+                    edgeSignal[edge] = s;
+                    edgePhases[edge] |= 1L << p;
+                }
+                int k = stageStart[s] + STAGES * p;
+                stageEnd[k] = end += phase.green;
+                stageEnd[k + 1] = end += signal.amber;
+                stageEnd[k + 2] = end += signal.allRed;
+            }
+            cycle[s] = end;
+            offset[s] = signal.offset;
+            for (int i = 0; i < topology.getIncomingEdgeCount(node); i++) {
+                int edge = topology.getIncomingEdge(node, i);
+                if (edgeSignal[edge] != s) {
+                    throw new RuntimeException("Approach from node " + topology.getNode(topology.getEdgeBegin(edge)).getId()
+                            + " to the signal at node " + signal.node + " is in no phase");
+                }
+            }
+        }
+    }
+
+    private static int incomingEdge(CrossroadTopology topology, int node, int fromId) {
+        for (int i = 0; i < topology.getIncomingEdgeCount(node); i++) {
+            int edge = topology.getIncomingEdge(node, i);
+            if (topology.getNode(topology.getEdgeBegin(edge)).getId() == fromId) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    public SignalPlan getPlan() {
+        return plan;
+    }
+
+    public boolean hasSignals() {
+        return cycle.length > 0;
+    }
+
+    public boolean isSignalised(int edge) {
+        return edgeSignal[edge] >= 0;
+    }
+
+    // light at the end of the edge, null when it leads into an unsignalised node
+    public TrafficLight.Color getLight(int edge, int time) {
+        int s = edgeSignal[edge];
+        if (s < 0) {
+            return null;
+        }
+        int t = Math.floorMod(time + offset[s], cycle[s]);
+        int k = stageStart[s];
+        while (t >= stageEnd[k]) {
+            k++;
+        }
+        int stage = k - stageStart[s];
+        if ((edgePhases[edge] & 1L << stage / STAGES) == 0) {
+            return TrafficLight.Color.RED;
+        }
+        switch (stage % STAGES) {
+            case GREEN: return TrafficLight.Color.GREEEN;
+            case AMBER: return TrafficLight.Color.YELLOW_BEFORE_RED;
+            default: return TrafficLight.Color.RED;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package model.crossroad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Fixed time plans of the signalised nodes, all times in simulation steps. Every phase gives green to the
+ * edges coming from its nodes, followed by amber and an all red clearance before the next phase starts, so
+ * the cycle of a signal is the sum of its greens and intergreens. Offsets shift the cycles against each other
+ * to coordinate neighbouring signals.
+ */
+public class SignalPlan {
+    // 3 s and 1 s at 20 steps per second
+    public static final int DEFAULT_AMBER = 60;
+    public static final int DEFAULT_ALL_RED = 20;
+
+    public static class Phase {
+        // ids of the nodes whose edges into the signalised node get green
+        public int[] from;
+        public int green;
+
+        public Phase(int[] from, int green) {
+            this.from = from;
+            this.green = green;
+        }
+    }
+
+    public static class Signal {
+        public int node;
+        public int offset;
+        public int amber = DEFAULT_AMBER;
+        public int allRed = DEFAULT_ALL_RED;
+        public List<Phase> phases = new ArrayList<>();
+
+        public Signal(int node) {
+            this.node = node;
+        }
+
+        public int getCycle() {
+            int cycle = 0;
+            for (Phase phase : phases) {
+                cycle += phase.green + amber + allRed;
+            }
+            return cycle;
+        }
+
+        public int getIntergreen() {
+            return amber + allRed;
+        }
+    }
+
+    public final List<Signal> signals = new ArrayList<>();
+
+    public boolean isEmpty() {
+        return signals.isEmpty();
+    }
+
+    // phases share their approach arrays with this plan, timings are copied
+    public SignalPlan copy() {
+        SignalPlan copy = new SignalPlan();
+        for (Signal signal : signals) {
+            Signal signalCopy = new Signal(signal.node);
+            signalCopy.offset = signal.offset;
+            signalCopy.amber = signal.amber;
+            signalCopy.allRed = signal.allRed;
+            for (Phase phase : signal.phases) {
+                signalCopy.phases.add(new Phase(phase.from, phase.green));
+            }
+            copy.signals.add(signalCopy);
+        }
+        return copy;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(signals.size());
+        for (Signal signal : signals) {
+            out.writeInt(signal.node);
+            out.writeInt(signal.offset);
+            out.writeInt(signal.amber);
+            out.writeInt(signal.allRed);
+            out.writeInt(signal.phases.size());
+            for (Phase phase : signal.phases) {
+                out.writeInt(phase.green);
+                out.writeInt(phase.from.length);
+                for (int node : phase.from) {
+                    out.writeInt(node);
+                }
+            }
+        }
+    }
+
+    public static SignalPlan readFrom(DataInput in) throws IOException {
+        SignalPlan plan = new SignalPlan();
+        for (int i = in.readInt(); i > 0; i--) {
+            Signal signal = new Signal(in.readInt());
+            signal.offset = in.readInt();
+            signal.amber = in.readInt();
+            signal.allRed = in.readInt();
+            for (int j = in.readInt(); j > 0; j--) {
+                int green = in.readInt();
+                int[] from = new int[in.readInt()];
+                for (int k = 0; k < from.length; k++) {
+                    from[k] = in.readInt();
+                }
+                signal.phases.add(new Phase(from, green));
+            }
+            plan.signals.add(signal);
+        }
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Signal signal : signals) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(signal.node).append(": offset ").append(signal.offset).append(" greens");
+            for (Phase phase : signal.phases) {
+                text.append(' ').append(phase.green);
+            }
+        }
+        return text.toString();
+    }
+}
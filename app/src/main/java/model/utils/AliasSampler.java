@@ -0,0 +1,52 @@
+package model.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+public final class AliasSampler {
+    private final double[] probability;
+    private final int[] alias;
+
+    public AliasSampler(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        double sum = 0;
+        for (double weight : weights) {
+            sum += weight;
+        }
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; i++) {
+            scaled[i] = sum > 0 ? weights[i] * n / sum : 1;
+        }
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            (scaled[i] < 1 ? small : large).add(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.removeLast();
+            int more = large.removeLast();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).add(more);
+        }
+        while (!large.isEmpty()) {
+            probability[large.removeLast()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probability[small.removeLast()] = 1;
+        }
+    }
+
+    public int sample(Random random) {
+        int i = random.nextInt(probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+}
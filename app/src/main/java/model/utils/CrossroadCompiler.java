@@ -0,0 +1,75 @@
+package model.utils;
+
+import model.crossroad.Crossroad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Compiled crossroad file, loaded through a read only memory mapping:
+ *   header:    MAGIC, VERSION
+ *   topology:  node count, edge count, ids, x, y, probabilities, input/output flags, outgoing edge offsets,
+ *              edge ends
+ *   signals:   byte length of the signal plan, the plan
+ *   routes:    start and length of every input to output route, the route edges
+ * Nodes and edges come in topology order, so the crossroad loads without searching for reachable nodes or
+ * sorting, and the routes do not have to be searched at all. Routes stay in the page cache, shared by all
+ * processes running on the same file.
+ */
+public class CrossroadCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(CrossroadCompiler.class);
+    static final int MAGIC = 0x535a4358;
+    static final int VERSION = 2;
+
+    public static void compile(String crossroadFile, Path path) {
+        long start = System.nanoTime();
+        Crossroad crossroad = CrossroadLoader.loadFromFile(crossroadFile);
+        write(crossroad, path);
+        logger.info("Compiled {} to {} in {} ms", crossroadFile, path, (System.nanoTime() - start) / 1000000);
+    }
+
+    public static void write(Crossroad crossroad, Path path) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            crossroad.writeTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Compiled crossroad writing error: " + path, e);
+        }
+    }
+
+    public static Crossroad load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new RuntimeException("Compiled crossroad too large to map: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new RuntimeException("Not a compiled crossroad: " + path);
+            }
+            return Crossroad.readFrom(buffer);
+        } catch (IOException e) {
+            throw new RuntimeException("Compiled crossroad reading error: " + path, e);
+        }
+    }
+
+    static boolean isCompiled(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            channel.read(magic, 0);
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            // missing files are reported by the JSON loader
+            return false;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package model.utils;
+
+import model.crossroad.Crossroad;
+import model.crossroad.Node;
+import model.crossroad.Position;
+import model.crossroad.SignalPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+public class CrossroadLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CrossroadLoader.class);
+
+    // JSON crossroads are read as a stream, compiled ones memory mapped
+    public static Crossroad loadFromFile(String fileName) {
+        Path path = Paths.get(fileName);
+        if (CrossroadCompiler.isCompiled(path)) {
+            return CrossroadCompiler.load(path);
+        }
+        Crossroad crossroad;
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            // the stream reader buffers by itself
+            JsonStreamReader json = new JsonStreamReader(reader);
+            Map<Integer, Node> idToNode = new HashMap<>();
+            Set<Node> inputNodes = new HashSet<>();
+            int[] edges = new int[0];
+            int edgeCount = 0;
+            SignalPlan signals = new SignalPlan();
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (name.equals("nodes") && !json.nextNull()) {
+                    loadNodes(json, inputNodes, idToNode);
+                } else if (name.equals("edges") && !json.nextNull()) {
+                    // edges may come before the nodes they connect
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        if (2 * edgeCount + 2 > edges.length) {
+                            edges = Arrays.copyOf(edges, Math.max(64, 2 * edges.length));
+                        }
+                        loadEdge(json, edges, edgeCount++);
+                    }
+                } else if (name.equals("signals") && !json.nextNull()) {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        signals.signals.add(loadSignal(json));
+                    }
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endDocument();
+            for (int i = 0; i < edgeCount; i++) {
+                Node startNode = idToNode.get(edges[2 * i]);
+                Node endNode = idToNode.get(edges[2 * i + 1]);
+                startNode.addConnection(endNode);
+            }
+            crossroad = new Crossroad(inputNodes);
+            crossroad.setSignalPlan(signals);
+        } catch (NoSuchFileException e) {
+            logger.error("Crossroad file not found", e);
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            logger.error("IO error while reading crossroad file", e);
+            throw new RuntimeException(e);
+        }
+        return crossroad;
+    }
+
+    private static void loadEdge(JsonStreamReader json, int[] edges, int edge) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("start")) {
+                edges[2 * edge] = json.nextInt();
+            } else if (name.equals("end")) {
+                edges[2 * edge + 1] = json.nextInt();
+            } else {
+                json.skipValue();
+            }
+        }
+    }
+
+    // {"node": 5, "offset": 0, "amber": 60, "allRed": 20, "phases": [{"from": [4, 6], "green": 400}, ...]}
+    private static SignalPlan.Signal loadSignal(JsonStreamReader json) throws IOException {
+        SignalPlan.Signal signal = new SignalPlan.Signal(-1);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "node": signal.node = json.nextInt(); break;
+                case "offset": signal.offset = json.nextInt(); break;
+                case "amber": signal.amber = json.nextInt(); break;
+                case "allRed": signal.allRed = json.nextInt(); break;
+                case "phases":
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        signal.phases.add(loadPhase(json));
+                    }
+                    break;
+                default: json.skipValue();
+            }
+        }
+        return signal;
+    }
+
+    private static SignalPlan.Phase loadPhase(JsonStreamReader json) throws IOException {
+        SignalPlan.Phase phase = new SignalPlan.Phase(new int[0], 0);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("green")) {
+                phase.green = json.nextInt();
+            } else if (name.equals("from")) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    phase.from = Arrays.copyOf(phase.from, phase.from.length + 1);
+                    phase.from[phase.from.length - 1] = json.nextInt();
+                }
+            } else {
+                json.skipValue();
+            }
+        }
+        return phase;
+    }
+
+    private static void loadNodes(JsonStreamReader json, Set<Node> inputNodes, Map<Integer, Node> nodes)
+            throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            int id = 0;
+            int x = 0;
+            int y = 0;
+            Float probability = null;
+            boolean input = false;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (json.nextNull()) {
+                    continue;
+                }
+                switch (name) {
+                    case "id": id = json.nextInt(); break;
+                    case "x": x = json.nextInt(); break;
+                    case "y": y = json.nextInt(); break;
+                    case "probability": probability = (float) json.nextDouble(); break;
+                    case "input": input = json.nextBoolean(); break;
+                    default: json.skipValue();
+                }
+            }
+
+            Node nodeObject;
+            if (probability != null) {
+                nodeObject = new Node(id, new Position(x, y), probability);
+            } else {
+                nodeObject = new Node(id, new Position(x, y));
+            }
+            nodes.put(id, nodeObject);
+
+            if (input) {
+                inputNodes.add(nodeObject);
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package model.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/*
+ * Pull parser reading JSON one token at a time through its own buffer, so large files are never held as a
+ * whole in memory. Callers walk the structure they expect and skip the values they do not know. Members must
+ * be separated by commas and closed by the bracket that opened them, anything else is rejected.
+ */
+class JsonStreamReader {
+    private static final int BUFFER = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER];
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int limit;
+    private long offset;
+    // per open object or array its closing bracket and whether a member was read, so the next needs a comma
+    private char[] closing = new char[16];
+    private boolean[] separated = new boolean[16];
+    private int depth;
+
+    JsonStreamReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+        open('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+        open(']');
+    }
+
+    private void open(char close) {
+        if (depth == closing.length) {
+            closing = Arrays.copyOf(closing, 2 * depth);
+            separated = Arrays.copyOf(separated, 2 * depth);
+        }
+        closing[depth] = close;
+        separated[depth++] = false;
+    }
+
+    // true while the object or array has another member, consumes the separating comma or the closing bracket
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') {
+            if (depth == 0 || c != closing[depth - 1]) {
+                throw error("Unexpected '" + (char) c + "'");
+            }
+            position++;
+            depth--;
+            return false;
+        }
+        if (depth == 0) {
+            throw error("Not in an object or array");
+        }
+        if (separated[depth - 1]) {
+            if (c != ',') {
+                throw error("Expected ','");
+            }
+            position++;
+        }
+        separated[depth - 1] = true;
+        return true;
+    }
+
+    // only white space may follow the top level value
+    void endDocument() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                throw error("Unexpected '" + c + "' after the end of the document");
+            }
+            position++;
+        }
+    }
+
+    String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    String nextString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'b': text.append('\b'); break;
+                    case 'f': text.append('\f'); break;
+                    case 'n': text.append('\n'); break;
+                    case 'r': text.append('\r'); break;
+                    case 't': text.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            code = code << 4 | Character.digit(read(), 16);
+                        }
+                        text.append((char) code);
+                        break;
+                    default: text.append((char) c);
+                }
+            } else {
+                text.append((char) c);
+            }
+        }
+    }
+
+    double nextDouble() throws IOException {
+        peek();
+        text.setLength(0);
+        while (true) {
+            int c = position < limit || fill() ? buffer[position] : -1;
+            if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                text.append((char) c);
+                position++;
+            } else {
+                break;
+            }
+        }
+        try {
+            return Double.parseDouble(text.toString());
+        } catch (NumberFormatException e) {
+            throw error("Expected a number");
+        }
+    }
+
+    int nextInt() throws IOException {
+        double value = nextDouble();
+        if (value != (int) value) {
+            throw error("Expected an integer");
+        }
+        return (int) value;
+    }
+
+    boolean nextBoolean() throws IOException {
+        if (peek() == 't') {
+            literal("true");
+            return true;
+        }
+        literal("false");
+        return false;
+    }
+
+    // null is read as an absent value
+    boolean nextNull() throws IOException {
+        if (peek() == 'n') {
+            literal("null");
+            return true;
+        }
+        return false;
+    }
+
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{' || c == '[') {
+            position++;
+            boolean object = c == '{';
+            open(object ? '}' : ']');
+            while (hasNext()) {
+                if (object) {
+                    nextName();
+                }
+                skipValue();
+            }
+        } else if (c == '"') {
+            nextString();
+        } else if (c == 't' || c == 'f') {
+            nextBoolean();
+        } else if (!nextNull()) {
+            nextDouble();
+        }
+    }
+
+    private void literal(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        position++;
+    }
+
+    // next character after white space, not consumed
+    private int peek() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+        throw error("Unexpected end of input");
+    }
+
+    private int read() throws IOException {
+        if (position >= limit && !fill()) {
+            throw error("Unexpected end of input");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(0, reader.read(buffer));
+        return limit > 0;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + (offset + position));
+    }
+}
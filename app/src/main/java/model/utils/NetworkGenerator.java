@@ -0,0 +1,268 @@
+package model.utils;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.WriterConfig;
+import model.crossroad.Crossroad;
+import model.crossroad.CrossroadTopology;
+import model.crossroad.SignalPlan;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/*
+ * Synthetic networks in the crossroad file format:
+ *   grid      two-way streets on a lattice
+ *   arterial  lattice of one-way streets in alternating directions with a two-way arterial every few lines
+ *   ring      concentric two-way ring roads joined by two-way radial roads
+ *   corridor  two-way arterial with signalised intersections every few spacings, crossed by one-way streets
+ *             in alternating directions, all signals starting with the same two phase plan
+ * Every street ending on the border gets a stub node, an input where traffic enters and an output with a
+ * probability weight where it leaves. Weights are 1, arterial outputs draw more traffic, and with a seed
+ * every weight is scaled by a random factor between 0.5 and 1.5.
+ */
+public class NetworkGenerator {
+    private static final int SPACING = 4;
+    private static final int ARTERIAL_INTERVAL = 5;
+    private static final float ARTERIAL_WEIGHT = 4;
+    // 20 s for the arterial and 10 s for the cross street at 20 steps per second
+    private static final int CORRIDOR_GREEN = 400;
+    private static final int CROSS_GREEN = 200;
+
+    private final JsonArray nodes = new JsonArray();
+    private final JsonArray edges = new JsonArray();
+    private final Random random;
+    private int nextId = 1;
+
+    private NetworkGenerator(Long seed) {
+        this.random = seed == null ? null : new Random(seed);
+    }
+
+    public static JsonObject grid(int width, int height, Long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        int[] lattice = generator.lattice(width, height);
+        generator.connectLattice(lattice, width, height, line -> true);
+        generator.addBorderStubs(lattice, width, height, line -> false);
+        return generator.toJson();
+    }
+
+    public static JsonObject arterial(int width, int height, Long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        int[] lattice = generator.lattice(width, height);
+        generator.connectLattice(lattice, width, height, NetworkGenerator::isArterial);
+        generator.addBorderStubs(lattice, width, height, NetworkGenerator::isArterial);
+        return generator.toJson();
+    }
+
+    public static JsonObject ring(int rings, int spokes, Long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        int[] ids = new int[rings * spokes];
+        for (int r = 0; r < rings; r++) {
+            // nodes on the innermost ring are about one spacing apart
+            double radius = SPACING * (r + Math.max(1, spokes / Math.PI / 2));
+            for (int s = 0; s < spokes; s++) {
+                double angle = 2 * Math.PI * s / spokes;
+                ids[r * spokes + s] = generator.addNode(radius * Math.cos(angle), radius * Math.sin(angle));
+            }
+        }
+        for (int r = 0; r < rings; r++) {
+            for (int s = 0; s < spokes; s++) {
+                int id = ids[r * spokes + s];
+                generator.addRoad(id, ids[r * spokes + (s + 1) % spokes]);
+                if (r + 1 < rings) {
+                    generator.addRoad(id, ids[(r + 1) * spokes + s]);
+                }
+            }
+        }
+        double outer = SPACING * (rings + Math.max(1, spokes / Math.PI / 2));
+        for (int s = 0; s < spokes; s++) {
+            double angle = 2 * Math.PI * s / spokes;
+            generator.addStub(ids[(rings - 1) * spokes + s], outer * Math.cos(angle), outer * Math.sin(angle), s % 2 == 0, 1);
+        }
+        return generator.toJson();
+    }
+
+    public static JsonObject corridor(int intersections, int block, Long seed) {
+        NetworkGenerator generator = new NetworkGenerator(seed);
+        int length = block * SPACING;
+        int[] ids = new int[intersections];
+        for (int i = 0; i < intersections; i++) {
+            ids[i] = generator.addNode(i * length, 0);
+            if (i > 0) {
+                generator.addRoad(ids[i - 1], ids[i]);
+            }
+        }
+        int end = (intersections - 1) * length;
+        int westInput = generator.addStub(ids[0], -2 * SPACING, -1, true, ARTERIAL_WEIGHT);
+        generator.addStub(ids[0], -2 * SPACING, 1, false, ARTERIAL_WEIGHT);
+        int eastInput = generator.addStub(ids[intersections - 1], end + 2 * SPACING, 1, true, ARTERIAL_WEIGHT);
+        generator.addStub(ids[intersections - 1], end + 2 * SPACING, -1, false, ARTERIAL_WEIGHT);
+
+        SignalPlan plan = new SignalPlan();
+        for (int i = 0; i < intersections; i++) {
+            // even cross streets run towards increasing y
+            int side = i % 2 == 0 ? -1 : 1;
+            int crossInput = generator.addStub(ids[i], i * length, 2 * side * SPACING, true, 1);
+            generator.addStub(ids[i], i * length, -2 * side * SPACING, false, 1);
+            SignalPlan.Signal signal = new SignalPlan.Signal(ids[i]);
+            int west = i > 0 ? ids[i - 1] : westInput;
+            int east = i + 1 < intersections ? ids[i + 1] : eastInput;
+            signal.phases.add(new SignalPlan.Phase(new int[]{west, east}, CORRIDOR_GREEN));
+            signal.phases.add(new SignalPlan.Phase(new int[]{crossInput}, CROSS_GREEN));
+            plan.signals.add(signal);
+        }
+        return generator.toJson().add("signals", signals(plan));
+    }
+
+    // a loaded crossroad back in the file format, e.g. a compiled one, nodes no route reaches are left out
+    public static JsonObject network(Crossroad crossroad) {
+        CrossroadTopology topology = crossroad.getTopology();
+        JsonArray nodes = new JsonArray();
+        for (int i = 0; i < topology.getNodeCount(); i++) {
+            JsonObject node = Json.object().add("id", topology.getNode(i).getId())
+                    .add("x", topology.getNodeX(i)).add("y", topology.getNodeY(i));
+            if (topology.isInput(i)) {
+                node.add("input", true);
+            }
+            if (topology.getNode(i).getProbability() > 0) {
+                node.add("probability", topology.getNode(i).getProbability());
+            }
+            nodes.add(node);
+        }
+        JsonArray edges = new JsonArray();
+        for (int e = 0; e < topology.getEdgeCount(); e++) {
+            edges.add(Json.object().add("start", topology.getNode(topology.getEdgeBegin(e)).getId())
+                    .add("end", topology.getNode(topology.getEdgeEnd(e)).getId()));
+        }
+        JsonObject network = Json.object().add("nodes", nodes).add("edges", edges);
+        SignalPlan plan = crossroad.getSignalController().getPlan();
+        if (!plan.isEmpty()) {
+            network.add("signals", signals(plan));
+        }
+        return network;
+    }
+
+    // the "signals" member of a crossroad file
+    public static JsonArray signals(SignalPlan plan) {
+        JsonArray signals = new JsonArray();
+        for (SignalPlan.Signal signal : plan.signals) {
+            JsonArray phases = new JsonArray();
+            for (SignalPlan.Phase phase : signal.phases) {
+                JsonArray from = new JsonArray();
+                for (int node : phase.from) {
+                    from.add(node);
+                }
+                phases.add(Json.object().add("from", from).add("green", phase.green));
+            }
+            signals.add(Json.object().add("node", signal.node).add("offset", signal.offset)
+                    .add("amber", signal.amber).add("allRed", signal.allRed).add("phases", phases));
+        }
+        return signals;
+    }
+
+    public static void write(JsonObject network, Path path) {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            network.writeTo(writer, WriterConfig.MINIMAL);
+        } catch (IOException e) {
+            throw new RuntimeException("Network file writing error: " + path, e);
+        }
+    }
+
+    private static boolean isArterial(int line) {
+        return line % ARTERIAL_INTERVAL == 0;
+    }
+
+    private int[] lattice(int width, int height) {
+        int[] ids = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                ids[y * width + x] = addNode(x * SPACING, y * SPACING);
+            }
+        }
+        return ids;
+    }
+
+    // one-way lines alternate direction, even ones run towards increasing coordinates
+    private void connectLattice(int[] ids, int width, int height, IntPredicate twoWay) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int id = ids[y * width + x];
+                if (x + 1 < width) {
+                    connect(id, ids[y * width + x + 1], twoWay.test(y), y % 2 == 0);
+                }
+                if (y + 1 < height) {
+                    connect(id, ids[(y + 1) * width + x], twoWay.test(x), x % 2 == 0);
+                }
+            }
+        }
+    }
+
+    private void connect(int id, int next, boolean twoWay, boolean forward) {
+        if (twoWay) {
+            addRoad(id, next);
+        } else if (forward) {
+            addEdge(id, next);
+        } else {
+            addEdge(next, id);
+        }
+    }
+
+    // lines with an even index take traffic in at their start, matching the direction of one-way lines
+    private void addBorderStubs(int[] ids, int width, int height, IntPredicate arterial) {
+        for (int i = 0; i < Math.max(width, height); i++) {
+            if (i < width) {
+                float weight = arterial.test(i) ? ARTERIAL_WEIGHT : 1;
+                addStub(ids[i], i * SPACING, -SPACING, i % 2 == 0, weight);
+                addStub(ids[(height - 1) * width + i], i * SPACING, height * SPACING, i % 2 != 0, weight);
+            }
+            if (i < height) {
+                float weight = arterial.test(i) ? ARTERIAL_WEIGHT : 1;
+                addStub(ids[i * width], -SPACING, i * SPACING, i % 2 == 0, weight);
+                addStub(ids[i * width + width - 1], width * SPACING, i * SPACING, i % 2 != 0, weight);
+            }
+        }
+    }
+
+    private int addStub(int borderId, double x, double y, boolean input, float weight) {
+        JsonObject node = node(x, y);
+        int id = node.get("id").asInt();
+        if (input) {
+            node.add("input", true);
+            addEdge(id, borderId);
+        } else {
+            node.add("probability", random == null ? weight : weight * (0.5f + random.nextFloat()));
+            addEdge(borderId, id);
+        }
+        return id;
+    }
+
+    private int addNode(double x, double y) {
+        return node(x, y).get("id").asInt();
+    }
+
+    private JsonObject node(double x, double y) {
+        JsonObject node = Json.object().add("id", nextId++).add("x", (int) Math.round(x)).add("y", (int) Math.round(y));
+        nodes.add(node);
+        return node;
+    }
+
+    private void addRoad(int a, int b) {
+        addEdge(a, b);
+        addEdge(b, a);
+    }
+
+    private void addEdge(int start, int end) {
+        edges.add(Json.object().add("start", start).add("end", end));
+    }
+
+    private JsonObject toJson() {
+        return Json.object().add("nodes", nodes).add("edges", edges);
+    }
+}
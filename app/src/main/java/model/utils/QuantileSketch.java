@@ -0,0 +1,142 @@
+package model.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// logarithmic buckets with a fixed relative accuracy, values below MIN_VALUE are counted as zeros
+public final class QuantileSketch {
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_VALUE = 1e-6;
+    private static final int MIN_BIN = (int) Math.ceil(Math.log(MIN_VALUE) / LOG_GAMMA);
+    private static final int MAX_BINS = 2048;
+    private static final int INITIAL_BINS = 32;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+    }
+
+    public QuantileSketch(QuantileSketch other) {
+        this.counts = other.counts.clone();
+        this.offset = other.offset;
+        this.zeroCount = other.zeroCount;
+        this.count = other.count;
+        this.min = other.min;
+        this.max = other.max;
+    }
+
+    public void add(double value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value < MIN_VALUE) {
+            zeroCount++;
+            return;
+        }
+        int bin = Math.min((int) Math.ceil(Math.log(value) / LOG_GAMMA) - MIN_BIN, MAX_BINS - 1);
+        cover(bin, bin);
+        counts[bin - offset]++;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (other.counts.length == 0) {
+            return;
+        }
+        cover(other.offset, other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+    }
+
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) {
+            return min;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double value = 2 * Math.pow(GAMMA, offset + i + MIN_BIN) / (GAMMA + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(offset);
+        out.writeInt(counts.length);
+        for (long c : counts) {
+            out.writeLong(c);
+        }
+    }
+
+    public static QuantileSketch readFrom(DataInput in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        sketch.offset = in.readInt();
+        sketch.counts = new long[in.readInt()];
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    private void cover(int from, int to) {
+        if (counts.length == 0) {
+            counts = new long[Math.max(INITIAL_BINS, to - from + 1)];
+            offset = Math.max(0, Math.min(from, MAX_BINS - counts.length));
+            return;
+        }
+        int low = Math.min(from, offset);
+        int high = Math.max(to, offset + counts.length - 1);
+        if (low == offset && high == offset + counts.length - 1) {
+            return;
+        }
+        int length = Math.min(MAX_BINS, Math.max(2 * counts.length, high - low + 1));
+        int start = low < offset ? Math.max(0, high - length + 1) : low;
+        start = Math.min(start, MAX_BINS - length);
+        long[] resized = new long[length];
+        System.arraycopy(counts, 0, resized, offset - start, counts.length);
+        counts = resized;
+        offset = start;
+    }
+}
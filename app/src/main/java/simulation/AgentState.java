@@ -0,0 +1,308 @@
+package simulation;
+
+import model.agent.Agent;
+import model.agent.Decision;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+
+import java.util.Comparator;
+
+public class AgentState {
+    public static class AgentPosition {
+        public Edge edge;
+        public float edgePosition;
+
+        @Override
+        public String toString() {
+            return "AgentPosition [edge=" + edge + ", edgePosition=" + edgePosition + "]";
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((edge == null) ? 0 : edge.hashCode());
+            result = prime * result + Float.floatToIntBits(edgePosition);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            AgentPosition other = (AgentPosition) obj;
+            if (edge == null) {
+                if (other.edge != null)
+                    return false;
+            } else if (!edge.equals(other.edge))
+                return false;
+            if (Float.floatToIntBits(edgePosition) != Float.floatToIntBits(other.edgePosition))
+                return false;
+            return true;
+        }
+    }
+
+    public static class InFrontOfComparator implements Comparator<AgentState> {
+        @Override
+        public int compare(AgentState o1, AgentState o2) {
+            float position1 = o1.getTailPosition().edgePosition;
+            float position2 = o2.getTailPosition().edgePosition;
+            int value;
+            if (position1 < position2) {
+                value = -1;
+            } else if (position1 > position2) {
+                value = 1;
+            } else {
+                value = 0;
+            }
+            return value;
+        }
+    }
+
+    private Agent agent;
+    private AgentStore store;
+    private int slot;
+    private AgentPosition headPosition = new AgentPosition();
+    private AgentPosition tailPosition = new AgentPosition();
+    private CrossroadState crossroadState;
+
+    public AgentState(Agent agent, Node startNode, AgentStore store) {
+        this.agent = agent;
+        this.store = store;
+        Edge startEdge = startNode.getOutgoingEdges().iterator().next();
+        this.slot = store.allocate(agent, startEdge);
+        updatePositions();
+    }
+
+    // rebuilds a state from its occupied edges, head edge first
+    AgentState(Agent agent, Edge[] occupiedEdges, float edgePosition, float velocity, AgentStore store) {
+        this.agent = agent;
+        this.store = store;
+        this.slot = store.allocate(agent, occupiedEdges[occupiedEdges.length - 1]);
+        for (int i = occupiedEdges.length - 2; i >= 0; i--) {
+            store.pushHeadEdge(slot, occupiedEdges[i]);
+        }
+        store.setEdgePosition(slot, edgePosition);
+        store.setVelocity(slot, velocity);
+        updatePositions();
+    }
+
+    // both positions are owned by this state and updated in place on every move
+    public AgentPosition getHeadPosition() {
+        return headPosition;
+    }
+
+    public AgentPosition getTailPosition() {
+        return tailPosition;
+    }
+
+    private void updatePositions() {
+        headPosition.edge = store.getOccupiedEdge(slot, 0);
+        headPosition.edgePosition = store.getEdgePosition(slot);
+        float carLength = store.getLength(slot);
+        carLength -= headPosition.edgePosition;
+        int edgesOccupied = store.getOccupiedEdgeCount(slot);
+        Edge edge = headPosition.edge;
+        float edgePosition = -carLength;
+        int i = 1;
+        while (carLength > 0) {
+            if (i == edgesOccupied) {
+                edgePosition = 0;
+                break;
+            }
+            edge = store.getOccupiedEdge(slot, i++);
+            carLength -= edge.length();
+            edgePosition = -carLength;
+        }
+        tailPosition.edge = edge;
+        tailPosition.edgePosition = edgePosition;
+        store.setTail(slot, edge, edgePosition);
+    }
+
+    public float getVelocity() {
+        return store.getVelocity(slot);
+    }
+
+    @Override
+    public String toString() {
+        return "Head: " + getHeadPosition().toString() + ", Tail: " + getTailPosition().toString() + ", Vel: " + getVelocity();
+    }
+
+    void setVelocity(float velocity) {
+        store.setVelocity(slot, velocity);
+    }
+
+    void accelerate(Decision.Acceleration decision) {
+        store.accelerate(slot, decision);
+    }
+
+    void move(float distance, Decision decision) {
+        AgentPosition tailPosition = getTailPosition();
+        float length = tailPosition.edge.length();
+        if (length - tailPosition.edgePosition < distance) {
+            if (store.getOccupiedEdgeCount(slot) > 1) {
+                store.removeTailEdge(slot);
+            } else {
+                shorten(store.getLength(slot));
+            }
+        }
+        float edgePosition = store.getEdgePosition(slot);
+        Edge currentEdge = store.getOccupiedEdge(slot, 0);
+        float edgeDistanceLeft = currentEdge.length() - edgePosition;
+        if (distance > edgeDistanceLeft) {
+            if (decision.nextEdge != null) {
+                store.pushHeadEdge(slot, decision.nextEdge);
+                store.setEdgePosition(slot, distance - edgeDistanceLeft);
+            } else {
+                float edgeLength = currentEdge.length();
+                float deficit = distance - (edgeLength - edgePosition);
+                shorten(deficit);
+                store.setEdgePosition(slot, edgeLength);
+            }
+        } else {
+            store.setEdgePosition(slot, edgePosition + distance);
+        }
+        updatePositions();
+    }
+
+    // the part of the car that drove past the end of its route is gone
+    private void shorten(float deficit) {
+        store.setLength(slot, Math.max(store.getLength(slot) - deficit, 0));
+    }
+
+    public boolean arrived() {
+        return store.getLength(slot) == 0;
+    }
+
+    float getLength() {
+        return store.getLength(slot);
+    }
+
+    // the driver and car parameters of the decisions, read from the columns of the store
+    public float getDeceleration() {
+        return store.getDeceleration(slot);
+    }
+
+    public float getSafeDistance() {
+        return store.getSafeDistance(slot);
+    }
+
+    public float getSafeDistanceWhileStaying() {
+        return store.getSafeDistanceWhileStaying(slot);
+    }
+
+    public float getMadnessFactor() {
+        return store.getMadnessFactor(slot);
+    }
+
+    public int getTimeout() {
+        return store.getTimeout(slot);
+    }
+
+    public int getLastBrakeTime() {
+        return store.getLastBrakeTime(slot);
+    }
+
+    public void setLastBrakeTime(int time) {
+        store.setLastBrakeTime(slot, time);
+    }
+
+    void release() {
+        store.release(slot);
+    }
+
+    public int getOccupiedNodeCount() {
+        return store.getOccupiedEdgeCount(slot) - 1;
+    }
+
+    public Node getOccupiedNode(int i) {
+        return store.getOccupiedEdge(slot, i + 1).getEnd();
+    }
+
+    public boolean occupiesNode(Node node) {
+        for (int i = 0; i < getOccupiedNodeCount(); i++) {
+            if (store.getOccupiedNodeIndex(slot, i) == node.getIndex()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getOccupiedEdgeCount() {
+        return store.getOccupiedEdgeCount(slot);
+    }
+
+    Edge getOccupiedEdge(int i) {
+        return store.getOccupiedEdge(slot, i);
+    }
+
+    CrossroadState getCrossroadState() {
+        return crossroadState;
+    }
+
+    void setCrossroadState(CrossroadState crossroadState) {
+        this.crossroadState = crossroadState;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    public boolean collidesWith(AgentState other) {
+        return checkCollisionOnNodes(other) || checkCollisionOnEdges(other) || checkIfRearEnded(other);
+    }
+
+    private boolean checkIfRearEnded(AgentState other) {
+        return rearEnded(this, other) || rearEnded(other, this);
+    }
+
+    private boolean rearEnded(AgentState a, AgentState b) {
+        Edge aFaceEdge = a.getOccupiedEdge(0);
+        Edge bTailEdge = b.getOccupiedEdge(b.getOccupiedEdgeCount() - 1);
+        if (!aFaceEdge.equals(bTailEdge)) {
+            return false;
+        }
+        Edge bFaceEdge = b.getOccupiedEdge(0);
+        if (a.getHeadPosition().edgePosition < b.getTailPosition().edgePosition) {
+            return false;
+        }
+        return !aFaceEdge.equals(bFaceEdge) || a.getHeadPosition().edgePosition < b.getHeadPosition().edgePosition;
+    }
+
+    private boolean checkCollisionOnEdges(AgentState other) {
+        int count1 = this.getOccupiedEdgeCount();
+        int count2 = other.getOccupiedEdgeCount();
+        if (count1 < 3 || count2 < 3) {
+            return false;
+        }
+        for (int i = 1; i < count1 - 1; i++) {
+            int edgeId = store.getOccupiedEdgeId(slot, i);
+            for (int j = 1; j < count2 - 1; j++) {
+                if (edgeId == other.store.getOccupiedEdgeId(other.slot, j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean checkCollisionOnNodes(AgentState other) {
+        for (int i = 0; i < getOccupiedNodeCount(); i++) {
+            int node = store.getOccupiedNodeIndex(slot, i);
+            for (int j = 0; j < other.getOccupiedNodeCount(); j++) {
+                if (node == other.store.getOccupiedNodeIndex(other.slot, j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Agent getAgent() {
+        return agent;
+    }
+}
@@ -0,0 +1,283 @@
+package simulation;
+
+import model.agent.Agent;
+import model.agent.Car;
+import model.agent.Decision;
+import model.agent.Driver;
+import model.crossroad.Crossroad;
+import model.crossroad.Edge;
+
+import java.util.Arrays;
+
+public class AgentStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_EDGES_STRIDE = 4;
+
+    private final Crossroad crossroad;
+    private int capacity;
+    private int slotLimit;
+    private int liveCount;
+    private int[] freeSlots;
+    private int freeCount;
+
+    private boolean[] live;
+    private float[] edgePosition;
+    private int[] tailEdge;
+    private float[] tailEdgePosition;
+    private float[] velocity;
+    private float[] length;
+    private float[] acceleration;
+    private float[] deceleration;
+    private float[] maxVelocity;
+    private float[] safeDistance;
+    private float[] safeDistanceWhileStaying;
+    private float[] madnessFactor;
+    private int[] timeout;
+    private int[] lastBrakeTime;
+
+    // occupied edges of a slot form a ring of edgesStride ids, index 0 being the head edge
+    private int edgesStride;
+    private int[] occupiedEdges;
+    private int[] occupiedStart;
+    private int[] occupiedCount;
+
+    public AgentStore(Crossroad crossroad) {
+        this.crossroad = crossroad;
+        this.capacity = INITIAL_CAPACITY;
+        this.edgesStride = INITIAL_EDGES_STRIDE;
+        this.freeSlots = new int[capacity];
+        this.live = new boolean[capacity];
+        this.edgePosition = new float[capacity];
+        this.tailEdge = new int[capacity];
+        this.tailEdgePosition = new float[capacity];
+        this.velocity = new float[capacity];
+        this.length = new float[capacity];
+        this.acceleration = new float[capacity];
+        this.deceleration = new float[capacity];
+        this.maxVelocity = new float[capacity];
+        this.safeDistance = new float[capacity];
+        this.safeDistanceWhileStaying = new float[capacity];
+        this.madnessFactor = new float[capacity];
+        this.timeout = new int[capacity];
+        this.lastBrakeTime = new int[capacity];
+        this.occupiedEdges = new int[capacity * edgesStride];
+        this.occupiedStart = new int[capacity];
+        this.occupiedCount = new int[capacity];
+    }
+
+    // the slot takes over the car and driver of the agent, from then on the columns are their only live copy
+    public int allocate(Agent agent, Edge startEdge) {
+        Car car = agent.getCar();
+        Driver driver = agent.getDriver();
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotLimit == capacity) {
+                grow();
+            }
+            slot = slotLimit++;
+        }
+        live[slot] = true;
+        edgePosition[slot] = 0;
+        tailEdge[slot] = startEdge.getId();
+        tailEdgePosition[slot] = 0;
+        velocity[slot] = 0;
+        length[slot] = car.getLength();
+        acceleration[slot] = car.getAccelerationSpeed();
+        deceleration[slot] = car.getDecelerationSpeed();
+        maxVelocity[slot] = car.getMaxVelocity();
+        safeDistance[slot] = driver.getSafeDistanceToNextCar();
+        safeDistanceWhileStaying[slot] = driver.getSafeDistanceToNextStayingCar();
+        madnessFactor[slot] = driver.getMadnessFactor();
+        timeout[slot] = driver.getTimeout();
+        lastBrakeTime[slot] = driver.getLastBrakeTime();
+        occupiedStart[slot] = 0;
+        occupiedCount[slot] = 1;
+        occupiedEdges[slot * edgesStride] = startEdge.getId();
+        liveCount++;
+        return slot;
+    }
+
+    public void release(int slot) {
+        live[slot] = false;
+        freeSlots[freeCount++] = slot;
+        liveCount--;
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public int getSlotLimit() {
+        return slotLimit;
+    }
+
+    public boolean isLive(int slot) {
+        return live[slot];
+    }
+
+    public float getEdgePosition(int slot) {
+        return edgePosition[slot];
+    }
+
+    void setEdgePosition(int slot, float position) {
+        edgePosition[slot] = position;
+    }
+
+    public int getTailEdgeId(int slot) {
+        return tailEdge[slot];
+    }
+
+    public float getTailEdgePosition(int slot) {
+        return tailEdgePosition[slot];
+    }
+
+    void setTail(int slot, Edge edge, float position) {
+        tailEdge[slot] = edge.getId();
+        tailEdgePosition[slot] = position;
+    }
+
+    public float getVelocity(int slot) {
+        return velocity[slot];
+    }
+
+    void setVelocity(int slot, float value) {
+        velocity[slot] = value;
+    }
+
+    public float getLength(int slot) {
+        return length[slot];
+    }
+
+    void setLength(int slot, float value) {
+        length[slot] = value;
+    }
+
+    public float getAcceleration(int slot) {
+        return acceleration[slot];
+    }
+
+    public float getDeceleration(int slot) {
+        return deceleration[slot];
+    }
+
+    public float getMaxVelocity(int slot) {
+        return maxVelocity[slot];
+    }
+
+    public float getSafeDistance(int slot) {
+        return safeDistance[slot];
+    }
+
+    public float getSafeDistanceWhileStaying(int slot) {
+        return safeDistanceWhileStaying[slot];
+    }
+
+    public float getMadnessFactor(int slot) {
+        return madnessFactor[slot];
+    }
+
+    public int getTimeout(int slot) {
+        return timeout[slot];
+    }
+
+    public int getLastBrakeTime(int slot) {
+        return lastBrakeTime[slot];
+    }
+
+    void setLastBrakeTime(int slot, int time) {
+        lastBrakeTime[slot] = time;
+    }
+
+    // applies the decision to the velocity, kept between 0 and the top speed of the car
+    void accelerate(int slot, Decision.Acceleration decision) {
+        float newVelocity = velocity[slot];
+        if (decision == Decision.Acceleration.ACCELERATE) {
+            newVelocity += acceleration[slot];
+        } else if (decision == Decision.Acceleration.BRAKE) {
+            newVelocity -= deceleration[slot];
+        }
+        if (newVelocity > maxVelocity[slot]) {
+            newVelocity = maxVelocity[slot];
+        }
+        if (newVelocity < 0) {
+            newVelocity = 0;
+        }
+        velocity[slot] = newVelocity;
+    }
+
+    public int getHeadEdgeId(int slot) {
+        return getOccupiedEdgeId(slot, 0);
+    }
+
+    public int getOccupiedEdgeCount(int slot) {
+        return occupiedCount[slot];
+    }
+
+    public int getOccupiedEdgeId(int slot, int i) {
+        return occupiedEdges[slot * edgesStride + ((occupiedStart[slot] + i) & (edgesStride - 1))];
+    }
+
+    public Edge getOccupiedEdge(int slot, int i) {
+        return crossroad.getEdge(getOccupiedEdgeId(slot, i));
+    }
+
+    public int getOccupiedNodeIndex(int slot, int i) {
+        return crossroad.getTopology().getEdgeEnd(getOccupiedEdgeId(slot, i + 1));
+    }
+
+    void pushHeadEdge(int slot, Edge edge) {
+        if (occupiedCount[slot] == edgesStride) {
+            widenEdges();
+        }
+        int start = (occupiedStart[slot] - 1) & (edgesStride - 1);
+        occupiedStart[slot] = start;
+        occupiedEdges[slot * edgesStride + start] = edge.getId();
+        occupiedCount[slot]++;
+    }
+
+    // a full ring is widened by the next pushHeadEdge, which rewrites the rings of all slots
+    boolean isEdgeRingFull(int slot) {
+        return occupiedCount[slot] == edgesStride;
+    }
+
+    void removeTailEdge(int slot) {
+        occupiedCount[slot]--;
+    }
+
+    private void grow() {
+        capacity *= 2;
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        live = Arrays.copyOf(live, capacity);
+        edgePosition = Arrays.copyOf(edgePosition, capacity);
+        tailEdge = Arrays.copyOf(tailEdge, capacity);
+        tailEdgePosition = Arrays.copyOf(tailEdgePosition, capacity);
+        velocity = Arrays.copyOf(velocity, capacity);
+        length = Arrays.copyOf(length, capacity);
+        acceleration = Arrays.copyOf(acceleration, capacity);
+        deceleration = Arrays.copyOf(deceleration, capacity);
+        maxVelocity = Arrays.copyOf(maxVelocity, capacity);
+        safeDistance = Arrays.copyOf(safeDistance, capacity);
+        safeDistanceWhileStaying = Arrays.copyOf(safeDistanceWhileStaying, capacity);
+        madnessFactor = Arrays.copyOf(madnessFactor, capacity);
+        timeout = Arrays.copyOf(timeout, capacity);
+        lastBrakeTime = Arrays.copyOf(lastBrakeTime, capacity);
+        occupiedEdges = Arrays.copyOf(occupiedEdges, capacity * edgesStride);
+        occupiedStart = Arrays.copyOf(occupiedStart, capacity);
+        occupiedCount = Arrays.copyOf(occupiedCount, capacity);
+    }
+
+    void widenEdges() {
+        int stride = edgesStride * 2;
+        int[] edges = new int[capacity * stride];
+        for (int slot = 0; slot < slotLimit; slot++) {
+            for (int i = 0; i < occupiedCount[slot]; i++) {
+                edges[slot * stride + i] = getOccupiedEdgeId(slot, i);
+            }
+            occupiedStart[slot] = 0;
+        }
+        occupiedEdges = edges;
+        edgesStride = stride;
+    }
+}
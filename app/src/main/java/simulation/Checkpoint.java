@@ -0,0 +1,64 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// serialized simulator state, restored with Simulator.restore into any number of independent branches
+public class Checkpoint {
+    static final int MAGIC = 0x535a4350;
+    static final int VERSION = 2;
+
+    private final byte[] data;
+
+    Checkpoint(byte[] data) {
+        this.data = data;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+    public int getTime() {
+        return ByteBuffer.wrap(data, 12, 4).getInt();
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    public void save(Path path) {
+        try {
+            Files.write(path, data);
+        } catch (IOException e) {
+            throw new RuntimeException("Checkpoint writing error: " + path, e);
+        }
+    }
+
+    // length prefixed, e.g. to ship the state to another process
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    public static Checkpoint readFrom(DataInput in) throws IOException {
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new Checkpoint(data);
+    }
+
+    public static Checkpoint load(Path path) {
+        try {
+            byte[] data = Files.readAllBytes(path);
+            if (data.length < 16 || ByteBuffer.wrap(data).getInt() != MAGIC) {
+                throw new RuntimeException("Not a checkpoint file: " + path);
+            }
+            return new Checkpoint(data);
+        } catch (IOException e) {
+            throw new RuntimeException("Checkpoint reading error: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package simulation;
+
+import model.crossroad.Edge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+public class CollisionTracker {
+    private static final Logger logger = LoggerFactory.getLogger(CollisionTracker.class);
+    // colliding pairs of agent ids, each pair counts once however long the agents overlap
+    private Set<Long> previousCollisions = new HashSet<>();
+    private int countedFrom;
+    private boolean printCollisions;
+    // agents by occupied edge id and node index, bucket k holds members[start[k]] .. members[start[k + 1] - 1]
+    private int[] edgeStart = new int[1];
+    private int[] edgeMembers = new int[0];
+    private int[] nodeStart = new int[1];
+    private int[] nodeMembers = new int[0];
+    private int maxEdge;
+    private int maxNode;
+
+    public CollisionTracker(boolean printCollisions) {
+        this.printCollisions = printCollisions;
+    }
+
+    public void detectCollisions(List<AgentState> agents) {
+        fillBuckets(agents);
+        for (int edge = 0; edge <= maxEdge; edge++) {
+            checkBucket(agents, edgeMembers, edgeStart[edge], edgeStart[edge + 1], edge, -1);
+        }
+        for (int node = 0; node <= maxNode; node++) {
+            checkBucket(agents, nodeMembers, nodeStart[node], nodeStart[node + 1], Integer.MAX_VALUE, node);
+        }
+    }
+
+    private void fillBuckets(List<AgentState> agents) {
+        maxEdge = -1;
+        maxNode = -1;
+        int edgeEntries = 0;
+        int nodeEntries = 0;
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            for (int j = 0; j < state.getOccupiedEdgeCount(); j++) {
+                Edge edge = state.getOccupiedEdge(j);
+                maxEdge = Math.max(maxEdge, edge.getId());
+                edgeEntries++;
+                if (j > 0) {
+                    maxNode = Math.max(maxNode, edge.getEnd().getIndex());
+                    nodeEntries++;
+                }
+            }
+        }
+        if (edgeStart.length < maxEdge + 2) {
+            edgeStart = new int[2 * (maxEdge + 2)];
+        }
+        if (nodeStart.length < maxNode + 2) {
+            nodeStart = new int[2 * (maxNode + 2)];
+        }
+        if (edgeMembers.length < edgeEntries) {
+            edgeMembers = new int[2 * edgeEntries];
+        }
+        if (nodeMembers.length < nodeEntries) {
+            nodeMembers = new int[2 * nodeEntries];
+        }
+        Arrays.fill(edgeStart, 0, maxEdge + 2, 0);
+        Arrays.fill(nodeStart, 0, maxNode + 2, 0);
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            for (int j = 0; j < state.getOccupiedEdgeCount(); j++) {
+                Edge edge = state.getOccupiedEdge(j);
+                edgeStart[edge.getId()]++;
+                if (j > 0) {
+                    nodeStart[edge.getEnd().getIndex()]++;
+                }
+            }
+        }
+        // running sums make start[k] the end of bucket k, filling backwards moves it to the beginning
+        prefixSums(edgeStart, maxEdge);
+        prefixSums(nodeStart, maxNode);
+        for (int i = agents.size() - 1; i >= 0; i--) {
+            AgentState state = agents.get(i);
+            for (int j = state.getOccupiedEdgeCount() - 1; j >= 0; j--) {
+                Edge edge = state.getOccupiedEdge(j);
+                edgeMembers[--edgeStart[edge.getId()]] = i;
+                if (j > 0) {
+                    nodeMembers[--nodeStart[edge.getEnd().getIndex()]] = i;
+                }
+            }
+        }
+    }
+
+    private static void prefixSums(int[] start, int max) {
+        int sum = 0;
+        for (int k = 0; k <= max; k++) {
+            sum += start[k];
+            start[k] = sum;
+        }
+        start[max + 1] = sum;
+    }
+
+    // members of a bucket are in ascending order, an agent listed twice is checked once
+    private void checkBucket(List<AgentState> agents, int[] members, int from, int to, int edge, int node) {
+        for (int i = from; i < to; i++) {
+            if (i > from && members[i] == members[i - 1]) {
+                continue;
+            }
+            AgentState agent1State = agents.get(members[i]);
+            for (int j = i + 1; j < to; j++) {
+                if (members[j] == members[j - 1]) {
+                    continue;
+                }
+                AgentState agent2State = agents.get(members[j]);
+                if (!sharesEarlierBucket(agent1State, agent2State, edge, node)
+                        && agent1State.collidesWith(agent2State)) {
+                    registerCollision(agent1State, agent2State);
+                }
+            }
+        }
+    }
+
+    // each pair is checked only in the first bucket both agents are in, edges by id before nodes by index
+    private static boolean sharesEarlierBucket(AgentState agent1State, AgentState agent2State, int edge, int node) {
+        for (int i = 0; i < agent1State.getOccupiedEdgeCount(); i++) {
+            Edge edge1 = agent1State.getOccupiedEdge(i);
+            for (int j = 0; j < agent2State.getOccupiedEdgeCount(); j++) {
+                Edge edge2 = agent2State.getOccupiedEdge(j);
+                if (edge1.getId() == edge2.getId() && edge1.getId() < edge) {
+                    return true;
+                }
+                if (i > 0 && j > 0 && edge1.getEnd().getIndex() == edge2.getEnd().getIndex()
+                        && (node < 0 || edge1.getEnd().getIndex() < node)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void registerCollision(AgentState agent1State, AgentState agent2State) {
+        long pair = pairKey(agent1State.getAgent().getId(), agent2State.getAgent().getId());
+        if (previousCollisions.add(pair)) {
+            if (printCollisions) {
+                logger.info("Number of collisions: {}", getNumberOfCollisions());
+            }
+        }
+    }
+
+    private static long pairKey(int index1, int index2) {
+        return index1 < index2 ? ((long) index1 << 32) | index2 : ((long) index2 << 32) | index1;
+    }
+
+    public int getNumberOfCollisions() {
+        return previousCollisions.size() - countedFrom;
+    }
+
+    // pairs seen by both trackers, e.g. of agents colliding on the border of two regions, count once
+    void merge(CollisionTracker other) {
+        previousCollisions.addAll(other.previousCollisions);
+    }
+
+    // pairs colliding so far stay known, so an ongoing collision is not counted again
+    void resetCount() {
+        countedFrom = previousCollisions.size();
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(countedFrom);
+        out.writeInt(previousCollisions.size());
+        for (long pair : previousCollisions) {
+            out.writeLong(pair);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        countedFrom = in.readInt();
+        previousCollisions.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            previousCollisions.add(in.readLong());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package simulation;
+
+import model.crossroad.CrossroadTopology;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+import model.crossroad.SignalController;
+import model.crossroad.TrafficLight;
+
+import java.util.List;
+
+public class CrossroadState {
+    private AgentState myState;
+    private OccupancyIndex index;
+    private CrossroadTopology topology;
+    private SignalController signals;
+    private int time;
+
+    public CrossroadState(AgentState myState, OccupancyIndex index, CrossroadTopology topology,
+                          SignalController signals, int time) {
+        this.myState = myState;
+        this.index = index;
+        this.topology = topology;
+        this.signals = signals;
+        this.time = time;
+    }
+
+    public CrossroadTopology getTopology() {
+        return topology;
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    void setTime(int time) {
+        this.time = time;
+    }
+
+    void setSignals(SignalController signals) {
+        this.signals = signals;
+    }
+
+    public boolean hasSignals() {
+        return signals.hasSignals();
+    }
+
+    // light at the end of the edge now, null when it leads into an unsignalised node
+    public TrafficLight.Color getLight(Edge edge) {
+        return signals.getLight(edge.getId(), time);
+    }
+
+    public AgentState getMyState() {
+        return myState;
+    }
+
+    public List<AgentState> getAgentsOnEdge(Edge edge) {
+        return index.getHeadsOnEdge(edge);
+    }
+
+    public AgentState getLeader(Edge edge, float position) {
+        return index.getLeader(edge, position, myState);
+    }
+
+    public AgentState getLastOnEdge(Edge edge) {
+        return getLeader(edge, Float.NEGATIVE_INFINITY);
+    }
+
+    public AgentState getFirstOnEdge(Edge edge) {
+        return index.getFirstOnEdge(edge, myState);
+    }
+
+    public boolean isOccupiedBySomeoneElse(Node node) {
+        List<AgentState> states = index.getOccupants(node);
+        for (int i = 0; i < states.size(); i++) {
+            if (states.get(i) != myState) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package simulation;
+
+import model.agent.Agent;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Hands step snapshots from the simulation thread to a reader without locking. Besides the frame being
+ * written and the one being read, the latest published frame waits in a shared slot; publishing swaps the
+ * written frame into that slot and acquiring swaps it out, so neither side ever touches a frame in use.
+ */
+public class FrameBuffer {
+    private final AtomicReference<StepFrame> latest = new AtomicReference<>(new StepFrame());
+    private StepFrame writing = new StepFrame();
+    private StepFrame reading = new StepFrame();
+    private long sequence;
+
+    // called on the simulation thread after a step
+    public void publish(Simulator simulator) {
+        Map<Agent, AgentState> states = simulator.getAgentsStates();
+        AgentStore store = simulator.getAgentStore();
+        StepFrame frame = writing;
+        frame.reset(simulator.getTime(), states.size());
+        int i = 0;
+        for (Map.Entry<Agent, AgentState> entry : states.entrySet()) {
+            int slot = entry.getValue().getSlot();
+            frame.ids[i] = entry.getKey().getId();
+            frame.headEdges[i] = store.getHeadEdgeId(slot);
+            frame.headPositions[i] = store.getEdgePosition(slot);
+            frame.tailEdges[i] = store.getTailEdgeId(slot);
+            frame.tailPositions[i] = store.getTailEdgePosition(slot);
+            frame.velocities[i] = store.getVelocity(slot);
+            i++;
+        }
+        swapIn(frame);
+    }
+
+    public void publish(StepFrame source) {
+        StepFrame frame = writing;
+        frame.copyFrom(source);
+        swapIn(frame);
+    }
+
+    // the newest frame, owned by the caller until its next acquire
+    public StepFrame acquire() {
+        StepFrame candidate = latest.get();
+        while (candidate.sequence > reading.sequence) {
+            if (latest.compareAndSet(candidate, reading)) {
+                reading = candidate;
+                break;
+            }
+            candidate = latest.get();
+        }
+        return reading;
+    }
+
+    private void swapIn(StepFrame frame) {
+        frame.sequence = ++sequence;
+        writing = latest.getAndSet(frame);
+    }
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+
+// attaches to a FrameServer and decodes its frames on a background thread
+public class FrameClient implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FrameClient.class);
+
+    public interface FrameListener {
+        // the frame is reused once the call returns
+        void frameReceived(StepFrame frame);
+
+        default void streamClosed() {
+        }
+    }
+
+    private final int port;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final FrameListener listener;
+    private volatile boolean closed;
+
+    public FrameClient(int port, int edgeCount, FrameListener listener) {
+        this.port = port;
+        this.listener = listener;
+        try {
+            socket = new Socket();
+            socket.setReceiveBufferSize(FrameServer.SOCKET_BUFFER);
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            if (in.readInt() != FrameServer.MAGIC || in.readInt() != FrameServer.VERSION) {
+                socket.close();
+                throw new RuntimeException("No simulation stream on port " + port);
+            }
+            if (in.readInt() != edgeCount) {
+                socket.close();
+                throw new RuntimeException("Simulation on port " + port + " runs on a different crossroad");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to attach to port " + port, e);
+        }
+        Thread receiver = new Thread(this::receive, "frame-client-" + port);
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close connection to port {}", port);
+        }
+    }
+
+    private void receive() {
+        StepFrame current = new StepFrame();
+        StepFrame previous = new StepFrame();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        try {
+            while (!closed) {
+                int length = in.readInt() - 4;
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(Math.max(length, 2 * buffer.capacity()));
+                }
+                in.readFully(buffer.array(), 0, length);
+                buffer.clear().limit(length);
+                StepFrame frame = previous;
+                previous = current;
+                current = frame;
+                FrameCodec.decode(buffer, current, previous);
+                listener.frameReceived(current);
+            }
+        } catch (EOFException | SocketException e) {
+            logger.info("Simulation stream on port {} closed", port);
+        } catch (IOException e) {
+            logger.warn("Simulation stream on port {} failed: {}", port, e.getMessage());
+        } finally {
+            close();
+            listener.streamClosed();
+        }
+    }
+}
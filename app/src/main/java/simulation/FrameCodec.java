@@ -0,0 +1,132 @@
+package simulation;
+
+import java.nio.ByteBuffer;
+
+import static simulation.TrajectoryRecorder.*;
+
+/*
+ * Frame layout shared by trajectory files and live streams, see TrajectoryRecorder. The recorder encodes
+ * against the previous step by store slot; this encoder matches agents by id against any earlier frame,
+ * so a stream can skip frames and still send deltas.
+ */
+class FrameCodec {
+    static final int MAX_AGENT_BYTES = 1 + 6 * 5;
+
+    private FrameCodec() {
+    }
+
+    static int maxFrameBytes(int agentCount) {
+        return FRAME_HEADER + agentCount * MAX_AGENT_BYTES;
+    }
+
+    // encodes the frame, filling its quantized values, against previous unless it is a keyframe
+    static void encode(StepFrame frame, StepFrame previous, boolean keyframe, ByteBuffer out) {
+        int start = out.position();
+        out.position(start + 4);
+        out.put((byte) (keyframe ? 1 : 0));
+        out.putInt(frame.time);
+        out.putInt(frame.agentCount);
+        int cursor = 0;
+        int lastId = 0;
+        for (int i = 0; i < frame.agentCount; i++) {
+            int id = frame.ids[i];
+            frame.quantized[3 * i] = quantize(frame.headPositions[i]);
+            frame.quantized[3 * i + 1] = quantize(frame.tailPositions[i]);
+            frame.quantized[3 * i + 2] = quantize(frame.velocities[i]);
+            int base = keyframe ? -1 : find(previous, id, cursor);
+            int flags;
+            if (base < 0) {
+                flags = NEW_AGENT | HEAD_EDGE_CHANGED | TAIL_EDGE_CHANGED;
+            } else {
+                cursor = base + 1;
+                flags = (frame.headEdges[i] != previous.headEdges[base] ? HEAD_EDGE_CHANGED : 0)
+                        | (frame.tailEdges[i] != previous.tailEdges[base] ? TAIL_EDGE_CHANGED : 0);
+            }
+            putVarint(out, zigzag(id - lastId));
+            out.put((byte) flags);
+            if ((flags & HEAD_EDGE_CHANGED) != 0) {
+                putVarint(out, frame.headEdges[i]);
+            }
+            if ((flags & TAIL_EDGE_CHANGED) != 0) {
+                putVarint(out, frame.tailEdges[i]);
+            }
+            for (int k = 0; k < 3; k++) {
+                putVarint(out, zigzag(frame.quantized[3 * i + k] - (base < 0 ? 0 : previous.quantized[3 * base + k])));
+            }
+            lastId = id;
+        }
+        out.putInt(start, out.position() - start);
+    }
+
+    // decodes one frame positioned after its length into frame, deltas apply to previous
+    static void decode(ByteBuffer in, StepFrame frame, StepFrame previous) {
+        boolean keyframe = in.get() != 0;
+        frame.reset(in.getInt(), in.getInt());
+        int cursor = 0;
+        int id = 0;
+        for (int i = 0; i < frame.agentCount; i++) {
+            id += unzigzag(getVarint(in));
+            int flags = in.get();
+            int base = -1;
+            if ((flags & NEW_AGENT) == 0) {
+                if (keyframe) {
+                    throw new RuntimeException("Corrupted trajectory frame at time " + frame.time);
+                }
+                while (cursor < previous.agentCount && previous.ids[cursor] != id) {
+                    cursor++;
+                }
+                if (cursor == previous.agentCount) {
+                    throw new RuntimeException("Agent " + id + " missing from the previous frame at time " + frame.time);
+                }
+                base = cursor;
+            }
+            frame.ids[i] = id;
+            frame.headEdges[i] = (flags & HEAD_EDGE_CHANGED) != 0 ? getVarint(in) : previous.headEdges[base];
+            frame.tailEdges[i] = (flags & TAIL_EDGE_CHANGED) != 0 ? getVarint(in) : previous.tailEdges[base];
+            for (int k = 0; k < 3; k++) {
+                frame.quantized[3 * i + k] = (base < 0 ? 0 : previous.quantized[3 * base + k]) + unzigzag(getVarint(in));
+            }
+            frame.headPositions[i] = frame.quantized[3 * i] / SCALE;
+            frame.tailPositions[i] = frame.quantized[3 * i + 1] / SCALE;
+            frame.velocities[i] = frame.quantized[3 * i + 2] / SCALE;
+        }
+    }
+
+    // agents keep their relative order, so an agent still present is found at or after the cursor
+    private static int find(StepFrame previous, int id, int cursor) {
+        for (int j = cursor; j < previous.agentCount; j++) {
+            if (previous.ids[j] == id) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,162 @@
+package simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Streams step snapshots of a running simulation to one attached viewer over a loopback socket:
+ *   header:  MAGIC, VERSION, edge count
+ *   frames:  as in TrajectoryRecorder, the first one a keyframe, the rest deltas against the last frame sent
+ * Without a viewer a step costs a volatile read. With one, the step is copied into the viewer's FrameBuffer
+ * and a sender thread writes whatever frame is latest when the socket accepts more, so a slow viewer skips
+ * frames instead of holding the simulation back.
+ */
+public class FrameServer implements SimulatorStepObserver, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FrameServer.class);
+    static final int MAGIC = 0x535a5354;
+    static final int VERSION = 1;
+    private static final long IDLE_NANOS = 5000000;
+    // small socket buffers keep a lagging viewer a few frames behind instead of seconds
+    static final int SOCKET_BUFFER = 32 << 10;
+
+    private final Simulator simulator;
+    private final ServerSocket serverSocket;
+    private volatile Viewer viewer;
+    private volatile boolean closed;
+
+    public FrameServer(Simulator simulator, int port) {
+        this.simulator = simulator;
+        try {
+            serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to listen for viewers on port " + port, e);
+        }
+        Thread acceptor = new Thread(this::accept, "frame-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void update() {
+        Viewer current = viewer;
+        if (current != null) {
+            current.frames.publish(simulator);
+            LockSupport.unpark(current.thread);
+        }
+    }
+
+    @Override
+    public void simulationFinished() {
+        close();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close viewer socket on port {}", getPort());
+        }
+        Viewer current = viewer;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                Viewer previous = viewer;
+                if (previous != null) {
+                    previous.close();
+                }
+                Viewer attached = new Viewer(socket);
+                viewer = attached;
+                attached.thread.start();
+                logger.info("Viewer attached on port {}", getPort());
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Viewer connection failed on port {}: {}", getPort(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private class Viewer implements Runnable {
+        private final Socket socket;
+        private final FrameBuffer frames = new FrameBuffer();
+        private final Thread thread;
+
+        Viewer(Socket socket) {
+            this.socket = socket;
+            this.thread = new Thread(this, "frame-sender-" + getPort());
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                socket.setTcpNoDelay(true);
+                socket.setSendBufferSize(SOCKET_BUFFER);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(simulator.getCrossroad().getEdgeCount());
+                out.flush();
+                StepFrame sent = new StepFrame();
+                ByteBuffer buffer = ByteBuffer.allocate(4096);
+                long sequence = 0;
+                boolean keyframe = true;
+                while (!socket.isClosed()) {
+                    StepFrame frame = frames.acquire();
+                    if (frame.getSequence() == sequence) {
+                        LockSupport.parkNanos(IDLE_NANOS);
+                        continue;
+                    }
+                    sequence = frame.getSequence();
+                    int bytes = FrameCodec.maxFrameBytes(frame.agentCount);
+                    if (buffer.capacity() < bytes) {
+                        buffer = ByteBuffer.allocate(Math.max(bytes, 2 * buffer.capacity()));
+                    }
+                    buffer.clear();
+                    FrameCodec.encode(frame, sent, keyframe, buffer);
+                    keyframe = false;
+                    out.write(buffer.array(), 0, buffer.position());
+                    out.flush();
+                    sent.copyFrom(frame);
+                }
+            } catch (IOException e) {
+                logger.debug("Viewer stream failed on port {}: {}", getPort(), e.getMessage());
+            } finally {
+                close();
+                if (viewer == this) {
+                    viewer = null;
+                }
+                logger.info("Viewer detached from port {}", getPort());
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close viewer connection on port {}", getPort());
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package simulation;
+
+import model.crossroad.CrossroadPartition;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+
+import java.util.*;
+
+public class OccupancyIndex {
+    private final Map<Edge, List<AgentState>> headsOnEdges = new HashMap<>();
+    private final Map<Edge, List<AgentState>> tailsOnEdges = new HashMap<>();
+    private final Map<Node, List<AgentState>> occupiedNodes = new HashMap<>();
+    // filled by region, then agents at equal positions are told apart by id instead of by the order they came in
+    private boolean tiesByAgent;
+
+    public void rebuild(Collection<AgentState> states) {
+        clear();
+        for (AgentState state : states) {
+            bucket(headsOnEdges, state.getHeadPosition().edge).add(state);
+            bucket(tailsOnEdges, state.getTailPosition().edge).add(state);
+            for (int i = 0; i < state.getOccupiedNodeCount(); i++) {
+                bucket(occupiedNodes, state.getOccupiedNode(i)).add(state);
+            }
+        }
+    }
+
+    void clear() {
+        tiesByAgent = false;
+        clear(headsOnEdges);
+        clear(tailsOnEdges);
+        clear(occupiedNodes);
+    }
+
+    // indexes the agent only under the edges and nodes the region owns
+    void add(AgentState state, CrossroadPartition partition, int region) {
+        tiesByAgent = true;
+        Edge head = state.getHeadPosition().edge;
+        if (partition.getEdgeRegion(head.getId()) == region) {
+            bucket(headsOnEdges, head).add(state);
+        }
+        Edge tail = state.getTailPosition().edge;
+        if (partition.getEdgeRegion(tail.getId()) == region) {
+            bucket(tailsOnEdges, tail).add(state);
+        }
+        for (int i = 0; i < state.getOccupiedNodeCount(); i++) {
+            Node node = state.getOccupiedNode(i);
+            if (partition.getNodeRegion(node.getIndex()) == region) {
+                bucket(occupiedNodes, node).add(state);
+            }
+        }
+    }
+
+    // the nearest tail at or after the position, of agents at the same position the first one added
+    public AgentState getLeader(Edge edge, float position, AgentState me) {
+        List<AgentState> states = find(tailsOnEdges, edge);
+        AgentState leader = null;
+        float leaderPosition = 0;
+        for (int i = 0; i < states.size(); i++) {
+            AgentState state = states.get(i);
+            float tail = state.getTailPosition().edgePosition;
+            if (state == me || tail < position) {
+                continue;
+            }
+            if (leader == null || tail < leaderPosition
+                    || tail == leaderPosition && tiesByAgent && isBefore(state, leader)) {
+                leader = state;
+                leaderPosition = tail;
+            }
+        }
+        return leader;
+    }
+
+    // the foremost head on the edge, of agents at the same position the last one added
+    public AgentState getFirstOnEdge(Edge edge, AgentState me) {
+        List<AgentState> states = find(headsOnEdges, edge);
+        AgentState first = null;
+        float firstPosition = 0;
+        for (int i = 0; i < states.size(); i++) {
+            AgentState state = states.get(i);
+            if (state == me) {
+                continue;
+            }
+            float head = state.getHeadPosition().edgePosition;
+            int order = first == null ? 1 : Float.compare(head, firstPosition);
+            if (order > 0 || order == 0 && (!tiesByAgent || isBefore(first, state))) {
+                first = state;
+                firstPosition = head;
+            }
+        }
+        return first;
+    }
+
+    private static boolean isBefore(AgentState state, AgentState other) {
+        return state.getAgent().getId() < other.getAgent().getId();
+    }
+
+    public List<AgentState> getHeadsOnEdge(Edge edge) {
+        return find(headsOnEdges, edge);
+    }
+
+    public List<AgentState> getTailsOnEdge(Edge edge) {
+        return find(tailsOnEdges, edge);
+    }
+
+    public List<AgentState> getOccupants(Node node) {
+        return find(occupiedNodes, node);
+    }
+
+    private static <K> List<AgentState> bucket(Map<K, List<AgentState>> buckets, K key) {
+        List<AgentState> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    private static <K> List<AgentState> find(Map<K, List<AgentState>> buckets, K key) {
+        List<AgentState> bucket = buckets.get(key);
+        return bucket == null ? Collections.emptyList() : bucket;
+    }
+
+    private static <K> void clear(Map<K, List<AgentState>> buckets) {
+        Iterator<List<AgentState>> i = buckets.values().iterator();
+        while (i.hasNext()) {
+            List<AgentState> bucket = i.next();
+            if (bucket.isEmpty()) {
+                i.remove();
+            } else {
+                bucket.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package simulation;
+
+import java.io.*;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class RandomStreams {
+    private final Random arrivals;
+    private final Random drivers;
+    private final Random routing;
+
+    public RandomStreams(long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        this.arrivals = new Random(root.nextLong());
+        this.drivers = new Random(root.nextLong());
+        this.routing = new Random(root.nextLong());
+    }
+
+    private RandomStreams(Random arrivals, Random drivers, Random routing) {
+        this.arrivals = arrivals;
+        this.drivers = drivers;
+        this.routing = routing;
+    }
+
+    // java.util.Random keeps its state private, serialization is the supported way to copy it
+    void writeTo(DataOutput out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(arrivals);
+            objects.writeObject(drivers);
+            objects.writeObject(routing);
+        }
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    static RandomStreams readFrom(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return new RandomStreams((Random) objects.readObject(), (Random) objects.readObject(), (Random) objects.readObject());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Random stream state unreadable", e);
+        }
+    }
+
+    public Random arrivals() {
+        return arrivals;
+    }
+
+    public Random drivers() {
+        return drivers;
+    }
+
+    public Random routing() {
+        return routing;
+    }
+}
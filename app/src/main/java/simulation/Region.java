@@ -0,0 +1,262 @@
+package simulation;
+
+import model.agent.Decision;
+import model.crossroad.Crossroad;
+import model.crossroad.CrossroadPartition;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+import simulation.AgentState.AgentPosition;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * Part of a partitioned crossroad stepped on its own worker. A region owns the agents whose head is on one of
+ * its edges and indexes every agent touching its edges or nodes, the ones owned by other regions are posted to
+ * it as ghosts. An agent driving into another region is handed over together with its statistics. Inboxes are
+ * filled by all regions during one phase and drained by their own region in the next one.
+ */
+class Region {
+    private static final Comparator<Handoff> AGENT_ORDER = Comparator.comparingInt(h -> h.state.getAgent().getId());
+
+    private static class Handoff {
+        final AgentState state;
+        final StatisticsTracker.AgentStatistics statistics;
+
+        Handoff(AgentState state, StatisticsTracker.AgentStatistics statistics) {
+            this.state = state;
+            this.statistics = statistics;
+        }
+    }
+
+    // answers every query from the index of the region owning the edge or node, like the plain index it knows
+    // nothing about the missing edge after the end of a route
+    static class Index extends OccupancyIndex {
+        private final CrossroadPartition partition;
+        private final Region[] regions;
+
+        Index(CrossroadPartition partition, Region[] regions) {
+            this.partition = partition;
+            this.regions = regions;
+        }
+
+        Region regionOf(Edge edge) {
+            return regions[partition.getEdgeRegion(edge.getId())];
+        }
+
+        @Override
+        public List<AgentState> getHeadsOnEdge(Edge edge) {
+            if (edge == null) {
+                return Collections.emptyList();
+            }
+            return regions[partition.getEdgeRegion(edge.getId())].index.getHeadsOnEdge(edge);
+        }
+
+        @Override
+        public List<AgentState> getTailsOnEdge(Edge edge) {
+            if (edge == null) {
+                return Collections.emptyList();
+            }
+            return regions[partition.getEdgeRegion(edge.getId())].index.getTailsOnEdge(edge);
+        }
+
+        @Override
+        public AgentState getLeader(Edge edge, float position, AgentState me) {
+            if (edge == null) {
+                return null;
+            }
+            return regions[partition.getEdgeRegion(edge.getId())].index.getLeader(edge, position, me);
+        }
+
+        @Override
+        public AgentState getFirstOnEdge(Edge edge, AgentState me) {
+            if (edge == null) {
+                return null;
+            }
+            return regions[partition.getEdgeRegion(edge.getId())].index.getFirstOnEdge(edge, me);
+        }
+
+        @Override
+        public List<AgentState> getOccupants(Node node) {
+            return regions[partition.getNodeRegion(node.getIndex())].index.getOccupants(node);
+        }
+    }
+
+    private final int id;
+    private final Region[] regions;
+    private final CrossroadPartition partition;
+    private final Crossroad crossroad;
+    private final AgentStore store;
+    private final boolean[] occupiedInputNodes;
+    private final OccupancyIndex index = new OccupancyIndex();
+    private final CollisionTracker collisionTracker = new CollisionTracker(false);
+    private StatisticsTracker statTracker;
+
+    private final List<AgentState> agents = new ArrayList<>();
+    private final List<AgentState> collisionCandidates = new ArrayList<>();
+    private final List<AgentState> removed = new ArrayList<>();
+    private final List<Handoff> arrivals = new ArrayList<>();
+    private final Queue<AgentState> ghostInbox = new ConcurrentLinkedQueue<>();
+    private final Queue<Handoff> handoffInbox = new ConcurrentLinkedQueue<>();
+    private final int[] postedTo;
+    private int postStamp;
+    private Decision[] decisions = new Decision[0];
+    private boolean edgeRingFull;
+
+    Region(int id, Region[] regions, CrossroadPartition partition, Crossroad crossroad, AgentStore store,
+           boolean[] occupiedInputNodes, StatisticsTracker statTracker) {
+        this.id = id;
+        this.regions = regions;
+        this.partition = partition;
+        this.crossroad = crossroad;
+        this.store = store;
+        this.occupiedInputNodes = occupiedInputNodes;
+        this.statTracker = statTracker;
+        this.postedTo = new int[partition.getRegionCount()];
+    }
+
+    // called by the coordinating thread between steps
+    void add(AgentState state, StatisticsTracker.AgentStatistics statistics) {
+        agents.add(state);
+        statTracker.adopt(state.getAgent(), statistics);
+    }
+
+    // indexes the own agents and posts the ones reaching into other regions there
+    void indexAgents() {
+        index.clear();
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            index.add(state, partition, id);
+            postGhost(state, id);
+        }
+    }
+
+    void finishIndex() {
+        AgentState ghost;
+        while ((ghost = ghostInbox.poll()) != null) {
+            index.add(ghost, partition, id);
+        }
+    }
+
+    void decide(int time) {
+        if (decisions.length < agents.size()) {
+            decisions = new Decision[Math.max(agents.size(), 2 * decisions.length)];
+        }
+        edgeRingFull = false;
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            CrossroadState crossroadState = state.getCrossroadState();
+            crossroadState.setTime(time);
+            decisions[i] = state.getAgent().decision(crossroadState);
+            edgeRingFull |= store.isEdgeRingFull(state.getSlot());
+        }
+    }
+
+    // the moves may enter a new edge, which must not have to widen the rings of the shared store
+    boolean isEdgeRingFull() {
+        return edgeRingFull;
+    }
+
+    void move() {
+        int kept = 0;
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            Decision decision = decisions[i];
+            state.move(state.getVelocity(), decision);
+            state.accelerate(decision.acceleration);
+            int owner = partition.getEdgeRegion(state.getHeadPosition().edge.getId());
+            if (owner == id) {
+                agents.set(kept++, state);
+            } else {
+                regions[owner].handoffInbox.add(new Handoff(state, statTracker.release(state.getAgent())));
+            }
+            postGhost(state, owner);
+        }
+        agents.subList(kept, agents.size()).clear();
+    }
+
+    // takes over the arrived agents, detects collisions, removes the agents at their destination and records
+    // the rest, in the order of the sequential step
+    void settle() {
+        Handoff handoff;
+        while ((handoff = handoffInbox.poll()) != null) {
+            arrivals.add(handoff);
+        }
+        // queue order depends on thread timing, agent order decides how the statistics are summed up
+        arrivals.sort(AGENT_ORDER);
+        for (Handoff arrival : arrivals) {
+            add(arrival.state, arrival.statistics);
+        }
+        arrivals.clear();
+
+        collisionCandidates.clear();
+        collisionCandidates.addAll(agents);
+        AgentState ghost;
+        while ((ghost = ghostInbox.poll()) != null) {
+            collisionCandidates.add(ghost);
+        }
+        collisionTracker.detectCollisions(collisionCandidates);
+
+        removed.clear();
+        int kept = 0;
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            AgentPosition headPosition = state.getHeadPosition();
+            if (headPosition.equals(state.getTailPosition()) && !crossroad.isInputNode(headPosition.edge.getBegin())) {
+                removed.add(state);
+                statTracker.agentRemoved(state.getAgent());
+            } else {
+                agents.set(kept++, state);
+            }
+        }
+        agents.subList(kept, agents.size()).clear();
+
+        for (int i = 0; i < agents.size(); i++) {
+            AgentState state = agents.get(i);
+            statTracker.recordDriving(state.getAgent(), state.getVelocity());
+            AgentPosition tailPosition = state.getTailPosition();
+            Node tailNode = tailPosition.edge.getBegin();
+            if (crossroad.isInputNode(tailNode) && tailPosition.edgePosition < 0.1) {
+                occupiedInputNodes[tailNode.getIndex()] = true;
+            }
+        }
+    }
+
+    // agents that reached their destination in the last step, still to be released by the coordinating thread
+    List<AgentState> getRemoved() {
+        return removed;
+    }
+
+    CollisionTracker getCollisionTracker() {
+        return collisionTracker;
+    }
+
+    StatisticsTracker getStatisticsTracker() {
+        return statTracker;
+    }
+
+    void resetStatistics(StatisticsTracker statTracker) {
+        this.statTracker = statTracker;
+    }
+
+    // posts the agent to every other region owning an edge or node it occupies
+    private void postGhost(AgentState state, int owner) {
+        postStamp++;
+        postedTo[owner] = postStamp;
+        int slot = state.getSlot();
+        int edges = store.getOccupiedEdgeCount(slot);
+        for (int i = 0; i < edges; i++) {
+            post(state, partition.getEdgeRegion(store.getOccupiedEdgeId(slot, i)));
+            if (i + 1 < edges) {
+                post(state, partition.getNodeRegion(store.getOccupiedNodeIndex(slot, i)));
+            }
+        }
+    }
+
+    private void post(AgentState state, int region) {
+        if (postedTo[region] != postStamp) {
+            postedTo[region] = postStamp;
+            regions[region].ghostInbox.add(state);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package simulation;
+
+import model.agent.Decision;
+
+/*
+ * Reaches the package internals of the simulation from outside of it, for the benchmarks. Nothing in the
+ * simulator itself goes through here.
+ */
+public final class SimulationHooks {
+    private SimulationHooks() {
+    }
+
+    public static void move(AgentState state, float distance, Decision decision) {
+        state.move(distance, decision);
+    }
+
+    public static void release(AgentState state) {
+        state.release();
+    }
+}
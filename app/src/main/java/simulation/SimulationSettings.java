@@ -0,0 +1,16 @@
+package simulation;
+
+public class SimulationSettings {
+    public boolean batchMode = false;
+    public int simulationTime = 5000;
+    public float traffic = 0.01f;
+    public float craziness = 0.5f;
+    public boolean parallelStep = false;
+    // parts of the crossroad stepped on separate workers, 1 steps the whole crossroad on one thread
+    public int regions = 1;
+    public long seed = System.nanoTime();
+    public String crossroadFile;
+    public String trajectoryFile;
+    // loopback port viewers can attach to, 0 picks a free one, negative disables streaming
+    public int streamPort = -1;
+}
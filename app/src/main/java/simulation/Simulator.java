@@ -0,0 +1,626 @@
+package simulation;
+
+import model.agent.Agent;
+import model.agent.Car;
+import model.agent.Decision;
+import model.agent.Driver;
+import model.crossroad.Crossroad;
+import model.crossroad.CrossroadPartition;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+import model.crossroad.SignalController;
+import model.crossroad.SignalPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import simulation.AgentState.AgentPosition;
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+public class Simulator implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(Simulator.class);
+    private static final int DECISIONS_PER_TASK = 32;
+    public static final int STEPS_PER_SECOND = 20;
+    private static final int PAUSE_POLL_MILLIS = 20;
+    private Crossroad crossroad;
+    private Map<Agent, AgentState> agents = new LinkedHashMap<>();
+    private int time = 0;
+    private Set<SimulatorStepObserver> observers = new HashSet<>();
+    private CollisionTracker collisionTracker;
+    private Map<Node, Queue<Agent>> agentsQueues = new HashMap<>();
+    private int queuedAgents = 0;
+    private int nextAgentId = 0;
+    private volatile double speed = 1;
+    private FrameServer frameServer;
+    private StatisticsTracker statTracker;
+    private OccupancyIndex occupancyIndex;
+    private AgentStore agentStore;
+    private RandomStreams random;
+    private boolean[] occupiedInputNodes;
+    private List<AgentState> stepStates = new ArrayList<>();
+    private List<Agent> agentsToRemove = new ArrayList<>();
+    private Decision[] decisions = new Decision[0];
+    private Region[] regions;
+    private SignalController signals;
+
+    public SimulationSettings getSettings() {
+        return settings;
+    }
+
+    private SimulationSettings settings;
+
+    public Simulator(Crossroad crossroad, SimulationSettings settings) {
+        this(crossroad, settings, settings.seed);
+    }
+
+    public Simulator(Crossroad crossroad, SimulationSettings settings, long seed) {
+        this.settings = settings;
+        this.random = new RandomStreams(seed);
+        collisionTracker = new CollisionTracker(!settings.batchMode);
+        statTracker = new StatisticsTracker(this);
+        observers.add(statTracker);
+        this.crossroad = crossroad;
+        this.agentStore = new AgentStore(crossroad);
+        this.signals = crossroad.getSignalController();
+        if (settings.trajectoryFile != null) {
+            observers.add(new TrajectoryRecorder(this, Paths.get(settings.trajectoryFile)));
+        }
+        if (settings.streamPort >= 0) {
+            frameServer = new FrameServer(this, settings.streamPort);
+            observers.add(frameServer);
+        }
+        this.occupiedInputNodes = new boolean[crossroad.getTopology().getNodeCount()];
+        for (Node inputNode : crossroad.getInputNodes()) {
+            agentsQueues.put(inputNode, new LinkedList<>());
+        }
+        if (settings.regions > 1) {
+            CrossroadPartition partition = new CrossroadPartition(crossroad.getTopology(), settings.regions);
+            regions = new Region[partition.getRegionCount()];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = new Region(i, regions, partition, crossroad, agentStore, occupiedInputNodes,
+                        new StatisticsTracker(this));
+            }
+            occupancyIndex = new Region.Index(partition, regions);
+            logger.debug("Crossroad partitioned into {} regions, {} edges cut", regions.length, partition.getCutEdgeCount());
+        } else {
+            occupancyIndex = new OccupancyIndex();
+        }
+    }
+
+    // branches continue the checkpointed random streams, so equal settings reproduce the original run
+    public static Simulator restore(Crossroad crossroad, SimulationSettings settings, Checkpoint checkpoint) {
+        Simulator simulator = new Simulator(crossroad, settings, settings.seed);
+        simulator.load(checkpoint, false);
+        return simulator;
+    }
+
+    // branches draw fresh random streams from the seed, e.g. independent replications after a shared warm-up
+    public static Simulator restore(Crossroad crossroad, SimulationSettings settings, Checkpoint checkpoint, long seed) {
+        Simulator simulator = new Simulator(crossroad, settings, seed);
+        simulator.load(checkpoint, true);
+        return simulator;
+    }
+
+    public Checkpoint checkpoint() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(Checkpoint.MAGIC);
+            out.writeInt(Checkpoint.VERSION);
+            out.writeInt(crossroad.getEdgeCount());
+            out.writeInt(time);
+            out.writeInt(nextAgentId);
+            out.writeInt(queuedAgents);
+            // a plan set for this simulation only, restored ones would fall back to the plan of the crossroad
+            boolean ownPlan = signals != crossroad.getSignalController();
+            out.writeBoolean(ownPlan);
+            if (ownPlan) {
+                signals.getPlan().writeTo(out);
+            }
+            random.writeTo(out);
+            out.writeInt(agents.size());
+            for (Map.Entry<Agent, AgentState> entry : agents.entrySet()) {
+                AgentState state = entry.getValue();
+                writeAgent(out, entry.getKey(), state);
+                out.writeInt(state.getOccupiedEdgeCount());
+                for (int i = 0; i < state.getOccupiedEdgeCount(); i++) {
+                    out.writeInt(state.getOccupiedEdge(i).getId());
+                }
+                out.writeFloat(agentStore.getEdgePosition(state.getSlot()));
+                out.writeFloat(state.getVelocity());
+            }
+            out.writeInt(agentsQueues.size());
+            for (Map.Entry<Node, Queue<Agent>> entry : agentsQueues.entrySet()) {
+                out.writeInt(entry.getKey().getId());
+                out.writeInt(entry.getValue().size());
+                for (Agent agent : entry.getValue()) {
+                    writeAgent(out, agent, null);
+                }
+            }
+            getCollisionTracker().writeTo(out);
+            mergedStatistics().writeTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Checkpoint writing error", e);
+        }
+        return new Checkpoint(bytes.toByteArray());
+    }
+
+    private void load(Checkpoint checkpoint, boolean reseed) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint.getData()))) {
+            if (in.readInt() != Checkpoint.MAGIC || in.readInt() != Checkpoint.VERSION) {
+                throw new RuntimeException("Unsupported checkpoint format");
+            }
+            if (in.readInt() != crossroad.getEdgeCount()) {
+                throw new RuntimeException("Checkpoint was taken on a different crossroad");
+            }
+            time = in.readInt();
+            nextAgentId = in.readInt();
+            queuedAgents = in.readInt();
+            if (in.readBoolean()) {
+                setSignalPlan(SignalPlan.readFrom(in));
+            }
+            RandomStreams streams = RandomStreams.readFrom(in);
+            if (!reseed) {
+                random = streams;
+            }
+            Map<Integer, Agent> agentsById = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Agent agent = readAgent(in);
+                Edge[] occupiedEdges = new Edge[in.readInt()];
+                for (int j = 0; j < occupiedEdges.length; j++) {
+                    occupiedEdges[j] = crossroad.getEdge(in.readInt());
+                }
+                AgentState state = new AgentState(agent, occupiedEdges, in.readFloat(), in.readFloat(), agentStore);
+                state.setCrossroadState(new CrossroadState(state, occupancyIndex, crossroad.getTopology(), signals, time));
+                agents.put(agent, state);
+                agentsById.put(agent.getId(), agent);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                int nodeId = in.readInt();
+                Queue<Agent> queue = queueOf(nodeId);
+                for (int j = in.readInt(); j > 0; j--) {
+                    Agent agent = readAgent(in);
+                    queue.add(agent);
+                    agentsById.put(agent.getId(), agent);
+                }
+            }
+            collisionTracker.readFrom(in);
+            statTracker.readFrom(in, agentsById);
+        } catch (IOException e) {
+            throw new RuntimeException("Checkpoint reading error", e);
+        }
+        if (regions != null) {
+            for (AgentState state : agents.values()) {
+                regionOf(state).add(state, statTracker.release(state.getAgent()));
+            }
+            markOccupiedInputNodes();
+        }
+    }
+
+    // forgets what happened so far, e.g. after a warm-up, the crossroad itself is kept as it is
+    public void resetStatistics() {
+        observers.remove(statTracker);
+        statTracker = new StatisticsTracker(this);
+        observers.add(statTracker);
+        if (regions != null) {
+            for (Region region : regions) {
+                region.resetStatistics(new StatisticsTracker(this));
+            }
+        }
+        getCollisionTracker().resetCount();
+    }
+
+    private Queue<Agent> queueOf(int nodeId) {
+        for (Map.Entry<Node, Queue<Agent>> entry : agentsQueues.entrySet()) {
+            if (entry.getKey().getId() == nodeId) {
+                return entry.getValue();
+            }
+        }
+        throw new RuntimeException("Checkpoint queue at unknown input node " + nodeId);
+    }
+
+    // the live length and last brake time of a driving agent are kept by its state, queued ones have none yet
+    private static void writeAgent(DataOutputStream out, Agent agent, AgentState state) throws IOException {
+        Car car = agent.getCar();
+        Driver driver = agent.getDriver();
+        out.writeInt(agent.getId());
+        out.writeInt(agent.getRouteId());
+        out.writeInt(agent.getRouteCursor());
+        out.writeFloat(car.getAccelerationSpeed());
+        out.writeFloat(car.getDecelerationSpeed());
+        out.writeFloat(car.getMaxVelocity());
+        out.writeFloat(state == null ? car.getLength() : state.getLength());
+        out.writeFloat(driver.getSafeDistanceToNextCar());
+        out.writeFloat(driver.getSafeDistanceToNextStayingCar());
+        out.writeFloat(driver.getMadnessFactor());
+        out.writeInt(driver.getTimeout());
+        out.writeInt(state == null ? driver.getLastBrakeTime() : state.getLastBrakeTime());
+    }
+
+    private Agent readAgent(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        int routeId = in.readInt();
+        int routeCursor = in.readInt();
+        Car car = new Car(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+        Driver driver = new Driver(in.readFloat(), in.readFloat(), in.readFloat(), in.readInt());
+        driver.setLastBrakeTime(in.readInt());
+        return new Agent(id, driver, car, crossroad.getRoutes(), routeId, routeCursor);
+    }
+
+    public Crossroad getCrossroad() {
+        return crossroad;
+    }
+
+    // replaces the plan of the crossroad for this simulation only, the lights follow it from the next step on
+    public void setSignalPlan(SignalPlan plan) {
+        signals = new SignalController(crossroad.getTopology(), plan);
+        for (AgentState state : agents.values()) {
+            state.getCrossroadState().setSignals(signals);
+        }
+    }
+
+    public SignalController getSignalController() {
+        return signals;
+    }
+
+    // null unless the settings enable streaming
+    public FrameServer getFrameServer() {
+        return frameServer;
+    }
+
+    // collisions seen by the regions of a partitioned simulator are merged in on every call
+    public CollisionTracker getCollisionTracker() {
+        if (regions != null) {
+            for (Region region : regions) {
+                collisionTracker.merge(region.getCollisionTracker());
+            }
+        }
+        return collisionTracker;
+    }
+
+    public int getRegionCount() {
+        return regions == null ? 1 : regions.length;
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        while (!endSimulation()) {
+            if (!settings.batchMode) {
+                try {
+                    deadline = pace(deadline);
+                } catch (InterruptedException e) {
+                    logger.info("Simulation interrupted");
+                    return;
+                }
+            }
+            step();
+            printSimulationProgress();
+        }
+        for (SimulatorStepObserver observer : observers) {
+            observer.simulationFinished();
+        }
+        if (settings.batchMode) {
+            logger.info("Simulation finished");
+        } else {
+            mergedStatistics().printStats();
+        }
+    }
+
+    // steps up to the given time without logging or pacing, e.g. to checkpoint a warmed up crossroad
+    public void warmUp(int warmUpSteps) {
+        while (time < warmUpSteps) {
+            step();
+        }
+    }
+
+    // a batch replication: warms up, forgets the statistics so far and measures the steps up to the end time,
+    // without logging, so thousands of them can run in one sweep
+    public StatisticsTracker.SimulationStatistics runReplication(int warmUpSteps, int endTime) {
+        warmUp(warmUpSteps);
+        resetStatistics();
+        while (time < endTime) {
+            step();
+        }
+        for (SimulatorStepObserver observer : observers) {
+            observer.simulationFinished();
+        }
+        return getStatistics();
+    }
+
+    // real time multiplier of the interactive run, 0 pauses it and infinity runs it unthrottled
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    // waits until the next step is due, never trying to catch up more than a second after a slow stretch
+    private long pace(long deadline) throws InterruptedException {
+        while (speed == 0) {
+            Thread.sleep(PAUSE_POLL_MILLIS);
+            deadline = System.nanoTime();
+        }
+        long now = System.nanoTime();
+        if (Double.isInfinite(speed)) {
+            return now;
+        }
+        deadline += (long) (1e9 / (STEPS_PER_SECOND * speed));
+        long wait = deadline - now;
+        if (wait > 0) {
+            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+        } else if (wait < -1000000000L) {
+            deadline = now;
+        }
+        return deadline;
+    }
+
+    public void step() {
+        time++;
+        createAgents();
+        placeAgentsOnCrossroad();
+        if (regions == null) {
+            updateCrossroadState();
+            detectCollisions();
+            removeAgents();
+        } else {
+            stepRegions();
+        }
+        notifyObservers();
+    }
+
+    // every phase runs on all regions at once and finishes everywhere before the next one starts
+    private void stepRegions() {
+        forEachRegion(Region::indexAgents);
+        forEachRegion(Region::finishIndex);
+        forEachRegion(region -> region.decide(time));
+        for (Region region : regions) {
+            if (region.isEdgeRingFull()) {
+                agentStore.widenEdges();
+                break;
+            }
+        }
+        forEachRegion(Region::move);
+        Arrays.fill(occupiedInputNodes, false);
+        forEachRegion(Region::settle);
+        for (Region region : regions) {
+            for (AgentState state : region.getRemoved()) {
+                Agent agent = state.getAgent();
+                agents.remove(agent);
+                state.release();
+                for (SimulatorStepObserver observer : observers) {
+                    observer.agentRemoved(agent);
+                }
+            }
+        }
+    }
+
+    private void forEachRegion(Consumer<Region> phase) {
+        Arrays.stream(regions).parallel().forEach(phase);
+    }
+
+    private Region regionOf(AgentState state) {
+        return ((Region.Index) occupancyIndex).regionOf(state.getHeadPosition().edge);
+    }
+
+    public int getTime() {
+        return time;
+    }
+
+    private void printSimulationProgress() {
+        if (!settings.batchMode && time % 100 == 0) {
+            logger.info("Simulation progress: {}%", Math.round((float) time / settings.simulationTime * 100 * 100) / 100);
+        }
+    }
+
+    private void placeAgentsOnCrossroad() {
+        int waitingAgents = 0;
+        // regions mark the input nodes while settling their agents
+        if (regions == null) {
+            markOccupiedInputNodes();
+        }
+        for (Map.Entry<Node, Queue<Agent>> entry : agentsQueues.entrySet()) {
+            Node inputNode = entry.getKey();
+            Queue<Agent> queue = entry.getValue();
+            if (!occupiedInputNodes[inputNode.getIndex()] && !queue.isEmpty()) {
+                Agent agent = queue.remove();
+                AgentState state = new AgentState(agent, inputNode, agentStore);
+                state.setCrossroadState(new CrossroadState(state, occupancyIndex, crossroad.getTopology(), signals, time));
+                agents.put(agent, state);
+                if (regions != null) {
+                    regionOf(state).add(state, statTracker.release(agent));
+                }
+            }
+            waitingAgents += queue.size();
+        }
+        if (queuedAgents != waitingAgents) {
+//            logger.debug("Waiting agents: {}", waitingAgents);
+            queuedAgents = waitingAgents;
+        }
+    }
+
+    private void markOccupiedInputNodes() {
+        Arrays.fill(occupiedInputNodes, false);
+        for (AgentState agentState : agents.values()) {
+            AgentPosition tailPosition = agentState.getTailPosition();
+            Node tailNode = tailPosition.edge.getBegin();
+            if (crossroad.isInputNode(tailNode) && tailPosition.edgePosition < 0.1) {
+                occupiedInputNodes[tailNode.getIndex()] = true;
+            }
+        }
+    }
+
+    // the states decided on this step are still all agents, so no copy of the map is needed
+    private void detectCollisions() {
+        collisionTracker.detectCollisions(stepStates);
+    }
+
+    private void removeAgents() {
+        agentsToRemove.clear();
+        for (Map.Entry<Agent, AgentState> agentEntry : this.agents.entrySet()) {
+            AgentPosition headPosition = agentEntry.getValue().getHeadPosition();
+            AgentPosition tailPosition = agentEntry.getValue().getTailPosition();
+            if (headPosition.equals(tailPosition) && !crossroad.isInputNode(headPosition.edge.getBegin())) {
+                agentsToRemove.add(agentEntry.getKey());
+            }
+        }
+        for (Agent agent : agentsToRemove) {
+            this.agents.remove(agent).release();
+            for (SimulatorStepObserver observer : observers) {
+                observer.agentRemoved(agent);
+            }
+        }
+    }
+
+    private void notifyObservers() {
+        for (SimulatorStepObserver observer : observers) {
+            observer.update();
+        }
+    }
+
+    public void registerObserver(SimulatorStepObserver observer) {
+        observers.add(observer);
+    }
+
+    private void updateCrossroadState() {
+        occupancyIndex.rebuild(agents.values());
+        List<AgentState> states = stepStates;
+        states.clear();
+        states.addAll(agents.values());
+        if (decisions.length < states.size()) {
+            decisions = new Decision[Math.max(states.size(), 2 * decisions.length)];
+        }
+        if (settings.parallelStep && states.size() > DECISIONS_PER_TASK) {
+            ForkJoinPool.commonPool().invoke(new DecisionTask(states, decisions, 0, states.size()));
+        } else {
+            takeDecisions(states, decisions, 0, states.size());
+        }
+
+        for (int i = 0; i < states.size(); i++) {
+            AgentState state = states.get(i);
+            Decision decision = decisions[i];
+
+            float distanceToGo = state.getVelocity();
+            state.move(distanceToGo, decision);
+
+            state.accelerate(decision.acceleration);
+        }
+    }
+
+    private void takeDecisions(List<AgentState> states, Decision[] decisions, int from, int to) {
+        for (int i = from; i < to; i++) {
+            AgentState state = states.get(i);
+            CrossroadState crossroadState = state.getCrossroadState();
+            crossroadState.setTime(time);
+            decisions[i] = state.getAgent().decision(crossroadState);
+        }
+    }
+
+    private class DecisionTask extends RecursiveAction {
+        private final List<AgentState> states;
+        private final Decision[] decisions;
+        private final int from;
+        private final int to;
+
+        DecisionTask(List<AgentState> states, Decision[] decisions, int from, int to) {
+            this.states = states;
+            this.decisions = decisions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= DECISIONS_PER_TASK) {
+                takeDecisions(states, decisions, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecisionTask(states, decisions, from, middle), new DecisionTask(states, decisions, middle, to));
+            }
+        }
+    }
+
+    private boolean endSimulation() {
+        return time >= settings.simulationTime;
+    }
+
+    // traffic / 10 agents arrive per step on average, above 10 more than one arrives in a step
+    private void createAgents() {
+        for (float rate = settings.traffic / 10; rate > 0; rate--) {
+            if (random.arrivals().nextFloat() < rate) {
+                createAgent();
+            }
+        }
+    }
+
+    private void createAgent() {
+        Random random = this.random.drivers();
+        float velocity = random.nextFloat() / 8 + 0.1f;
+        float madnessFactor = madnessFactor(random);
+        float safeDistanceWhileStaying = 1.15f - madnessFactor * 0.2f;
+        float safeDistance = random.nextFloat() * 0.2f + 0.3f - madnessFactor * 0.2f;
+        int timeout = (random.nextInt(5) + 5) * STEPS_PER_SECOND;
+        Driver driver = new Driver(safeDistance, safeDistanceWhileStaying, madnessFactor, timeout);
+        driver.setLastBrakeTime(time);
+        Agent agent = new Agent(nextAgentId++, driver, new Car(0.01f, 0.1f, velocity, 0.8f), crossroad.getRoutes(),
+                crossroad.getRandomRoute(this.random.routing()));
+        Node inputNode = agent.nextEdge().getBegin();
+        agentsQueues.get(inputNode).add(agent);
+    }
+
+    private float madnessFactor(Random random) {
+        float v = ((float) random.nextGaussian() / 2) + settings.craziness;
+        while (v < 0 || v > 1) {
+            v = ((float) random.nextGaussian() / 2) + settings.craziness;
+        }
+        return v;
+    }
+
+    public Collection<AgentState> getStates() {
+        return agents.values();
+    }
+
+    public AgentStore getAgentStore() {
+        return agentStore;
+    }
+
+    public Map<Agent, AgentState> getAgentsStates() {
+        return agents;
+    }
+
+    // an agent waits in the queue of a single input node
+    public Collection<Queue<Agent>> getAgentQueues() {
+        return agentsQueues.values();
+    }
+
+    public int getQueuedAgentCount() {
+        int count = 0;
+        for (Queue<Agent> queue : agentsQueues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    public StatisticsTracker.SimulationStatistics getStatistics() {
+        return mergedStatistics().getStatistics();
+    }
+
+    // the regions of a partitioned simulator record the driving agents, the simulator itself the queued ones
+    private StatisticsTracker mergedStatistics() {
+        if (regions == null) {
+            return statTracker;
+        }
+        StatisticsTracker merged = new StatisticsTracker(this);
+        merged.merge(statTracker);
+        for (Region region : regions) {
+            merged.merge(region.getStatisticsTracker());
+        }
+        return merged;
+    }
+}
+
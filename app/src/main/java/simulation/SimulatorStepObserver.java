@@ -0,0 +1,13 @@
+package simulation;
+
+import model.agent.Agent;
+
+public interface SimulatorStepObserver {
+    void update();
+
+    default void agentRemoved(Agent agent) {
+    }
+
+    default void simulationFinished() {
+    }
+}
@@ -0,0 +1,368 @@
+package simulation;
+
+import model.agent.Agent;
+import model.utils.QuantileSketch;
+import model.utils.RunningStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+public class StatisticsTracker implements SimulatorStepObserver {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsTracker.class);
+
+    public static class RouteStatistics {
+        public float averageSpeed;
+        public float averageWaitingTime;
+        public float averageTravelTime;
+        public int numberOfAgents = 1;
+        public QuantileSketch speedDistribution = new QuantileSketch();
+        public QuantileSketch waitingTimeDistribution = new QuantileSketch();
+        public QuantileSketch travelTimeDistribution = new QuantileSketch();
+
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeFloat(averageSpeed);
+            out.writeFloat(averageWaitingTime);
+            out.writeFloat(averageTravelTime);
+            out.writeInt(numberOfAgents);
+            speedDistribution.writeTo(out);
+            waitingTimeDistribution.writeTo(out);
+            travelTimeDistribution.writeTo(out);
+        }
+
+        public static RouteStatistics readFrom(DataInput in) throws IOException {
+            RouteStatistics stats = new RouteStatistics();
+            stats.averageSpeed = in.readFloat();
+            stats.averageWaitingTime = in.readFloat();
+            stats.averageTravelTime = in.readFloat();
+            stats.numberOfAgents = in.readInt();
+            stats.speedDistribution = QuantileSketch.readFrom(in);
+            stats.waitingTimeDistribution = QuantileSketch.readFrom(in);
+            stats.travelTimeDistribution = QuantileSketch.readFrom(in);
+            return stats;
+        }
+    }
+
+    public static class SimulationStatistics {
+        public float averageVelocity;
+        public float velocityStandardDeviation;
+        public float averageWaitingTime;
+        public float averageDrivingTime;
+        public float averageAgentsWaiting;
+        public int numberOfCollisions;
+        public int numberOfAgents;
+        public Map<String, RouteStatistics> routeStats = new HashMap<>();
+        public QuantileSketch velocityDistribution = new QuantileSketch();
+        public QuantileSketch waitingTimeDistribution = new QuantileSketch();
+        public QuantileSketch travelTimeDistribution = new QuantileSketch();
+
+        public float getAverageAgentsWaiting() {
+            return averageAgentsWaiting;
+        }
+
+        public float getAverageWaitingTime() {
+            return averageWaitingTime;
+        }
+
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeFloat(averageVelocity);
+            out.writeFloat(velocityStandardDeviation);
+            out.writeFloat(averageWaitingTime);
+            out.writeFloat(averageDrivingTime);
+            out.writeFloat(averageAgentsWaiting);
+            out.writeInt(numberOfCollisions);
+            out.writeInt(numberOfAgents);
+            velocityDistribution.writeTo(out);
+            waitingTimeDistribution.writeTo(out);
+            travelTimeDistribution.writeTo(out);
+            out.writeInt(routeStats.size());
+            for (Map.Entry<String, RouteStatistics> entry : routeStats.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        public static SimulationStatistics readFrom(DataInput in) throws IOException {
+            SimulationStatistics stats = new SimulationStatistics();
+            stats.averageVelocity = in.readFloat();
+            stats.velocityStandardDeviation = in.readFloat();
+            stats.averageWaitingTime = in.readFloat();
+            stats.averageDrivingTime = in.readFloat();
+            stats.averageAgentsWaiting = in.readFloat();
+            stats.numberOfCollisions = in.readInt();
+            stats.numberOfAgents = in.readInt();
+            stats.velocityDistribution = QuantileSketch.readFrom(in);
+            stats.waitingTimeDistribution = QuantileSketch.readFrom(in);
+            stats.travelTimeDistribution = QuantileSketch.readFrom(in);
+            for (int i = in.readInt(); i > 0; i--) {
+                String routeId = in.readUTF();
+                stats.routeStats.put(routeId, RouteStatistics.readFrom(in));
+            }
+            return stats;
+        }
+    }
+
+    static class AgentStatistics {
+        public RunningStatistics velocity = new RunningStatistics();
+        public int numberOfStepsWaiting;
+        public int numberOfStepsDriving;
+    }
+
+    private static class RouteAccumulator {
+        public RunningStatistics speed = new RunningStatistics();
+        public RunningStatistics waitingTime = new RunningStatistics();
+        public RunningStatistics travelTime = new RunningStatistics();
+        public QuantileSketch speedDistribution = new QuantileSketch();
+        public QuantileSketch waitingTimeDistribution = new QuantileSketch();
+        public QuantileSketch travelTimeDistribution = new QuantileSketch();
+
+        void merge(RouteAccumulator other) {
+            speed.merge(other.speed);
+            waitingTime.merge(other.waitingTime);
+            travelTime.merge(other.travelTime);
+            speedDistribution.merge(other.speedDistribution);
+            waitingTimeDistribution.merge(other.waitingTimeDistribution);
+            travelTimeDistribution.merge(other.travelTimeDistribution);
+        }
+    }
+
+    private Simulator simulator;
+    private Map<Agent, AgentStatistics> agentsStats = new LinkedHashMap<>();
+    private Map<String, RouteAccumulator> routes = new LinkedHashMap<>();
+    private RunningStatistics velocity = new RunningStatistics();
+    private QuantileSketch velocityDistribution = new QuantileSketch();
+    private RunningStatistics finishedWaitingTime = new RunningStatistics();
+    private RunningStatistics finishedDrivingTime = new RunningStatistics();
+    private QuantileSketch waitingTimeDistribution = new QuantileSketch();
+    private QuantileSketch travelTimeDistribution = new QuantileSketch();
+    private RunningStatistics waitingAgents = new RunningStatistics();
+    private int simulationTime = 0;
+
+    public StatisticsTracker(Simulator simulator) {
+        this.simulator = simulator;
+    }
+
+    @Override
+    public void update() {
+        simulationTime++;
+        // a partitioned simulator has the driving agents recorded by the trackers of its regions
+        if (simulator.getRegionCount() == 1) {
+            for (Map.Entry<Agent, AgentState> entry : simulator.getAgentsStates().entrySet()) {
+                recordDriving(entry.getKey(), entry.getValue().getVelocity());
+            }
+        }
+        waitingAgents.add(simulator.getQueuedAgentCount());
+        for (Queue<Agent> queue : simulator.getAgentQueues()) {
+            for (Agent a : queue) {
+                agentStatistics(a).numberOfStepsWaiting++;
+            }
+        }
+    }
+
+    void recordDriving(Agent agent, float v) {
+        AgentStatistics agentStatistics = agentStatistics(agent);
+        agentStatistics.numberOfStepsDriving++;
+        agentStatistics.velocity.add(v);
+        velocity.add(v);
+        velocityDistribution.add(v);
+    }
+
+    // hands the statistics of an agent over to another tracker, null if nothing was recorded for it yet
+    AgentStatistics release(Agent agent) {
+        return agentsStats.remove(agent);
+    }
+
+    void adopt(Agent agent, AgentStatistics agentStatistics) {
+        if (agentStatistics != null) {
+            agentsStats.put(agent, agentStatistics);
+        }
+    }
+
+    // adds what another tracker recorded over the same steps, agents are expected to be known to only one of them
+    void merge(StatisticsTracker other) {
+        simulationTime = Math.max(simulationTime, other.simulationTime);
+        velocity.merge(other.velocity);
+        velocityDistribution.merge(other.velocityDistribution);
+        finishedWaitingTime.merge(other.finishedWaitingTime);
+        finishedDrivingTime.merge(other.finishedDrivingTime);
+        waitingTimeDistribution.merge(other.waitingTimeDistribution);
+        travelTimeDistribution.merge(other.travelTimeDistribution);
+        waitingAgents.merge(other.waitingAgents);
+        agentsStats.putAll(other.agentsStats);
+        for (Map.Entry<String, RouteAccumulator> entry : other.routes.entrySet()) {
+            RouteAccumulator route = routes.get(entry.getKey());
+            if (route == null) {
+                route = new RouteAccumulator();
+                routes.put(entry.getKey(), route);
+            }
+            route.merge(entry.getValue());
+        }
+    }
+
+    // folds the statistics of an arrived agent into the route and global accumulators
+    @Override
+    public void agentRemoved(Agent agent) {
+        AgentStatistics agentStatistics = agentsStats.remove(agent);
+        if (agentStatistics == null) {
+            return;
+        }
+        finishedWaitingTime.add(agentStatistics.numberOfStepsWaiting);
+        finishedDrivingTime.add(agentStatistics.numberOfStepsDriving);
+        waitingTimeDistribution.add(agentStatistics.numberOfStepsWaiting);
+        travelTimeDistribution.add(agentStatistics.numberOfStepsDriving);
+
+        String routeId = agent.getRouteBegin().getId() + ":" + agent.getRouteEnd().getId();
+        RouteAccumulator route = routes.get(routeId);
+        if (route == null) {
+            route = new RouteAccumulator();
+            routes.put(routeId, route);
+        }
+        double speed = agentStatistics.velocity.getMean();
+        route.speed.add(speed);
+        route.speedDistribution.add(speed);
+        route.waitingTime.add(agentStatistics.numberOfStepsWaiting);
+        route.waitingTimeDistribution.add(agentStatistics.numberOfStepsWaiting);
+        route.travelTime.add(agentStatistics.numberOfStepsDriving);
+        route.travelTimeDistribution.add(agentStatistics.numberOfStepsDriving);
+    }
+
+    public SimulationStatistics getStatistics() {
+        SimulationStatistics stats = new SimulationStatistics();
+        stats.averageVelocity = (float) velocity.getMean();
+        stats.velocityStandardDeviation = (float) velocity.getStandardDeviation();
+        stats.averageDrivingTime = averageDrivingTime();
+        stats.averageAgentsWaiting = (float) waitingAgents.getMean();
+        stats.averageWaitingTime = averageWaitingTime();
+        stats.numberOfCollisions = simulator.getCollisionTracker().getNumberOfCollisions();
+        stats.numberOfAgents = (int) finishedDrivingTime.getCount() + agentsStats.size();
+        stats.routeStats = routeStats();
+        stats.velocityDistribution = new QuantileSketch(velocityDistribution);
+        stats.waitingTimeDistribution = new QuantileSketch(waitingTimeDistribution);
+        stats.travelTimeDistribution = new QuantileSketch(travelTimeDistribution);
+        return stats;
+    }
+
+    private Map<String, RouteStatistics> routeStats() {
+        Map<String, RouteStatistics> result = new HashMap<>();
+        for (Map.Entry<String, RouteAccumulator> entry : routes.entrySet()) {
+            RouteAccumulator route = entry.getValue();
+            RouteStatistics stats = new RouteStatistics();
+            stats.averageSpeed = (float) route.speed.getMean();
+            stats.averageWaitingTime = (float) route.waitingTime.getMean();
+            stats.averageTravelTime = (float) route.travelTime.getMean();
+            stats.numberOfAgents = (int) route.speed.getCount();
+            stats.speedDistribution = new QuantileSketch(route.speedDistribution);
+            stats.waitingTimeDistribution = new QuantileSketch(route.waitingTimeDistribution);
+            stats.travelTimeDistribution = new QuantileSketch(route.travelTimeDistribution);
+            result.put(entry.getKey(), stats);
+        }
+        return result;
+    }
+
+    public void printStats() {
+        StringBuffer output = new StringBuffer();
+        output.append("Average velocity: " + velocity.getMean() + "\n");
+        output.append("Velocity p50/p95: " + velocityDistribution.quantile(0.5) + "/" + velocityDistribution.quantile(0.95) + "\n");
+        output.append("Average waiting time: " + averageWaitingTime() + "\n");
+        output.append("Average driving time: " + averageDrivingTime() + "\n");
+        output.append("Travel time p50/p95: " + travelTimeDistribution.quantile(0.5) + "/" + travelTimeDistribution.quantile(0.95) + "\n");
+        output.append("Average agents queue lenght: " + waitingAgents.getMean() + "\n");
+        output.append("Number of collisons: " + simulator.getCollisionTracker().getNumberOfCollisions() + "\n");
+        output.append("Simulation time: " + simulationTime + "\n");
+        System.out.print(output.toString());
+    }
+
+    // agents still on the crossroad or in the queues count with the steps they have taken so far
+    private float averageWaitingTime() {
+        double sum = finishedWaitingTime.getSum();
+        for (AgentStatistics as : agentsStats.values()) {
+            sum += as.numberOfStepsWaiting;
+        }
+        return (float) (sum / (finishedWaitingTime.getCount() + agentsStats.size()));
+    }
+
+    private float averageDrivingTime() {
+        double sum = finishedDrivingTime.getSum();
+        for (AgentStatistics as : agentsStats.values()) {
+            sum += as.numberOfStepsDriving;
+        }
+        return (float) (sum / (finishedDrivingTime.getCount() + agentsStats.size()));
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(simulationTime);
+        velocity.writeTo(out);
+        velocityDistribution.writeTo(out);
+        finishedWaitingTime.writeTo(out);
+        finishedDrivingTime.writeTo(out);
+        waitingTimeDistribution.writeTo(out);
+        travelTimeDistribution.writeTo(out);
+        waitingAgents.writeTo(out);
+        out.writeInt(agentsStats.size());
+        for (Map.Entry<Agent, AgentStatistics> entry : agentsStats.entrySet()) {
+            out.writeInt(entry.getKey().getId());
+            entry.getValue().velocity.writeTo(out);
+            out.writeInt(entry.getValue().numberOfStepsWaiting);
+            out.writeInt(entry.getValue().numberOfStepsDriving);
+        }
+        out.writeInt(routes.size());
+        for (Map.Entry<String, RouteAccumulator> entry : routes.entrySet()) {
+            RouteAccumulator route = entry.getValue();
+            out.writeUTF(entry.getKey());
+            route.speed.writeTo(out);
+            route.waitingTime.writeTo(out);
+            route.travelTime.writeTo(out);
+            route.speedDistribution.writeTo(out);
+            route.waitingTimeDistribution.writeTo(out);
+            route.travelTimeDistribution.writeTo(out);
+        }
+    }
+
+    void readFrom(DataInput in, Map<Integer, Agent> agentsById) throws IOException {
+        simulationTime = in.readInt();
+        velocity = RunningStatistics.readFrom(in);
+        velocityDistribution = QuantileSketch.readFrom(in);
+        finishedWaitingTime = RunningStatistics.readFrom(in);
+        finishedDrivingTime = RunningStatistics.readFrom(in);
+        waitingTimeDistribution = QuantileSketch.readFrom(in);
+        travelTimeDistribution = QuantileSketch.readFrom(in);
+        waitingAgents = RunningStatistics.readFrom(in);
+        agentsStats.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            int id = in.readInt();
+            Agent agent = agentsById.get(id);
+            if (agent == null) {
+                throw new RuntimeException("Checkpoint statistics refer to unknown agent " + id);
+            }
+            AgentStatistics agentStatistics = new AgentStatistics();
+            agentStatistics.velocity = RunningStatistics.readFrom(in);
+            agentStatistics.numberOfStepsWaiting = in.readInt();
+            agentStatistics.numberOfStepsDriving = in.readInt();
+            agentsStats.put(agent, agentStatistics);
+        }
+        routes.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            String routeId = in.readUTF();
+            RouteAccumulator route = new RouteAccumulator();
+            route.speed = RunningStatistics.readFrom(in);
+            route.waitingTime = RunningStatistics.readFrom(in);
+            route.travelTime = RunningStatistics.readFrom(in);
+            route.speedDistribution = QuantileSketch.readFrom(in);
+            route.waitingTimeDistribution = QuantileSketch.readFrom(in);
+            route.travelTimeDistribution = QuantileSketch.readFrom(in);
+            routes.put(routeId, route);
+        }
+    }
+
+    private AgentStatistics agentStatistics(Agent a) {
+        AgentStatistics agentStatistics = agentsStats.get(a);
+        if (agentStatistics == null) {
+            agentStatistics = new AgentStatistics();
+            agentsStats.put(a, agentStatistics);
+        }
+        return agentStatistics;
+    }
+}
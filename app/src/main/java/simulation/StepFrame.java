@@ -0,0 +1,47 @@
+package simulation;
+
+import java.util.Arrays;
+
+public class StepFrame {
+    public int time;
+    public int agentCount;
+    public int[] ids = new int[0];
+    public int[] headEdges = new int[0];
+    public float[] headPositions = new float[0];
+    public int[] tailEdges = new int[0];
+    public float[] tailPositions = new float[0];
+    public float[] velocities = new float[0];
+    // fixed point head, tail and velocity the next frame's deltas apply to
+    int[] quantized = new int[0];
+    volatile long sequence;
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void copyFrom(StepFrame other) {
+        reset(other.time, other.agentCount);
+        System.arraycopy(other.ids, 0, ids, 0, agentCount);
+        System.arraycopy(other.headEdges, 0, headEdges, 0, agentCount);
+        System.arraycopy(other.headPositions, 0, headPositions, 0, agentCount);
+        System.arraycopy(other.tailEdges, 0, tailEdges, 0, agentCount);
+        System.arraycopy(other.tailPositions, 0, tailPositions, 0, agentCount);
+        System.arraycopy(other.velocities, 0, velocities, 0, agentCount);
+        System.arraycopy(other.quantized, 0, quantized, 0, 3 * agentCount);
+    }
+
+    void reset(int time, int agentCount) {
+        this.time = time;
+        this.agentCount = agentCount;
+        if (ids.length < agentCount) {
+            int capacity = Math.max(agentCount, 2 * ids.length);
+            ids = Arrays.copyOf(ids, capacity);
+            headEdges = Arrays.copyOf(headEdges, capacity);
+            headPositions = Arrays.copyOf(headPositions, capacity);
+            tailEdges = Arrays.copyOf(tailEdges, capacity);
+            tailPositions = Arrays.copyOf(tailPositions, capacity);
+            velocities = Arrays.copyOf(velocities, capacity);
+            quantized = Arrays.copyOf(quantized, 3 * capacity);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package simulation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static simulation.TrajectoryRecorder.*;
+
+public class TrajectoryReader implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(TrajectoryReader.class);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int keyframeInterval;
+    private final int edgeCount;
+    private long framesEnd;
+    private int[] keyframeTimes;
+    private long[] keyframeOffsets;
+    private int lastTime;
+
+    private ByteBuffer frameBuffer = ByteBuffer.allocate(4096);
+    private StepFrame current = new StepFrame();
+    private StepFrame previous = new StepFrame();
+    private long nextOffset = -1;
+
+    public TrajectoryReader(Path path) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer header = read(0, HEADER);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new RuntimeException("Not a trajectory file: " + path);
+            }
+            keyframeInterval = header.getInt();
+            edgeCount = header.getInt();
+            if (!readFooter()) {
+                scan();
+            }
+            lastTime = keyframeTimes.length == 0 ? 0 : timeOfLastFrame();
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file reading error: " + path, e);
+        }
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getFirstTime() {
+        return keyframeTimes.length == 0 ? 0 : keyframeTimes[0];
+    }
+
+    public int getLastTime() {
+        return lastTime;
+    }
+
+    // the last recorded frame at or before the given time, decoded into a frame reused between calls
+    public StepFrame seek(int time) {
+        int keyframe = Arrays.binarySearch(keyframeTimes, time);
+        if (keyframe < 0) {
+            keyframe = -keyframe - 2;
+        }
+        if (keyframe < 0) {
+            return null;
+        }
+        try {
+            boolean continueFromCurrent = nextOffset >= 0 && current.time <= time
+                    && current.time >= keyframeTimes[keyframe];
+            if (!continueFromCurrent) {
+                nextOffset = keyframeOffsets[keyframe];
+                readFrame();
+            }
+            while (nextOffset < framesEnd && peekTime(nextOffset) <= time) {
+                readFrame();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file reading error: " + path, e);
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file closing error: " + path, e);
+        }
+    }
+
+    private void readFrame() throws IOException {
+        int length = read(nextOffset, 4).getInt();
+        if (frameBuffer.capacity() < length) {
+            frameBuffer = ByteBuffer.allocate(Math.max(length, 2 * frameBuffer.capacity()));
+        }
+        frameBuffer.clear().limit(length);
+        readFully(frameBuffer, nextOffset);
+        frameBuffer.flip();
+        frameBuffer.position(4);
+        nextOffset += length;
+
+        StepFrame frame = previous;
+        previous = current;
+        current = frame;
+        FrameCodec.decode(frameBuffer, frame, previous);
+    }
+
+    private int peekTime(long offset) throws IOException {
+        return read(offset + 5, 4).getInt();
+    }
+
+    private int timeOfLastFrame() throws IOException {
+        long offset = keyframeOffsets[keyframeOffsets.length - 1];
+        int time = peekTime(offset);
+        while (offset < framesEnd) {
+            time = peekTime(offset);
+            offset += read(offset, 4).getInt();
+        }
+        return time;
+    }
+
+    private boolean readFooter() throws IOException {
+        long size = channel.size();
+        if (size < HEADER + 20) {
+            return false;
+        }
+        ByteBuffer trailer = read(size - 12, 12);
+        long end = trailer.getLong();
+        if (trailer.getInt() != END_MAGIC || end < HEADER || end > size - 20) {
+            return false;
+        }
+        ByteBuffer footer = read(end, (int) (size - 12 - end));
+        if (footer.getInt() != FOOTER_MAGIC) {
+            return false;
+        }
+        int count = footer.getInt();
+        if (footer.remaining() != 12 * count) {
+            return false;
+        }
+        keyframeTimes = new int[count];
+        keyframeOffsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            keyframeTimes[i] = footer.getInt();
+            keyframeOffsets[i] = footer.getLong();
+        }
+        framesEnd = end;
+        return true;
+    }
+
+    // without a footer, e.g. after a crash, frames are walked from the header up to the last complete one
+    private void scan() throws IOException {
+        long size = channel.size();
+        int[] times = new int[16];
+        long[] offsets = new long[16];
+        int count = 0;
+        long offset = HEADER;
+        while (offset + FRAME_HEADER <= size) {
+            ByteBuffer header = read(offset, FRAME_HEADER);
+            int length = header.getInt();
+            boolean keyframe = header.get() != 0;
+            if (length < FRAME_HEADER || offset + length > size) {
+                break;
+            }
+            if (keyframe) {
+                if (count == times.length) {
+                    times = Arrays.copyOf(times, 2 * count);
+                    offsets = Arrays.copyOf(offsets, 2 * count);
+                }
+                times[count] = header.getInt();
+                offsets[count] = offset;
+                count++;
+            }
+            offset += length;
+        }
+        keyframeTimes = Arrays.copyOf(times, count);
+        keyframeOffsets = Arrays.copyOf(offsets, count);
+        framesEnd = offset;
+        logger.warn("Trajectory footer missing, recovered {} keyframes from {}", count, path);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, position);
+        buffer.flip();
+        return buffer;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of trajectory file");
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package simulation;
+
+import model.agent.Agent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+ * Trajectory log written through memory mapped chunks:
+ *   header:  MAGIC, VERSION, keyframe interval, edge count
+ *   frame:   length, keyframe flag, time, agent count, agents...
+ *   agent:   zigzag id delta, flags, [head edge], [tail edge], zigzag deltas of head, tail and velocity
+ *   footer:  FOOTER_MAGIC, keyframe count, (time, offset) per keyframe, frames end, END_MAGIC
+ * Positions and velocities are fixed point with SCALE. Deltas are taken against the same agent in the
+ * previous frame, keyframes and agents new on the crossroad are written against zero. Agents keep their
+ * relative order between frames, which lets the reader find the previous values with a single cursor.
+ */
+public class TrajectoryRecorder implements SimulatorStepObserver {
+    private static final Logger logger = LoggerFactory.getLogger(TrajectoryRecorder.class);
+    static final int MAGIC = 0x535a5452;
+    static final int FOOTER_MAGIC = 0x535a4b46;
+    static final int END_MAGIC = 0x535a454e;
+    static final int VERSION = 1;
+    static final int HEADER = 16;
+    static final int FRAME_HEADER = 13;
+    static final int HEAD_EDGE_CHANGED = 1;
+    static final int TAIL_EDGE_CHANGED = 2;
+    static final int NEW_AGENT = 4;
+    static final float SCALE = 1 << 16;
+    private static final int KEYFRAME_INTERVAL = 200;
+    private static final int CHUNK = 16 << 20;
+
+    private final Simulator simulator;
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long bufferOffset;
+    private int frames;
+    private int[] keyframeTimes = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframes;
+
+    private int[] previousId = new int[0];
+    private int[] previousHeadEdge = new int[0];
+    private int[] previousTailEdge = new int[0];
+    private int[] previousHead = new int[0];
+    private int[] previousTail = new int[0];
+    private int[] previousVelocity = new int[0];
+
+    public TrajectoryRecorder(Simulator simulator, Path path) {
+        this.simulator = simulator;
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ensure(HEADER);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(KEYFRAME_INTERVAL).putInt(simulator.getCrossroad().getEdgeCount());
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file opening error: " + path, e);
+        }
+    }
+
+    @Override
+    public void update() {
+        Map<Agent, AgentState> states = simulator.getAgentsStates();
+        AgentStore store = simulator.getAgentStore();
+        ensureSlots(store.getSlotLimit());
+        ensure(FrameCodec.maxFrameBytes(states.size()));
+        boolean keyframe = frames++ % KEYFRAME_INTERVAL == 0;
+        int start = buffer.position();
+        if (keyframe) {
+            addKeyframe(simulator.getTime(), bufferOffset + start);
+        }
+        buffer.position(start + 4);
+        buffer.put((byte) (keyframe ? 1 : 0));
+        buffer.putInt(simulator.getTime());
+        buffer.putInt(states.size());
+        int lastId = 0;
+        for (Map.Entry<Agent, AgentState> entry : states.entrySet()) {
+            int id = entry.getKey().getId();
+            int slot = entry.getValue().getSlot();
+            int headEdge = store.getHeadEdgeId(slot);
+            int tailEdge = store.getTailEdgeId(slot);
+            int head = quantize(store.getEdgePosition(slot));
+            int tail = quantize(store.getTailEdgePosition(slot));
+            int velocity = quantize(store.getVelocity(slot));
+            int flags;
+            if (keyframe || previousId[slot] != id) {
+                flags = NEW_AGENT | HEAD_EDGE_CHANGED | TAIL_EDGE_CHANGED;
+                previousId[slot] = id;
+                previousHead[slot] = 0;
+                previousTail[slot] = 0;
+                previousVelocity[slot] = 0;
+            } else {
+                flags = (headEdge != previousHeadEdge[slot] ? HEAD_EDGE_CHANGED : 0)
+                        | (tailEdge != previousTailEdge[slot] ? TAIL_EDGE_CHANGED : 0);
+            }
+            FrameCodec.putVarint(buffer, FrameCodec.zigzag(id - lastId));
+            buffer.put((byte) flags);
+            if ((flags & HEAD_EDGE_CHANGED) != 0) {
+                FrameCodec.putVarint(buffer, headEdge);
+            }
+            if ((flags & TAIL_EDGE_CHANGED) != 0) {
+                FrameCodec.putVarint(buffer, tailEdge);
+            }
+            FrameCodec.putVarint(buffer, FrameCodec.zigzag(head - previousHead[slot]));
+            FrameCodec.putVarint(buffer, FrameCodec.zigzag(tail - previousTail[slot]));
+            FrameCodec.putVarint(buffer, FrameCodec.zigzag(velocity - previousVelocity[slot]));
+            lastId = id;
+            previousHeadEdge[slot] = headEdge;
+            previousTailEdge[slot] = tailEdge;
+            previousHead[slot] = head;
+            previousTail[slot] = tail;
+            previousVelocity[slot] = velocity;
+        }
+        buffer.putInt(start, buffer.position() - start);
+    }
+
+    @Override
+    public void simulationFinished() {
+        close();
+    }
+
+    public void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            long framesEnd = bufferOffset + buffer.position();
+            ensure(8 + 12 * keyframes + 12);
+            buffer.putInt(FOOTER_MAGIC).putInt(keyframes);
+            for (int i = 0; i < keyframes; i++) {
+                buffer.putInt(keyframeTimes[i]).putLong(keyframeOffsets[i]);
+            }
+            buffer.putLong(framesEnd).putInt(END_MAGIC);
+            channel.truncate(bufferOffset + buffer.position());
+            channel.close();
+            logger.info("Recorded {} steps to {}", frames, path);
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file closing error: " + path, e);
+        }
+    }
+
+    static int quantize(float value) {
+        return Math.round(value * SCALE);
+    }
+
+    private void addKeyframe(int time, long offset) {
+        if (keyframes == keyframeTimes.length) {
+            keyframeTimes = Arrays.copyOf(keyframeTimes, 2 * keyframes);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, 2 * keyframes);
+        }
+        keyframeTimes[keyframes] = time;
+        keyframeOffsets[keyframes] = offset;
+        keyframes++;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer != null && buffer.remaining() >= bytes) {
+            return;
+        }
+        long position = buffer == null ? 0 : bufferOffset + buffer.position();
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(CHUNK, bytes));
+            bufferOffset = position;
+        } catch (IOException e) {
+            throw new RuntimeException("Trajectory file mapping error: " + path, e);
+        }
+    }
+
+    private void ensureSlots(int slots) {
+        if (previousId.length >= slots) {
+            return;
+        }
+        int length = previousId.length;
+        previousId = Arrays.copyOf(previousId, slots);
+        Arrays.fill(previousId, length, slots, -1);
+        previousHeadEdge = Arrays.copyOf(previousHeadEdge, slots);
+        previousTailEdge = Arrays.copyOf(previousTailEdge, slots);
+        previousHead = Arrays.copyOf(previousHead, slots);
+        previousTail = Arrays.copyOf(previousTail, slots);
+        previousVelocity = Arrays.copyOf(previousVelocity, slots);
+    }
+}
@@ -0,0 +1,71 @@
+package batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import simulation.StatisticsTracker.RouteStatistics;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ResultsStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static PointAggregate point(String crossroad, float traffic, int routeBegin) {
+        SimulationStatistics statistics = new SimulationStatistics();
+        statistics.numberOfAgents = 10;
+        statistics.averageVelocity = traffic / 10;
+        RouteStatistics route = new RouteStatistics();
+        route.averageTravelTime = 100 + routeBegin;
+        statistics.routeStats.put(routeBegin + ":" + (routeBegin + 1), route);
+        PointAggregate aggregate = new PointAggregate(new SweepPoint(crossroad, 1000, traffic, 0.5f),
+                ReplicationPolicy.fixed(2), 42);
+        aggregate.scheduleWave();
+        aggregate.add(statistics);
+        aggregate.add(statistics);
+        return aggregate;
+    }
+
+    @Test
+    public void finishedPointsAreReadableBeforeTheStoreCloses() {
+        Path path = folder.getRoot().toPath().resolve("results.bin");
+        try (ResultsStore store = new ResultsStore(path)) {
+            store.add(point("a.json", 1, 3));
+            assertEquals(1, ResultsStore.read(path).getPointCount());
+            store.add(point("b.json", 2, 7));
+            SweepResults results = ResultsStore.read(path);
+            assertEquals(2, results.getPointCount());
+            assertEquals("b.json", results.getString(ResultsColumn.CROSSROAD_FILE, 1));
+            assertEquals(0.2f, results.getFloat(ResultsColumn.AVERAGE_VELOCITY, 1), 0);
+            // route rows point at the rows of their points across blocks
+            assertEquals(2, results.getRouteCount());
+            assertEquals(1, results.getInt(ResultsColumn.ROUTE_POINT, 1));
+            assertEquals(7, results.getInt(ResultsColumn.ROUTE_BEGIN, 1));
+        }
+    }
+
+    @Test
+    public void blocksSurviveADamagedFooter() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("results.bin");
+        try (ResultsStore store = new ResultsStore(path)) {
+            store.add(point("a.json", 1, 3));
+            store.add(point("b.json", 2, 7));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        assertEquals(2, ResultsStore.read(path).getPointCount());
+        // the next flush writes a fresh footer after the recovered blocks
+        try (ResultsStore store = new ResultsStore(path)) {
+            store.add(point("c.json", 3, 9));
+        }
+        SweepResults results = ResultsStore.read(path);
+        assertEquals(3, results.getPointCount());
+        assertEquals("c.json", results.getString(ResultsColumn.CROSSROAD_FILE, 2));
+    }
+}
@@ -0,0 +1,161 @@
+package batch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import simulation.SimulationSettings;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// workers are played by sockets speaking the protocol, so the tests control when they answer or break
+public class WorkerCoordinatorTest {
+    private static final int TIMEOUT_SECONDS = 10;
+
+    private WorkerCoordinator coordinator;
+
+    private class FakeWorker implements Closeable {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        FakeWorker() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort());
+            socket.setSoTimeout(TIMEOUT_SECONDS * 1000);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(WorkerCoordinator.MAGIC);
+            out.writeInt(WorkerCoordinator.VERSION);
+            out.writeInt(-1);
+            out.flush();
+        }
+
+        // returns the id of the job, the job itself must be the one submitted
+        long receiveJob(String name) throws IOException {
+            assertEquals(WorkerCoordinator.JOB, in.readByte());
+            long id = in.readLong();
+            assertEquals(name, ReplicationJob.readFrom(in).getName());
+            return id;
+        }
+
+        void answer(long id, SimulationStatistics statistics) throws IOException {
+            out.writeByte(WorkerCoordinator.RESULT);
+            out.writeLong(id);
+            statistics.writeTo(out);
+            out.flush();
+        }
+
+        void fail(long id, String message) throws IOException {
+            out.writeByte(WorkerCoordinator.FAILED);
+            out.writeLong(id);
+            out.writeUTF(message);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static ReplicationJob job(String name) {
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.crossroadFile = "crossroad.json";
+        settings.simulationTime = 100;
+        return new ReplicationJob(name, settings, 1, null);
+    }
+
+    private static SimulationStatistics statistics(int agents) {
+        SimulationStatistics statistics = new SimulationStatistics();
+        statistics.numberOfAgents = agents;
+        statistics.averageVelocity = 0.5f;
+        return statistics;
+    }
+
+    @Before
+    public void startCoordinator() {
+        coordinator = new WorkerCoordinator(0);
+    }
+
+    @After
+    public void closeCoordinator() {
+        coordinator.close();
+    }
+
+    @Test
+    public void completesWithTheResultOfTheWorker() throws Exception {
+        try (FakeWorker worker = new FakeWorker()) {
+            CompletableFuture<SimulationStatistics> result = coordinator.submit(job("first"));
+            worker.answer(worker.receiveJob("first"), statistics(7));
+            assertEquals(7, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).numberOfAgents);
+            // the worker is free again for the next job
+            CompletableFuture<SimulationStatistics> next = coordinator.submit(job("second"));
+            worker.answer(worker.receiveJob("second"), statistics(8));
+            assertEquals(8, next.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).numberOfAgents);
+        }
+    }
+
+    @Test
+    public void dispatchesTheJobOfALostWorkerAgain() throws Exception {
+        FakeWorker lost = new FakeWorker();
+        CompletableFuture<SimulationStatistics> result = coordinator.submit(job("replication"));
+        lost.receiveJob("replication");
+        try (FakeWorker worker = new FakeWorker()) {
+            lost.close();
+            worker.answer(worker.receiveJob("replication"), statistics(3));
+            assertEquals(3, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).numberOfAgents);
+        }
+    }
+
+    @Test
+    public void failsAJobAfterTooManyLostWorkers() throws Exception {
+        CompletableFuture<SimulationStatistics> result = coordinator.submit(job("cursed"));
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try (FakeWorker worker = new FakeWorker()) {
+                worker.receiveJob("cursed");
+            }
+        }
+        try {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("Job survived losing all its workers");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("lost 3 workers"));
+        }
+    }
+
+    @Test
+    public void reportsFailedJobsWithoutRetrying() throws Exception {
+        try (FakeWorker worker = new FakeWorker()) {
+            CompletableFuture<SimulationStatistics> result = coordinator.submit(job("broken"));
+            worker.fail(worker.receiveJob("broken"), "no such crossroad");
+            try {
+                result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                fail("Failed job completed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage().contains("no such crossroad"));
+            }
+        }
+    }
+
+    @Test
+    public void closingCancelsPendingJobsAndShutsWorkersDown() throws Exception {
+        try (FakeWorker worker = new FakeWorker()) {
+            CompletableFuture<SimulationStatistics> running = coordinator.submit(job("running"));
+            worker.receiveJob("running");
+            CompletableFuture<SimulationStatistics> pending = coordinator.submit(job("pending"));
+            coordinator.close();
+            assertTrue(running.isCompletedExceptionally());
+            assertTrue(pending.isCompletedExceptionally());
+            assertEquals(WorkerCoordinator.SHUTDOWN, worker.in.readByte());
+            assertTrue(coordinator.submit(job("late")).isCompletedExceptionally());
+        }
+    }
+}
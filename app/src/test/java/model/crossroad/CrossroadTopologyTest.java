@@ -0,0 +1,48 @@
+package model.crossroad;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+// two roads from the west and the south joining into one to the east
+public class CrossroadTopologyTest {
+    private final Node west = new Node(1, new Position(0, 10), 1);
+    private final Node south = new Node(2, new Position(10, 20), 1);
+    private final Node center = new Node(3, new Position(10, 10));
+    private final Node east = new Node(4, new Position(20, 10));
+
+    {
+        west.addConnection(center);
+        south.addConnection(center);
+        center.addConnection(east);
+    }
+
+    @Test
+    public void crossroadsOnSharedNodesKeepTheirOwnNumbering() {
+        Crossroad both = new Crossroad(new HashSet<>(Arrays.asList(west, south)));
+        Crossroad fromSouth = new Crossroad(Collections.singleton(south));
+        for (Crossroad crossroad : Arrays.asList(both, fromSouth)) {
+            CrossroadTopology topology = crossroad.getTopology();
+            for (int edge = 0; edge < topology.getEdgeCount(); edge++) {
+                assertEquals(edge, topology.getEdge(edge).getId());
+                assertEquals(topology.getEdgeBegin(edge), topology.getEdge(edge).getBegin().getIndex());
+            }
+        }
+        assertEquals(3, both.getEdgeCount());
+        assertEquals(2, fromSouth.getEdgeCount());
+        assertEquals(-1, west.getIndex());
+    }
+
+    @Test
+    public void onlyOneOfTwoJoiningRoadsHasTheOtherOnItsRight() {
+        CrossroadTopology topology = new Crossroad(new HashSet<>(Arrays.asList(west, south))).getTopology();
+        int fromWest = topology.getOutgoingEdge(topology.getNodeIndex(1), 0);
+        int fromSouth = topology.getOutgoingEdge(topology.getNodeIndex(2), 0);
+        int count = topology.getRightHandIncomingEdgeCount(fromWest) + topology.getRightHandIncomingEdgeCount(fromSouth);
+        assertEquals(1, count);
+    }
+}
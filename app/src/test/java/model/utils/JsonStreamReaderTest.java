@@ -0,0 +1,164 @@
+package model.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamReaderTest {
+    private static JsonStreamReader reader(String json) {
+        return new JsonStreamReader(new StringReader(json));
+    }
+
+    @Test
+    public void readsNestedDocument() throws IOException {
+        JsonStreamReader json = reader("{\"id\": 7, \"name\": \"a\\\"b\\u0041\", \"flags\": [true, false, null],"
+                + " \"weight\": -1.5e1, \"skipped\": {\"x\": [1, {\"y\": []}]}}");
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals("id", json.nextName());
+        assertEquals(7, json.nextInt());
+        assertTrue(json.hasNext());
+        assertEquals("name", json.nextName());
+        assertEquals("a\"bA", json.nextString());
+        assertTrue(json.hasNext());
+        assertEquals("flags", json.nextName());
+        json.beginArray();
+        assertTrue(json.hasNext());
+        assertTrue(json.nextBoolean());
+        assertTrue(json.hasNext());
+        assertFalse(json.nextBoolean());
+        assertTrue(json.hasNext());
+        assertTrue(json.nextNull());
+        assertFalse(json.hasNext());
+        assertTrue(json.hasNext());
+        assertEquals("weight", json.nextName());
+        assertEquals(-15, json.nextDouble(), 0);
+        assertTrue(json.hasNext());
+        assertEquals("skipped", json.nextName());
+        json.skipValue();
+        assertFalse(json.hasNext());
+        json.endDocument();
+    }
+
+    @Test
+    public void readsEmptyContainers() throws IOException {
+        JsonStreamReader json = reader(" [ [ ] , { } ] \n");
+        json.beginArray();
+        assertTrue(json.hasNext());
+        json.beginArray();
+        assertFalse(json.hasNext());
+        assertTrue(json.hasNext());
+        json.beginObject();
+        assertFalse(json.hasNext());
+        assertFalse(json.hasNext());
+        json.endDocument();
+    }
+
+    @Test
+    public void readsIntegersWrittenWithExponent() throws IOException {
+        JsonStreamReader json = reader("[2e3]");
+        json.beginArray();
+        assertTrue(json.hasNext());
+        assertEquals(2000, json.nextInt());
+    }
+
+    @Test
+    public void readsAcrossBufferBoundaries() throws IOException {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            text.append(i > 0 ? ", " : "").append(i);
+        }
+        JsonStreamReader json = reader(text.append("]").toString());
+        json.beginArray();
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(json.hasNext());
+            assertEquals(i, json.nextInt());
+        }
+        assertFalse(json.hasNext());
+        json.endDocument();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMissingCommaInArray() throws IOException {
+        JsonStreamReader json = reader("[1 2]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+        json.hasNext();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMissingCommaInObject() throws IOException {
+        JsonStreamReader json = reader("{\"a\": 1 \"b\": 2}");
+        json.beginObject();
+        json.hasNext();
+        json.nextName();
+        json.nextInt();
+        json.hasNext();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMissingCommaWhileSkipping() throws IOException {
+        reader("{\"a\": [1, 2] \"b\": 3}").skipValue();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLeadingComma() throws IOException {
+        JsonStreamReader json = reader("[, 1]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTrailingComma() throws IOException {
+        JsonStreamReader json = reader("[1, ]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+        json.hasNext();
+        json.nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMismatchedBracket() throws IOException {
+        JsonStreamReader json = reader("[1}");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+        json.hasNext();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsDecimalAsInteger() throws IOException {
+        JsonStreamReader json = reader("[1.5]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsIntegerOutOfRange() throws IOException {
+        JsonStreamReader json = reader("[3000000000]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsContentAfterDocument() throws IOException {
+        JsonStreamReader json = reader("{} {}");
+        json.beginObject();
+        json.hasNext();
+        json.endDocument();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedDocument() throws IOException {
+        JsonStreamReader json = reader("{\"a\": [1, 2");
+        json.skipValue();
+    }
+}
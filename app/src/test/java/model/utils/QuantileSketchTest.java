@@ -0,0 +1,89 @@
+package model.utils;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchTest {
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1};
+
+    // log-uniform over six orders of magnitude
+    private static double[] values(long seed, int count) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.pow(10, -3 + 6 * random.nextDouble());
+        }
+        return values;
+    }
+
+    @Test
+    public void quantilesWithinRelativeAccuracy() {
+        double[] values = values(1, 20000);
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        Arrays.sort(values);
+        for (double q : QUANTILES) {
+            double exact = values[(int) (q * (values.length - 1))];
+            assertEquals("quantile " + q, exact, sketch.quantile(q), exact * 0.0101);
+        }
+        assertEquals(values[0], sketch.getMin(), 0);
+        assertEquals(values[values.length - 1], sketch.getMax(), 0);
+        assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    public void zerosAreCountedBelowTheSmallestBucket() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < 60; i++) {
+            sketch.add(0);
+        }
+        for (int i = 0; i < 40; i++) {
+            sketch.add(10);
+        }
+        assertEquals(0, sketch.quantile(0.5), 0);
+        assertEquals(10, sketch.quantile(0.9), 10 * 0.0101);
+        assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+    }
+
+    @Test
+    public void mergeEqualsAddingEverything() {
+        double[] values = values(2, 5000);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        for (double value : values) {
+            all.add(value);
+            // disjoint ranges, so the merge has to widen the buckets of one side
+            (value < 1 ? low : high).add(value);
+        }
+        QuantileSketch merged = new QuantileSketch(high);
+        merged.merge(low);
+        merged.merge(new QuantileSketch());
+        assertEquals(all.getCount(), merged.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(all.quantile(q), merged.quantile(q), 0);
+        }
+    }
+
+    @Test
+    public void serializationRoundTrip() throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values(3, 1000)) {
+            sketch.add(value);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        QuantileSketch copy = QuantileSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(sketch.getCount(), copy.getCount());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q), 0);
+        }
+    }
+}
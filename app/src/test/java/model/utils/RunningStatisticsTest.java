@@ -0,0 +1,84 @@
+package model.utils;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RunningStatisticsTest {
+    private static double[] values(long seed, int count) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            // a large offset, where the naive sum of squares loses every digit of the variance
+            values[i] = 1e9 + random.nextGaussian() * 3;
+        }
+        return values;
+    }
+
+    @Test
+    public void matchesTwoPassMeanAndVariance() {
+        double[] values = values(1, 10000);
+        RunningStatistics statistics = new RunningStatistics();
+        double sum = 0;
+        for (double value : values) {
+            statistics.add(value);
+            sum += value;
+        }
+        double mean = sum / values.length;
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        assertEquals(values.length, statistics.getCount());
+        assertEquals(mean, statistics.getMean(), 1e-6);
+        assertEquals(squares / (values.length - 1), statistics.getVariance(), 1e-6);
+    }
+
+    @Test
+    public void mergeEqualsAddingEverything() {
+        double[] values = values(2, 1000);
+        RunningStatistics all = new RunningStatistics();
+        RunningStatistics first = new RunningStatistics();
+        RunningStatistics second = new RunningStatistics();
+        for (int i = 0; i < values.length; i++) {
+            all.add(values[i]);
+            (i < 300 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+        first.merge(new RunningStatistics());
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMean(), first.getMean(), 1e-6);
+        assertEquals(all.getVariance(), first.getVariance(), 1e-6);
+    }
+
+    @Test
+    public void emptyAndSingleValues() {
+        RunningStatistics statistics = new RunningStatistics();
+        assertTrue(Double.isNaN(statistics.getMean()));
+        assertEquals(0, statistics.getVariance(), 0);
+        statistics.add(4);
+        assertEquals(4, statistics.getMean(), 0);
+        assertEquals(0, statistics.getVariance(), 0);
+        RunningStatistics empty = new RunningStatistics();
+        empty.merge(statistics);
+        assertEquals(1, empty.getCount());
+        assertEquals(4, empty.getMean(), 0);
+    }
+
+    @Test
+    public void serializationRoundTrip() throws IOException {
+        RunningStatistics statistics = new RunningStatistics();
+        for (double value : values(3, 100)) {
+            statistics.add(value);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        statistics.writeTo(new DataOutputStream(bytes));
+        RunningStatistics copy = RunningStatistics.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(statistics.getCount(), copy.getCount());
+        assertEquals(statistics.getMean(), copy.getMean(), 0);
+        assertEquals(statistics.getVariance(), copy.getVariance(), 0);
+    }
+}
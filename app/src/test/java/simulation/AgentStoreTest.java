@@ -0,0 +1,67 @@
+package simulation;
+
+import model.agent.Agent;
+import model.agent.Car;
+import model.agent.Decision;
+import model.agent.Driver;
+import model.crossroad.Crossroad;
+import model.crossroad.RouteTable;
+import model.utils.CrossroadLoader;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AgentStoreTest {
+    private final Crossroad crossroad = CrossroadLoader.loadFromFile("crossroad_two_routes.json");
+    private final AgentStore store = new AgentStore(crossroad);
+
+    private AgentState state(int id) {
+        RouteTable routes = crossroad.getRoutes();
+        int route = crossroad.getRandomRoute(new Random(id));
+        Driver driver = new Driver(0.3f + id, 1 + id, 0.01f * id, 100 + id);
+        driver.setLastBrakeTime(id);
+        Agent agent = new Agent(id, driver, new Car(0.01f, 0.1f, 0.2f, 0.8f + id), routes, route);
+        return new AgentState(agent, routes.getRouteBegin(route), store);
+    }
+
+    @Test
+    public void slotsKeepTheCarAndDriverWhileGrowing() {
+        List<AgentState> states = new ArrayList<>();
+        for (int id = 0; id < 200; id++) {
+            states.add(state(id));
+        }
+        assertEquals(200, store.getLiveCount());
+        for (int id = 0; id < states.size(); id++) {
+            AgentState state = states.get(id);
+            assertEquals(0.8f + id, state.getLength(), 0);
+            assertEquals(0.3f + id, state.getSafeDistance(), 0);
+            assertEquals(1 + id, state.getSafeDistanceWhileStaying(), 0);
+            assertEquals(0.01f * id, state.getMadnessFactor(), 0);
+            assertEquals(100 + id, state.getTimeout());
+            assertEquals(id, state.getLastBrakeTime());
+            assertEquals(0.1f, state.getDeceleration(), 0);
+        }
+        int slot = states.get(7).getSlot();
+        states.get(7).release();
+        assertFalse(store.isLive(slot));
+        assertEquals(slot, state(1000).getSlot());
+    }
+
+    @Test
+    public void velocityStaysBetweenZeroAndTheTopSpeed() {
+        AgentState state = state(0);
+        for (int i = 0; i < 30; i++) {
+            state.accelerate(Decision.Acceleration.ACCELERATE);
+        }
+        assertEquals(0.2f, state.getVelocity(), 0);
+        state.accelerate(Decision.Acceleration.BRAKE);
+        assertEquals(0.1f, state.getVelocity(), 1e-6);
+        state.accelerate(Decision.Acceleration.BRAKE);
+        state.accelerate(Decision.Acceleration.BRAKE);
+        assertEquals(0, state.getVelocity(), 0);
+    }
+}
@@ -0,0 +1,101 @@
+package simulation;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameCodecTest {
+    private static final float PRECISION = 1 / TrajectoryRecorder.SCALE;
+
+    private static StepFrame frame(int time, int[] ids, int[] headEdges, int[] tailEdges, float[] heads,
+                                   float[] tails, float[] velocities) {
+        StepFrame frame = new StepFrame();
+        frame.reset(time, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            frame.ids[i] = ids[i];
+            frame.headEdges[i] = headEdges[i];
+            frame.tailEdges[i] = tailEdges[i];
+            frame.headPositions[i] = heads[i];
+            frame.tailPositions[i] = tails[i];
+            frame.velocities[i] = velocities[i];
+        }
+        return frame;
+    }
+
+    private static StepFrame roundTrip(StepFrame frame, StepFrame previous, boolean keyframe, StepFrame decodedPrevious) {
+        ByteBuffer buffer = ByteBuffer.allocate(FrameCodec.maxFrameBytes(frame.agentCount));
+        FrameCodec.encode(frame, previous, keyframe, buffer);
+        buffer.flip();
+        assertEquals(buffer.limit(), buffer.getInt());
+        StepFrame decoded = new StepFrame();
+        FrameCodec.decode(buffer, decoded, decodedPrevious);
+        assertFalse(buffer.hasRemaining());
+        return decoded;
+    }
+
+    private static void assertFrame(StepFrame expected, StepFrame actual) {
+        assertEquals(expected.time, actual.time);
+        assertEquals(expected.agentCount, actual.agentCount);
+        for (int i = 0; i < expected.agentCount; i++) {
+            assertEquals(expected.ids[i], actual.ids[i]);
+            assertEquals(expected.headEdges[i], actual.headEdges[i]);
+            assertEquals(expected.tailEdges[i], actual.tailEdges[i]);
+            assertEquals(expected.headPositions[i], actual.headPositions[i], PRECISION);
+            assertEquals(expected.tailPositions[i], actual.tailPositions[i], PRECISION);
+            assertEquals(expected.velocities[i], actual.velocities[i], PRECISION);
+        }
+    }
+
+    @Test
+    public void varintsAndZigzagRoundTrip() {
+        int[] values = {0, 1, -1, 63, -64, 64, 127, 128, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 5);
+        for (int value : values) {
+            FrameCodec.putVarint(buffer, FrameCodec.zigzag(value));
+        }
+        buffer.flip();
+        for (int value : values) {
+            assertEquals(value, FrameCodec.unzigzag(FrameCodec.getVarint(buffer)));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void smallValuesTakeOneByte() {
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        FrameCodec.putVarint(buffer, FrameCodec.zigzag(-64));
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    public void keyframeAndDeltasRoundTrip() {
+        StepFrame first = frame(10, new int[]{3, 5, 9}, new int[]{0, 4, 7}, new int[]{0, 3, 7},
+                new float[]{0.5f, 1.25f, 3}, new float[]{-0.5f, 0.75f, 2}, new float[]{0.1f, 0.2f, 0});
+        // agent 3 left, 5 moved onto a new edge, 9 waits and 12 entered
+        StepFrame second = frame(11, new int[]{5, 9, 12}, new int[]{8, 7, 1}, new int[]{4, 7, 1},
+                new float[]{0.05f, 3, 0}, new float[]{0.3f, 2, -1}, new float[]{0.25f, 0, 0});
+        StepFrame third = frame(12, new int[]{5, 9, 12}, new int[]{8, 7, 1}, new int[]{8, 7, 1},
+                new float[]{0.3f, 3, 0.1f}, new float[]{-0.7f, 2, -0.9f}, new float[]{0.25f, 0, 0.1f});
+
+        StepFrame decodedFirst = roundTrip(first, null, true, null);
+        assertFrame(first, decodedFirst);
+        StepFrame decodedSecond = roundTrip(second, first, false, decodedFirst);
+        assertFrame(second, decodedSecond);
+        StepFrame decodedThird = roundTrip(third, second, false, decodedSecond);
+        assertFrame(third, decodedThird);
+        // a keyframe decodes without any earlier frame
+        assertFrame(third, roundTrip(third, second, true, null));
+    }
+
+    @Test
+    public void deltasSkipFrames() {
+        StepFrame first = frame(1, new int[]{1, 2}, new int[]{0, 1}, new int[]{0, 1},
+                new float[]{0, 0}, new float[]{-1, -1}, new float[]{0, 0});
+        StepFrame later = frame(50, new int[]{2, 4}, new int[]{6, 3}, new int[]{5, 3},
+                new float[]{0.5f, 1}, new float[]{0.2f, 0}, new float[]{0.2f, 0.1f});
+        StepFrame decodedFirst = roundTrip(first, null, true, null);
+        assertFrame(later, roundTrip(later, first, false, decodedFirst));
+    }
+}
@@ -0,0 +1,120 @@
+package simulation;
+
+import model.crossroad.Crossroad;
+import model.crossroad.CrossroadTopology;
+import model.crossroad.Edge;
+import model.crossroad.Node;
+import model.utils.CrossroadLoader;
+import model.utils.NetworkGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+// the queries of a driver must find what a scan over every other agent finds, as before the index
+public class OccupancyIndexTest {
+    private static final int STEPS = 600;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int checkedLeaders;
+
+    @Test
+    public void answersLikeLinearScans() throws IOException {
+        Path path = folder.newFile().toPath();
+        NetworkGenerator.write(NetworkGenerator.grid(4, 4, 5L), path);
+        Crossroad crossroad = CrossroadLoader.loadFromFile(path.toString());
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.simulationTime = STEPS;
+        settings.traffic = 3;
+        settings.craziness = 0.5f;
+        Simulator simulator = new Simulator(crossroad, settings, 7);
+        OccupancyIndex index = new OccupancyIndex();
+        simulator.registerObserver(() -> check(simulator, index));
+        simulator.runReplication(0, STEPS);
+        assertTrue(checkedLeaders > 0);
+    }
+
+    private void check(Simulator simulator, OccupancyIndex index) {
+        Collection<AgentState> states = new ArrayList<>(simulator.getStates());
+        index.rebuild(states);
+        CrossroadTopology topology = simulator.getCrossroad().getTopology();
+        for (AgentState state : states) {
+            CrossroadState crossroadState = new CrossroadState(state, index, topology,
+                    simulator.getSignalController(), simulator.getTime());
+            AgentState.AgentPosition head = state.getHeadPosition();
+            AgentState leader = crossroadState.getLeader(head.edge, head.edgePosition);
+            assertTailPosition(scanLeader(states, state, head.edge, head.edgePosition), leader);
+            if (leader != null) {
+                checkedLeaders++;
+            }
+            Node end = head.edge.getEnd();
+            assertEquals(scanOccupied(states, state, end), crossroadState.isOccupiedBySomeoneElse(end));
+            for (Edge next : end.getOutgoingEdges()) {
+                assertTailPosition(scanLeader(states, state, next, Float.NEGATIVE_INFINITY),
+                        crossroadState.getLastOnEdge(next));
+            }
+            for (int i = 0; i < topology.getRightHandIncomingEdgeCount(head.edge.getId()); i++) {
+                Edge right = topology.getEdge(topology.getRightHandIncomingEdge(head.edge.getId(), i));
+                AgentState expected = scanFirst(states, state, right);
+                AgentState actual = crossroadState.getFirstOnEdge(right);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.getHeadPosition().edgePosition, actual.getHeadPosition().edgePosition, 0);
+                }
+            }
+        }
+    }
+
+    // agents with equal positions are interchangeable for the driver, so only the position is compared
+    private static void assertTailPosition(AgentState expected, AgentState actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(actual);
+            assertEquals(expected.getTailPosition().edgePosition, actual.getTailPosition().edgePosition, 0);
+        }
+    }
+
+    private static AgentState scanLeader(Collection<AgentState> states, AgentState me, Edge edge, float position) {
+        AgentState leader = null;
+        for (AgentState state : states) {
+            AgentState.AgentPosition tail = state.getTailPosition();
+            if (state != me && tail.edge.equals(edge) && tail.edgePosition >= position
+                    && (leader == null || tail.edgePosition < leader.getTailPosition().edgePosition)) {
+                leader = state;
+            }
+        }
+        return leader;
+    }
+
+    private static AgentState scanFirst(Collection<AgentState> states, AgentState me, Edge edge) {
+        AgentState first = null;
+        for (AgentState state : states) {
+            AgentState.AgentPosition head = state.getHeadPosition();
+            if (state != me && head.edge.equals(edge)
+                    && (first == null || head.edgePosition > first.getHeadPosition().edgePosition)) {
+                first = state;
+            }
+        }
+        return first;
+    }
+
+    private static boolean scanOccupied(Collection<AgentState> states, AgentState me, Node node) {
+        for (AgentState state : states) {
+            if (state != me && state.occupiesNode(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,187 @@
+package simulation;
+
+import com.eclipsesource.json.JsonObject;
+import model.crossroad.Crossroad;
+import model.crossroad.SignalPlan;
+import model.utils.CrossroadLoader;
+import model.utils.NetworkGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import simulation.StatisticsTracker.RouteStatistics;
+import simulation.StatisticsTracker.SimulationStatistics;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/*
+ * Regions, parallel steps and checkpoints must not change a single number: the same seed gives the same
+ * statistics however the run is split up.
+ */
+public class SimulatorDeterminismTest {
+    private static final int CHECKPOINT_TIME = 800;
+    private static final int END_TIME = 2000;
+    private static final long SEED = 11;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Crossroad load(JsonObject network) throws IOException {
+        Path path = folder.newFile().toPath();
+        NetworkGenerator.write(network, path);
+        return CrossroadLoader.loadFromFile(path.toString());
+    }
+
+    private static SimulationSettings settings(int regions, boolean parallelStep) {
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.simulationTime = END_TIME;
+        settings.traffic = 2;
+        settings.craziness = 0.5f;
+        settings.regions = regions;
+        settings.parallelStep = parallelStep;
+        settings.seed = SEED;
+        return settings;
+    }
+
+    // statistics of the whole run, warm-up included
+    private static SimulationStatistics finish(Simulator simulator) {
+        simulator.warmUp(END_TIME);
+        return simulator.getStatistics();
+    }
+
+    private static void assertSameStatistics(SimulationStatistics expected, SimulationStatistics actual) {
+        assertTrue(expected.numberOfAgents > 0);
+        assertEquals(expected.numberOfAgents, actual.numberOfAgents);
+        assertEquals(expected.numberOfCollisions, actual.numberOfCollisions);
+        assertEquals(expected.averageVelocity, actual.averageVelocity, 0);
+        assertEquals(expected.velocityStandardDeviation, actual.velocityStandardDeviation, 0);
+        assertEquals(expected.averageWaitingTime, actual.averageWaitingTime, 0);
+        assertEquals(expected.averageDrivingTime, actual.averageDrivingTime, 0);
+        assertEquals(expected.averageAgentsWaiting, actual.averageAgentsWaiting, 0);
+        for (double q : new double[]{0.05, 0.5, 0.95}) {
+            assertEquals(expected.velocityDistribution.quantile(q), actual.velocityDistribution.quantile(q), 0);
+            assertEquals(expected.travelTimeDistribution.quantile(q), actual.travelTimeDistribution.quantile(q), 0);
+        }
+        assertEquals(expected.routeStats.keySet(), actual.routeStats.keySet());
+        for (Map.Entry<String, RouteStatistics> entry : expected.routeStats.entrySet()) {
+            RouteStatistics route = actual.routeStats.get(entry.getKey());
+            assertEquals(entry.getValue().numberOfAgents, route.numberOfAgents);
+            assertEquals(entry.getValue().averageTravelTime, route.averageTravelTime, 0);
+        }
+    }
+
+    @Test
+    public void parallelStepsGiveTheSameRun() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        SimulationStatistics expected = finish(new Simulator(crossroad, settings(1, false), SEED));
+        assertSameStatistics(expected, finish(new Simulator(crossroad, settings(1, true), SEED)));
+    }
+
+    @Test
+    public void regionsGiveTheSameRun() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        SimulationStatistics expected = finish(new Simulator(crossroad, settings(1, false), SEED));
+        for (int regions : new int[]{1, 2, 4}) {
+            Simulator simulator = new Simulator(crossroad, settings(regions, true), SEED);
+            assertEquals(regions, simulator.getRegionCount());
+            assertSameStatistics(expected, finish(simulator));
+        }
+    }
+
+    @Test
+    public void restoredCheckpointContinuesTheSameRun() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        Simulator simulator = new Simulator(crossroad, settings(1, false), SEED);
+        simulator.warmUp(CHECKPOINT_TIME);
+        Checkpoint checkpoint = simulator.checkpoint();
+        assertEquals(CHECKPOINT_TIME, checkpoint.getTime());
+        SimulationStatistics expected = finish(simulator);
+
+        Simulator restored = Simulator.restore(crossroad, settings(1, false), checkpoint);
+        assertEquals(CHECKPOINT_TIME, restored.getTime());
+        assertSameStatistics(expected, finish(restored));
+        // a checkpoint taken without regions continues the same on any number of them
+        assertSameStatistics(expected, finish(Simulator.restore(crossroad, settings(4, true), checkpoint)));
+    }
+
+    @Test
+    public void reseededBranchesAreReproducible() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        Simulator simulator = new Simulator(crossroad, settings(1, false), SEED);
+        simulator.warmUp(CHECKPOINT_TIME);
+        Checkpoint checkpoint = simulator.checkpoint();
+        SimulationStatistics first = Simulator.restore(crossroad, settings(1, false), checkpoint, 5)
+                .runReplication(0, END_TIME);
+        SimulationStatistics second = Simulator.restore(crossroad, settings(2, true), checkpoint, 5)
+                .runReplication(0, END_TIME);
+        assertSameStatistics(first, second);
+    }
+
+    @Test
+    public void checkpointSurvivesFilesAndStreams() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        Simulator simulator = new Simulator(crossroad, settings(1, false), SEED);
+        simulator.warmUp(CHECKPOINT_TIME);
+        Checkpoint checkpoint = simulator.checkpoint();
+        SimulationStatistics expected = finish(simulator);
+
+        Path path = folder.newFile("state.bin").toPath();
+        checkpoint.save(path);
+        Checkpoint loaded = Checkpoint.load(path);
+        assertArrayEquals(checkpoint.getData(), loaded.getData());
+        assertSameStatistics(expected, finish(Simulator.restore(crossroad, settings(1, false), loaded)));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        checkpoint.writeTo(new DataOutputStream(bytes));
+        Checkpoint shipped = Checkpoint.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(checkpoint.getData(), shipped.getData());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void checkpointOfAnotherCrossroadIsRejected() throws IOException {
+        Simulator simulator = new Simulator(load(NetworkGenerator.grid(6, 6, 3L)), settings(1, false), SEED);
+        simulator.warmUp(10);
+        Simulator.restore(load(NetworkGenerator.grid(4, 4, 3L)), settings(1, false), simulator.checkpoint());
+    }
+
+    @Test
+    public void checkpointKeepsTheSignalPlanOfTheSimulation() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.corridor(3, 6, 1L));
+        SignalPlan plan = crossroad.getSignalController().getPlan().copy();
+        for (SignalPlan.Signal signal : plan.signals) {
+            signal.offset = (signal.offset + 137) % signal.getCycle();
+            signal.phases.get(0).green += 100;
+        }
+        SimulationSettings settings = settings(1, false);
+        settings.traffic = 0.3f;
+        Simulator simulator = new Simulator(crossroad, settings, SEED);
+        simulator.setSignalPlan(plan);
+        simulator.warmUp(CHECKPOINT_TIME);
+        Checkpoint checkpoint = simulator.checkpoint();
+        SimulationStatistics expected = finish(simulator);
+
+        Simulator restored = Simulator.restore(crossroad, settings, checkpoint);
+        assertEquals(plan.toString(), restored.getSignalController().getPlan().toString());
+        assertSameStatistics(expected, finish(restored));
+        // without a plan of its own a simulation keeps the one of the crossroad
+        Simulator plain = new Simulator(crossroad, settings, SEED);
+        plain.warmUp(10);
+        assertSame(crossroad.getSignalController(),
+                Simulator.restore(crossroad, settings, plain.checkpoint()).getSignalController());
+    }
+
+    @Test
+    public void sameSeedSameRunOtherSeedOtherRun() throws IOException {
+        Crossroad crossroad = load(NetworkGenerator.grid(6, 6, 3L));
+        SimulationStatistics first = finish(new Simulator(crossroad, settings(1, false), SEED));
+        assertSameStatistics(first, finish(new Simulator(crossroad, settings(1, false), SEED)));
+        SimulationStatistics other = finish(new Simulator(crossroad, settings(1, false), SEED + 1));
+        assertFalse(Arrays.equals(new float[]{first.averageVelocity, first.averageDrivingTime},
+                new float[]{other.averageVelocity, other.averageDrivingTime}));
+    }
+}
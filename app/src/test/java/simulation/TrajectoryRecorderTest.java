@@ -0,0 +1,81 @@
+package simulation;
+
+import model.agent.Agent;
+import model.crossroad.Crossroad;
+import model.utils.CrossroadLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TrajectoryRecorderTest {
+    private static final int STEPS = 1000;
+    private static final float PRECISION = 1 / TrajectoryRecorder.SCALE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // head edge, tail edge, head, tail and velocity of every agent by id, per step
+    private final List<Map<Integer, float[]>> steps = new ArrayList<>();
+
+    @Test
+    public void readsBackEveryRecordedStep() throws IOException {
+        Path path = folder.newFile("run.traj").toPath();
+        Crossroad crossroad = CrossroadLoader.loadFromFile("crossroad_two_routes.json");
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.simulationTime = STEPS;
+        settings.traffic = 0.3f;
+        settings.trajectoryFile = path.toString();
+        Simulator simulator = new Simulator(crossroad, settings, 1);
+        simulator.registerObserver(() -> capture(simulator));
+        simulator.runReplication(0, STEPS);
+
+        try (TrajectoryReader reader = new TrajectoryReader(path)) {
+            assertEquals(crossroad.getEdgeCount(), reader.getEdgeCount());
+            assertEquals(1, reader.getFirstTime());
+            assertEquals(STEPS, reader.getLastTime());
+            for (int time = 1; time <= STEPS; time++) {
+                assertStep(time, reader.seek(time));
+            }
+            // backwards and across keyframes
+            Random random = new Random(2);
+            for (int i = 0; i < 50; i++) {
+                int time = 1 + random.nextInt(STEPS);
+                assertStep(time, reader.seek(time));
+            }
+            assertNull(reader.seek(0));
+        }
+    }
+
+    private void capture(Simulator simulator) {
+        AgentStore store = simulator.getAgentStore();
+        Map<Integer, float[]> agents = new HashMap<>();
+        for (Map.Entry<Agent, AgentState> entry : simulator.getAgentsStates().entrySet()) {
+            int slot = entry.getValue().getSlot();
+            agents.put(entry.getKey().getId(), new float[]{store.getHeadEdgeId(slot), store.getTailEdgeId(slot),
+                    store.getEdgePosition(slot), store.getTailEdgePosition(slot), store.getVelocity(slot)});
+        }
+        steps.add(agents);
+    }
+
+    private void assertStep(int time, StepFrame frame) {
+        Map<Integer, float[]> agents = steps.get(time - 1);
+        assertEquals(time, frame.time);
+        assertEquals("agents at " + time, agents.size(), frame.agentCount);
+        for (int i = 0; i < frame.agentCount; i++) {
+            float[] expected = agents.get(frame.ids[i]);
+            assertNotNull("agent " + frame.ids[i] + " at " + time, expected);
+            assertEquals((int) expected[0], frame.headEdges[i]);
+            assertEquals((int) expected[1], frame.tailEdges[i]);
+            assertEquals(expected[2], frame.headPositions[i], PRECISION);
+            assertEquals(expected[3], frame.tailPositions[i], PRECISION);
+            assertEquals(expected[4], frame.velocities[i], PRECISION);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import model.agent.Decision;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import simulation.AgentState;
+import simulation.CrossroadState;
+import simulation.OccupancyIndex;
+import simulation.Simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentDecisionBenchmark {
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    private Simulator simulator;
+    private List<AgentState> states;
+    private List<CrossroadState> crossroadStates;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        simulator = WarmSimulation.create(scenario, 2, 1000);
+        states = new ArrayList<>(simulator.getStates());
+        OccupancyIndex index = new OccupancyIndex();
+        index.rebuild(states);
+        crossroadStates = new ArrayList<>();
+        for (AgentState state : states) {
+            crossroadStates.add(new CrossroadState(state, index, simulator.getCrossroad().getTopology(),
+                    simulator.getSignalController(), simulator.getTime()));
+        }
+    }
+
+    @Benchmark
+    public void decideAll(Blackhole blackhole) {
+        for (int i = 0; i < states.size(); i++) {
+            Decision decision = states.get(i).getAgent().decision(crossroadStates.get(i));
+            blackhole.consume(decision);
+        }
+    }
+}
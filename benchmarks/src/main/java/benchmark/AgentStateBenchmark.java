@@ -0,0 +1,87 @@
+package benchmark;
+
+import model.agent.Agent;
+import model.agent.Car;
+import model.agent.Decision;
+import model.agent.Driver;
+import model.crossroad.Crossroad;
+import model.crossroad.RouteTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import simulation.AgentState;
+import simulation.AgentStore;
+import simulation.SimulationHooks;
+import simulation.Simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AgentStateBenchmark {
+    private static final float VELOCITY = 0.1f;
+
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    private List<AgentState> states;
+    private Crossroad crossroad;
+    private AgentStore store;
+    private int longestRoute;
+    private Agent driving;
+    private AgentState drivingState;
+    private int routeCursor;
+    private Decision decision = new Decision();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Simulator simulator = WarmSimulation.create(scenario, 2, 1000);
+        states = new ArrayList<>(simulator.getStates());
+        crossroad = simulator.getCrossroad();
+        store = new AgentStore(crossroad);
+        RouteTable routes = crossroad.getRoutes();
+        for (int routeId = 0; routeId < routes.getRouteCount(); routeId++) {
+            if (routes.hasRoute(routeId) && routes.getRouteLength(routeId) > routes.getRouteLength(longestRoute)) {
+                longestRoute = routeId;
+            }
+        }
+        startDriving();
+    }
+
+    private void startDriving() {
+        if (drivingState != null) {
+            SimulationHooks.release(drivingState);
+        }
+        RouteTable routes = crossroad.getRoutes();
+        driving = new Agent(0, new Driver(0.3f, 1f, 0.5f, 100), new Car(0.01f, 0.1f, VELOCITY, 0.8f), routes, longestRoute);
+        drivingState = new AgentState(driving, routes.getRouteBegin(longestRoute), store);
+        routeCursor = 0;
+    }
+
+    @Benchmark
+    public void tailPositions(Blackhole blackhole) {
+        for (AgentState state : states) {
+            blackhole.consume(state.getTailPosition());
+        }
+    }
+
+    @Benchmark
+    public AgentState move() {
+        if (drivingState.arrived()) {
+            startDriving();
+        }
+        RouteTable routes = crossroad.getRoutes();
+        if (routeCursor < routes.getRouteLength(longestRoute)
+                && drivingState.getHeadPosition().edge.equals(routes.getRouteEdge(longestRoute, routeCursor))) {
+            routeCursor++;
+        }
+        decision.nextEdge = routeCursor < routes.getRouteLength(longestRoute) ? routes.getRouteEdge(longestRoute, routeCursor) : null;
+        SimulationHooks.move(drivingState, VELOCITY, decision);
+        return drivingState;
+    }
+}
@@ -0,0 +1,11 @@
+package benchmark;
+
+import java.util.Arrays;
+
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        String[] jmhArgs = Arrays.copyOf(new String[]{"-prof", "gc"}, args.length + 2);
+        System.arraycopy(args, 0, jmhArgs, 2, args.length);
+        org.openjdk.jmh.Main.main(jmhArgs);
+    }
+}
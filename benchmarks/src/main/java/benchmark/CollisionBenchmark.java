@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.AgentState;
+import simulation.CollisionTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    private List<AgentState> states;
+    private CollisionTracker tracker;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        states = new ArrayList<>(WarmSimulation.create(scenario, 2, 1000).getStates());
+        tracker = new CollisionTracker(false);
+    }
+
+    @Benchmark
+    public int detectCollisions() {
+        tracker.detectCollisions(states);
+        return tracker.getNumberOfCollisions();
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import model.crossroad.Crossroad;
+import model.utils.CrossroadCompiler;
+import model.utils.CrossroadLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrossroadLoaderBenchmark {
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    private String path;
+    private String compiledPath;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Scenarios.path(scenario);
+        File compiled = File.createTempFile("benchmark_compiled", ".bin");
+        compiled.deleteOnExit();
+        CrossroadCompiler.compile(path, compiled.toPath());
+        compiledPath = compiled.getPath();
+    }
+
+    @Benchmark
+    public Crossroad loadFromFile() {
+        return CrossroadLoader.loadFromFile(path);
+    }
+
+    @Benchmark
+    public Crossroad loadCompiled() {
+        return CrossroadLoader.loadFromFile(compiledPath);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import gui.CrossroadPainting;
+import gui.PaintingHooks;
+import model.crossroad.Crossroad;
+import org.openjdk.jmh.annotations.*;
+import simulation.FrameBuffer;
+import simulation.Simulator;
+import simulation.StepFrame;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class CrossroadPaintingBenchmark {
+    @Param({"crossroad.json", "generated"})
+    public String scenario;
+
+    @Param({"2"})
+    public float traffic;
+
+    @Param({"1", "8"})
+    public float zoom;
+
+    private final Dimension size = new Dimension(1600, 1200);
+    private CrossroadPainting painting;
+    private StepFrame frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Crossroad crossroad = Scenarios.load(scenario);
+        Simulator simulator = WarmSimulation.create(crossroad, traffic, 1000);
+        FrameBuffer frames = new FrameBuffer();
+        frames.publish(simulator);
+        frame = frames.acquire();
+        painting = new CrossroadPainting(crossroad);
+        PaintingHooks.zoom(painting, zoom);
+    }
+
+    @Benchmark
+    public void renderFrame() {
+        PaintingHooks.renderImage(painting, frame, size);
+    }
+}
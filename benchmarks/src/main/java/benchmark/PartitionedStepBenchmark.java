@@ -0,0 +1,36 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.Simulator;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionedStepBenchmark {
+    @Param({"generated"})
+    public String scenario;
+
+    @Param({"8", "30"})
+    public float traffic;
+
+    @Param({"1", "2", "4", "8"})
+    public int regions;
+
+    private Simulator simulator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        simulator = WarmSimulation.create(Scenarios.load(scenario), traffic, regions, 1000);
+    }
+
+    @Benchmark
+    public int step() {
+        simulator.step();
+        return simulator.getStates().size();
+    }
+}
@@ -0,0 +1,31 @@
+package benchmark;
+
+import model.crossroad.Crossroad;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteSamplingBenchmark {
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    private Crossroad crossroad;
+    private Random random = new Random(42);
+
+    @Setup
+    public void setUp() {
+        crossroad = Scenarios.load(scenario);
+    }
+
+    @Benchmark
+    public int getRandomRoute() {
+        return crossroad.getRandomRoute(random);
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import model.crossroad.Crossroad;
+import model.utils.CrossroadLoader;
+import model.utils.NetworkGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+public class Scenarios {
+    public static final String GENERATED = "generated";
+    private static final String SCENARIOS_DIR = System.getProperty("scenarios.dir", ".");
+    private static final int GENERATED_GRID_SIZE = 30;
+    private static File generatedGrid;
+
+    public static String path(String scenario) {
+        if (GENERATED.equals(scenario)) {
+            return generatedGrid().getPath();
+        }
+        return new File(SCENARIOS_DIR, scenario).getPath();
+    }
+
+    public static Crossroad load(String scenario) {
+        return CrossroadLoader.loadFromFile(path(scenario));
+    }
+
+    // written again by every benchmark JVM, JMH forks one per trial, so a stale grid of an older generator
+    // never gets measured
+    private static synchronized File generatedGrid() {
+        if (generatedGrid == null) {
+            try {
+                generatedGrid = File.createTempFile("benchmark_grid_" + GENERATED_GRID_SIZE + "_", ".json");
+            } catch (IOException e) {
+                throw new RuntimeException("Generated grid writing error", e);
+            }
+            generatedGrid.deleteOnExit();
+            NetworkGenerator.write(NetworkGenerator.grid(GENERATED_GRID_SIZE, GENERATED_GRID_SIZE, null),
+                    generatedGrid.toPath());
+        }
+        return generatedGrid;
+    }
+}
@@ -0,0 +1,37 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulation.Simulator;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorStepBenchmark {
+    @Param({"crossroad.json", "lineroad.json", "crossroad_two_routes.json", "generated"})
+    public String scenario;
+
+    @Param({"0.5", "2", "8"})
+    public float traffic;
+
+    @Param({"false", "true"})
+    public boolean parallelStep;
+
+    private Simulator simulator;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        simulator = WarmSimulation.create(scenario, traffic, 1000);
+        simulator.getSettings().parallelStep = parallelStep;
+    }
+
+    @Benchmark
+    public int step() {
+        simulator.step();
+        return simulator.getStates().size();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmark;
+
+import model.crossroad.Crossroad;
+import simulation.SimulationSettings;
+import simulation.Simulator;
+
+public class WarmSimulation {
+    public static final long SEED = 42;
+
+    public static Simulator create(Crossroad crossroad, float traffic, int warmUpSteps) {
+        return create(crossroad, traffic, 1, warmUpSteps);
+    }
+
+    public static Simulator create(Crossroad crossroad, float traffic, int regions, int warmUpSteps) {
+        SimulationSettings settings = new SimulationSettings();
+        settings.batchMode = true;
+        settings.traffic = traffic;
+        settings.regions = regions;
+        settings.simulationTime = Integer.MAX_VALUE;
+        Simulator simulator = new Simulator(crossroad, settings, SEED);
+        for (int i = 0; i < warmUpSteps; i++) {
+            simulator.step();
+        }
+        return simulator;
+    }
+
+    public static Simulator create(String scenario, float traffic, int warmUpSteps) {
+        return create(Scenarios.load(scenario), traffic, warmUpSteps);
+    }
+}
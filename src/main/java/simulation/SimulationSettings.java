@@ -1,9 +0,0 @@
-package simulation;
-
-public class SimulationSettings {
-    public boolean batchMode = false;
-    public int simulationTime = 5000;
-    public float traffic = 0.01f;
-    public float craziness = 0.5f;
-    public String crossroadFile;
-}
@@ -1,5 +0,0 @@
-package simulation;
-
-public interface SimulatorStepObserver {
-    void update();
-}